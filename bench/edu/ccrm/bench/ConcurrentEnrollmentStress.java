@@ -0,0 +1,200 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.exception.CourseFullException;
+import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.service.ChangeEvent;
+import edu.ccrm.service.EventBus;
+import edu.ccrm.service.StudentService;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hammers the service layer from many threads and checks the invariants a lost update would break:
+// the 18-credit cap, one enrollment per course, GPA totals, unique regNo/email ownership, and an
+// event stream that replays to the final enrollments.
+// Usage: java -cp target/benchmarks.jar edu.ccrm.bench.ConcurrentEnrollmentStress [threads] [operations]
+public class ConcurrentEnrollmentStress {
+    private static final int STUDENTS = 200;
+    private static final int COURSES = 40;
+    private static final int CREDIT_LIMIT = 18;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        StudentService service = new StudentService();
+        for (int i = 0; i < STUDENTS; i++) {
+            service.addStudent(new Student.Builder("S" + i, "REG" + i)
+                .fullName("Student " + i)
+                .email("student" + i + "@university.edu")
+                .build());
+        }
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < COURSES; i++) {
+            courses.add(new Course.Builder(CourseCode.of("CS", 100 + i))
+                .title("Course " + i)
+                .credits(1 + i % 4)
+                .build());
+        }
+        Semester semester = Semester.of("FALL", 2025);
+        Grade[] grades = Grade.values();
+
+        // Every operation publishes at most one event, so a ring of this size never drops
+        EventBus events = new EventBus(operations, EventBus.DEFAULT_MAX_BATCH);
+        Set<String> replayed = new HashSet<>();
+        events.subscribe(batch -> {
+            for (ChangeEvent event : batch) {
+                String key = event.getStudent().getId() + "/" + event.getCourseCode();
+                if (event.getType() == ChangeEvent.Type.ENROLLED) {
+                    replayed.add(key);
+                } else if (event.getType() == ChangeEvent.Type.UNENROLLED) {
+                    replayed.remove(key);
+                }
+            }
+        });
+        service.setEventBus(events);
+
+        AtomicInteger enrolled = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<String> failures = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int op = 0; op < operations / threads; op++) {
+                    String studentId = "S" + random.nextInt(STUDENTS);
+                    Course course = courses.get(random.nextInt(COURSES));
+                    int action = random.nextInt(10);
+                    try {
+                        if (action < 6) {
+                            service.enrollStudent(studentId, course, semester);
+                            enrolled.incrementAndGet();
+                        } else if (action < 8) {
+                            service.recordGrade(studentId, course, grades[random.nextInt(grades.length)]);
+                        } else {
+                            service.unenrollStudent(studentId, course);
+                        }
+                    } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException | CourseFullException e) {
+                        rejected.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        synchronized (failures) {
+                            failures.add("Unexpected " + e);
+                        }
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+
+        for (Student student : service.findAll()) {
+            // Graded courses no longer count towards the semester load
+            int credits = student.getEnrolledCourses().values().stream()
+                .filter(enrollment -> enrollment.getGrade() == null)
+                .mapToInt(enrollment -> enrollment.getCourse().getCredits())
+                .sum();
+            if (credits > CREDIT_LIMIT) {
+                failures.add(student.getId() + " holds " + credits + " ungraded credits");
+            }
+            double points = 0;
+            int graded = 0;
+            for (Enrollment enrollment : student.getEnrolledCourses().values()) {
+                if (!enrollment.getCourse().getEnrollments().contains(enrollment)) {
+                    failures.add(student.getId() + " missing from " + enrollment.getCourse().getCode());
+                }
+                if (enrollment.getGrade() != null) {
+                    points += enrollment.getGrade().getPoints() * enrollment.getCourse().getCredits();
+                    graded += enrollment.getCourse().getCredits();
+                }
+            }
+            double expected = graded == 0 ? 0.0 : points / graded;
+            if (Math.abs(expected - student.calculateGPA()) > 1e-9) {
+                failures.add(student.getId() + " GPA " + student.calculateGPA() + " != " + expected);
+            }
+        }
+        for (Course course : courses) {
+            for (Enrollment enrollment : course.getEnrollments()) {
+                if (enrollment.getStudent().getEnrolledCourses().get(course) != enrollment) {
+                    failures.add(course.getCode() + " keeps a stale enrollment");
+                }
+            }
+        }
+        if (!events.awaitDrained(1, TimeUnit.MINUTES) || events.getDropped() > 0) {
+            failures.add("Event stream incomplete: " + events.getDropped() + " dropped");
+        }
+        service.setEventBus(null);
+        events.close();
+        Set<String> actual = new HashSet<>();
+        for (Student student : service.findAll()) {
+            student.getEnrolledCourses().keySet().forEach(course -> actual.add(student.getId() + "/" + course.getCode()));
+        }
+        if (!actual.equals(replayed)) {
+            failures.add("Replayed events give " + replayed.size() + " enrollments, service holds " + actual.size());
+        }
+        checkDuplicateKeys(service, threads, failures);
+
+        System.out.printf("%d threads, %,d ops in %.1f ms (%,d enrolled, %,d rejected)%n",
+            threads, operations, elapsed / 1e6, enrolled.get(), rejected.get());
+        if (failures.isEmpty()) {
+            System.out.println("PASS");
+        } else {
+            failures.stream().limit(20).forEach(failure -> System.out.println("  " + failure));
+            System.out.println("FAIL (" + failures.size() + " violations)");
+            System.exit(1);
+        }
+    }
+
+    // Many threads race to register distinct students under one regNo; exactly one may win
+    private static void checkDuplicateKeys(StudentService service, int threads, List<String> failures)
+        throws InterruptedException {
+        for (int round = 0; round < 100; round++) {
+            String regNo = "RACE" + round;
+            AtomicInteger winners = new AtomicInteger();
+            CountDownLatch ready = new CountDownLatch(1);
+            List<Thread> racers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Student candidate = new Student.Builder("R" + round + "-" + t, regNo)
+                    .fullName("Racer " + t)
+                    .email("race" + round + "-" + t + "@university.edu")
+                    .build();
+                Thread racer = new Thread(() -> {
+                    try {
+                        ready.await();
+                        service.addStudent(candidate);
+                        winners.incrementAndGet();
+                    } catch (IllegalArgumentException | InterruptedException e) {
+                        // Lost the race
+                    }
+                });
+                racer.start();
+                racers.add(racer);
+            }
+            ready.countDown();
+            for (Thread racer : racers) {
+                racer.join();
+            }
+            if (winners.get() != 1) {
+                failures.add(regNo + " claimed by " + winners.get() + " students");
+            }
+            Student owner = service.findByRegNo(regNo);
+            long stored = service.search(student -> regNo.equals(student.getRegNo())).size();
+            if (owner == null || stored != 1) {
+                failures.add(regNo + " stored " + stored + " times");
+            } else if (service.findByEmail(owner.getEmail()) != owner) {
+                failures.add(regNo + " winner lost its email key");
+            }
+        }
+    }
+}
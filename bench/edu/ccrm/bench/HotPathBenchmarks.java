@@ -0,0 +1,254 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Department;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.io.ImportReport;
+import edu.ccrm.io.StudentCsvImporter;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.Criteria;
+import edu.ccrm.service.GpaRanking;
+import edu.ccrm.service.StudentFields;
+import edu.ccrm.service.StudentService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// JMH regression benchmarks for the domain and service hot paths at several data set sizes.
+// Usage: mvn -B -Pbench package && java -jar target/benchmarks.jar HotPathBenchmarks [-p scale=100000]
+//   e.g. java -jar target/benchmarks.jar 'HotPathBenchmarks.findBy.*' -p scale=1000,1000000
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class HotPathBenchmarks {
+    private static final int ENROLLMENTS_PER_STUDENT = 3;
+    private static final int SAMPLE_SIZE = 4096;
+    private static final int MASK = SAMPLE_SIZE - 1;
+
+    @Param({"1000", "100000", "1000000"})
+    public int scale;
+
+    private List<Student> students;
+    private StudentService studentService;
+    private CourseService courseService;
+    private final Metrics metrics = Metrics.getInstance();
+    private final Department[] departments = Department.values();
+    // Lookups cycle through a fixed random sample so key generation stays out of the measurement
+    private final Student[] sampleStudents = new Student[SAMPLE_SIZE];
+    private final String[] sampleRegNos = new String[SAMPLE_SIZE];
+    private final String[] sampleCodes = new String[SAMPLE_SIZE];
+    private final String[] sampleTerms = new String[SAMPLE_SIZE];
+    private final Course[] sampleSections = new Course[SAMPLE_SIZE];
+    private final Semester[] sampleSemesters = new Semester[SAMPLE_SIZE];
+    private Semester countSemester;
+    private int cursor;
+    private Path directory;
+    private ImportExportService exporter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        students = SyntheticData.students(scale);
+        List<Course> courses = SyntheticData.courses(Math.min(40_000, Math.max(50, scale / 20)));
+        SyntheticData.enroll(students, courses, ENROLLMENTS_PER_STUDENT, scale);
+
+        studentService = new StudentService();
+        studentService.addStudents(students);
+        courseService = new CourseService();
+        courses.forEach(courseService::addCourse);
+
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            sampleStudents[i] = students.get(random.nextInt(students.size()));
+            sampleRegNos[i] = sampleStudents[i].getRegNo();
+            Course course = courses.get(random.nextInt(courses.size()));
+            // User-typed form, e.g. "cs105", exercising the normalization path
+            sampleCodes[i] = (course.getCode().getDepartmentCode() + course.getCode().getCourseNumber()).toLowerCase();
+            // Help-desk style fragments: part of a surname or of an email local part
+            String name = sampleStudents[i].getFullName();
+            String surname = name.substring(name.indexOf(' ') + 1);
+            sampleTerms[i] = i % 2 == 0 ? surname.substring(0, Math.min(4, surname.length())) : sampleStudents[i].getEmail().substring(2, 9);
+            Enrollment enrollment = sampleStudents[i].getEnrolledCourses().values().iterator().next();
+            sampleSections[i] = enrollment.getCourse();
+            sampleSemesters[i] = enrollment.getSemester();
+        }
+        countSemester = sampleSemesters[0];
+        directory = Files.createTempDirectory("ccrm-bench");
+        exporter = new ImportExportService();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(directory.resolve("export.csv"));
+        Files.delete(directory);
+    }
+
+    // A file to import, written only when an import benchmark runs
+    @State(Scope.Benchmark)
+    public static class ImportFile {
+        Path file;
+
+        @Setup(Level.Trial)
+        public void setUp(HotPathBenchmarks data) throws IOException {
+            file = data.directory.resolve("students.csv");
+            data.exporter.exportStudents(data.students.stream(), file);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private int next() {
+        return cursor++ & MASK;
+    }
+
+    @Benchmark
+    public double calculateGPA() {
+        return sampleStudents[next()].calculateGPA();
+    }
+
+    @Benchmark
+    public Student findByRegNo() {
+        return studentService.findByRegNo(sampleRegNos[next()]);
+    }
+
+    @Benchmark
+    public Course courseFindByCode() {
+        return courseService.findByCode(sampleCodes[next()]);
+    }
+
+    // Cost of timing an operation: two clock reads and a histogram update
+    @Benchmark
+    public void metricsRecord() {
+        metrics.record(Metrics.Operation.ENROLL, System.nanoTime());
+    }
+
+    @Benchmark
+    public List<Student> searchText() {
+        return studentService.searchText(sampleTerms[next()], 25);
+    }
+
+    @Benchmark
+    public List<Student> searchScan() {
+        String term = sampleTerms[next()].toLowerCase();
+        return studentService.search(student ->
+            student.getFullName().toLowerCase().contains(term) || student.getEmail().toLowerCase().contains(term));
+    }
+
+    // Department roster: the planner answers it from the department index, the lambda scans
+    @Benchmark
+    public List<Student> searchCriteria() {
+        Department department = departments[cursor++ % departments.length];
+        return studentService.search(StudentFields.DEPARTMENT.eq(department).and(StudentFields.GPA.atLeast(3.0)));
+    }
+
+    @Benchmark
+    public List<Student> searchPredicate() {
+        Department department = departments[cursor++ % departments.length];
+        return studentService.search(student ->
+            student.getDepartment() == department && student.calculateGPA() >= 3.0);
+    }
+
+    // Dashboard count: popcount over the department, active and semester bitmaps against a scan
+    @Benchmark
+    public long countBitmap() {
+        Department department = departments[cursor++ % departments.length];
+        return studentService.count(Criteria.allOf(StudentFields.DEPARTMENT.eq(department),
+            StudentFields.ACTIVE.eq(true), StudentFields.SEMESTER.eq(countSemester)));
+    }
+
+    @Benchmark
+    public long countScan() {
+        Department department = departments[cursor++ % departments.length];
+        long count = 0;
+        for (Student student : students) {
+            if (student.isActive() && student.getDepartment() == department) {
+                for (Enrollment enrollment : student.getEnrolledCourses().values()) {
+                    if (enrollment.getSemester() == countSemester) {
+                        count++;
+                        break;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public List<Student> getTopStudents() {
+        return studentService.getTopStudents(10);
+    }
+
+    @Benchmark
+    public Map<Department, List<GpaRanking.Entry>> getDepartmentLeaderboards() {
+        return studentService.getDepartmentLeaderboards(10);
+    }
+
+    // Point-in-time view walked the way reports and checkpoints do
+    @Benchmark
+    public int snapshotScan() {
+        int active = 0;
+        for (Student student : studentService.snapshot()) {
+            if (student.isActive()) active++;
+        }
+        return active;
+    }
+
+    // Class lists for sampled course sections: registry lookup against a scan of every student
+    @Benchmark
+    public List<Enrollment> getClassList() {
+        int i = next();
+        return studentService.getClassList(sampleSections[i], sampleSemesters[i]);
+    }
+
+    @Benchmark
+    public List<Enrollment> classListScan() {
+        int i = next();
+        List<Enrollment> classList = new ArrayList<>();
+        for (Student student : students) {
+            Enrollment enrollment = student.getEnrolledCourses().get(sampleSections[i]);
+            if (enrollment != null && enrollment.getSemester().equals(sampleSemesters[i])) {
+                classList.add(enrollment);
+            }
+        }
+        return classList;
+    }
+
+    @Benchmark
+    public long exportStudentsCsv() throws IOException {
+        return exporter.exportStudents(students.stream(), directory.resolve("export.csv"));
+    }
+
+    @Benchmark
+    public ImportReport importStudentsCsv(ImportFile input) throws IOException {
+        return new StudentCsvImporter().importInto(input.file, new StudentService());
+    }
+}
@@ -0,0 +1,166 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.http.ApiServer;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.metrics.LatencyHistogram;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Closed-loop load test for the HTTP API: each worker sends its next request as soon as the last
+// one is answered, with a mix of student and course lookups, filtered listings and enrollments.
+// Without a URL it starts an in-process server over synthetic data on a free port.
+// Usage: java -cp target/benchmarks.jar edu.ccrm.bench.HttpLoadClient [baseUrl|-] [workers] [seconds] [students]
+//   e.g. HttpLoadClient - 64 10 100000
+//        HttpLoadClient http://127.0.0.1:8080 32 30
+// Lower -Dccrm.http.maxInFlight below the worker count to watch requests being shed with 503.
+public class HttpLoadClient {
+    private static final Pattern REG_NO = Pattern.compile("\"regNo\":\"([^\"]+)\"");
+    private static final Pattern CODE = Pattern.compile("\"code\":\"([^\"]+)\"");
+    private static final String[] SEMESTERS = { "SPRING2025", "FALL2025", "SPRING2026" };
+    private static final String[] DEPARTMENTS = { "COMPUTER_SCIENCE", "MECHANICAL_ENGINEERING", "BIO_TECHNOLOGY" };
+
+    private enum Kind { STUDENT, COURSE, LISTING, ENROLL }
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 && !args[0].equals("-") ? args[0] : null;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int scale = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+
+        ApiServer server = null;
+        if (url == null) {
+            StudentService studentService = new StudentService();
+            studentService.addStudents(SyntheticData.students(scale));
+            CourseService courseService = new CourseService();
+            SyntheticData.courses(Math.max(50, scale / 20)).forEach(courseService::addCourse);
+            AppConfig config = AppConfig.getInstance();
+            server = new ApiServer(studentService, courseService, new ImportExportService(),
+                new InetSocketAddress("127.0.0.1", 0), config.getHttpThreads(), config.getHttpMaxInFlight());
+            server.start();
+            url = "http://127.0.0.1:" + server.getAddress().getPort();
+            System.out.printf("In-process server on %s with %,d students%n", url, scale);
+        }
+        String base = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        List<String> regNos = extract(client, base + "/api/students?limit=5000", REG_NO);
+        List<String> codes = extract(client, base + "/api/courses?limit=5000", CODE);
+        if (regNos.isEmpty() || codes.isEmpty()) {
+            System.out.println("The server has no students or courses to load-test against");
+            if (server != null) server.stop(0);
+            return;
+        }
+
+        LatencyHistogram[] latencies = new LatencyHistogram[Kind.values().length];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+        ConcurrentSkipListMap<Integer, LongAdder> statuses = new ConcurrentSkipListMap<>();
+        LongAdder failures = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int roll = random.nextInt(100);
+                    Kind kind = roll < 60 ? Kind.STUDENT : roll < 80 ? Kind.COURSE : roll < 90 ? Kind.LISTING : Kind.ENROLL;
+                    HttpRequest request = request(kind, base, regNos, codes, random);
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[kind.ordinal()].record(System.nanoTime() - start);
+                        statuses.computeIfAbsent(response.statusCode(), code -> new LongAdder()).increment();
+                    } catch (IOException e) {
+                        failures.increment();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "load-" + w);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long total = 0;
+        System.out.printf("%n%-10s %10s %10s %9s %9s %9s %9s%n", "Request", "Count", "Req/s", "Mean", "p50", "p99", "Max");
+        for (Kind kind : Kind.values()) {
+            LatencyHistogram.Snapshot snapshot = latencies[kind.ordinal()].snapshot();
+            total += snapshot.getCount();
+            System.out.printf(Locale.ROOT, "%-10s %10d %10.0f %9s %9s %9s %9s%n", kind.name().toLowerCase(),
+                snapshot.getCount(), snapshot.getCount() / (double) seconds,
+                LatencyHistogram.format(snapshot.getMeanNanos()),
+                LatencyHistogram.format(snapshot.getValueAtPercentile(50)),
+                LatencyHistogram.format(snapshot.getValueAtPercentile(99)),
+                LatencyHistogram.format(snapshot.getMaxNanos()));
+        }
+        System.out.printf(Locale.ROOT, "%,d requests in %d s with %d workers: %,.0f req/s, %d connection failures%n",
+            total, seconds, workers, total / (double) seconds, failures.sum());
+        statuses.forEach((status, count) -> System.out.println("  HTTP " + status + ": " + count.sum()));
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private static HttpRequest request(Kind kind, String base, List<String> regNos, List<String> codes,
+                                       ThreadLocalRandom random) {
+        String regNo = regNos.get(random.nextInt(regNos.size()));
+        String code = codes.get(random.nextInt(codes.size()));
+        switch (kind) {
+            case STUDENT :
+                return HttpRequest.newBuilder(URI.create(base + "/api/students/" + regNo)).build();
+            case COURSE :
+                return HttpRequest.newBuilder(URI.create(base + "/api/courses/" + code)).build();
+            case LISTING :
+                String term = "department=" + DEPARTMENTS[random.nextInt(DEPARTMENTS.length)];
+                return HttpRequest.newBuilder(URI.create(base + "/api/students?limit=50&q="
+                    + URLEncoder.encode(term, StandardCharsets.UTF_8))).build();
+            default :
+                String body = "{\"regNo\":\"" + regNo + "\",\"course\":\"" + code + "\",\"semester\":\""
+                    + SEMESTERS[random.nextInt(SEMESTERS.length)] + "\"}";
+                return HttpRequest.newBuilder(URI.create(base + "/api/enrollments"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+    }
+
+    private static List<String> extract(HttpClient client, String url, Pattern pattern) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url)).build(),
+            HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException(url + " answered " + response.statusCode() + ": " + response.body());
+        }
+        List<String> values = new ArrayList<>();
+        Matcher matcher = pattern.matcher(response.body());
+        while (matcher.find()) {
+            values.add(matcher.group(1));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,71 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.CompactRoster;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Student;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+
+// Retained heap of a roster held as Student/Enrollment objects versus the same roster in a
+// CompactRoster, plus the cost of a full GPA scan and a regNo lookup in each. Run with a heap
+// large enough for both, e.g. -Xmx4g for a million students.
+// Usage: java -cp target/benchmarks.jar edu.ccrm.bench.MemoryFootprintBenchmark [students] [enrollmentsPerStudent]
+public class MemoryFootprintBenchmark {
+    private static final int SCANS = 5;
+
+    public static void main(String[] args) {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int perStudent = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<Course> courses = SyntheticData.courses(500);
+        long baseline = usedHeap();
+        List<Student> students = SyntheticData.students(studentCount);
+        SyntheticData.enroll(students, courses, perStudent, 42);
+        long graphBytes = usedHeap() - baseline;
+
+        CompactRoster roster = new CompactRoster.Builder().addAll(students).build();
+        long rosterBytes = usedHeap() - baseline - graphBytes;
+
+        System.out.printf("%,d students, %,d enrollments%n", roster.size(), roster.getEnrollmentCount());
+        System.out.printf("%-14s %15s %12s%n", "Mode", "Heap bytes", "B/student");
+        System.out.printf("%-14s %,15d %12.1f%n", "object graph", graphBytes, (double) graphBytes / studentCount);
+        System.out.printf("%-14s %,15d %12.1f%n", "compact", rosterBytes, (double) rosterBytes / studentCount);
+        System.out.printf("compact is %.1fx smaller%n", (double) graphBytes / rosterBytes);
+
+        double sink = 0;
+        long graphScan = Long.MAX_VALUE;
+        long rosterScan = Long.MAX_VALUE;
+        for (int i = 0; i < SCANS; i++) {
+            long start = System.nanoTime();
+            for (Student student : students) {
+                sink += student.calculateGPA();
+            }
+            graphScan = Math.min(graphScan, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (int s = 0; s < roster.size(); s++) {
+                sink += roster.calculateGPA(s);
+            }
+            rosterScan = Math.min(rosterScan, System.nanoTime() - start);
+        }
+        System.out.printf("GPA scan: object graph %.1f ms (cached totals), compact %.1f ms (from grade columns)%n",
+            graphScan / 1e6, rosterScan / 1e6);
+
+        String regNo = students.get(studentCount / 2).getRegNo();
+        long start = System.nanoTime();
+        for (int i = 0; i < 100_000; i++) {
+            sink += roster.findByRegNo(regNo).getIndex();
+        }
+        System.out.printf("compact findByRegNo: %.0f ns/op%n", (System.nanoTime() - start) / 100_000.0);
+        if (sink == 42) System.out.println();
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
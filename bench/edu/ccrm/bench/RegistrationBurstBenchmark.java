@@ -0,0 +1,151 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.StudentService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Simulates registration opening: every student requests a few sections at the same instant, most of
+// them the same popular ones. Reports throughput, checks that no section is oversold, then drops
+// students and checks that the waitlists refill the freed seats.
+// Usage: java -cp target/benchmarks.jar edu.ccrm.bench.RegistrationBurstBenchmark [threads] [students] [capacity]
+public class RegistrationBurstBenchmark {
+    private static final int SECTIONS = 50;
+    private static final int POPULAR_SECTIONS = 5;
+    private static final int REQUESTS_PER_STUDENT = 4;
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int studentCount = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 400;
+
+        boolean failed = false;
+        for (int iteration = 1; iteration <= ITERATIONS; iteration++) {
+            failed |= !runBurst(iteration, threads, studentCount, capacity);
+        }
+        System.out.println(failed ? "FAIL" : "PASS");
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean runBurst(int iteration, int threads, int studentCount, int capacity) throws Exception {
+        StudentService service = new StudentService();
+        List<Student> students = new ArrayList<>(studentCount);
+        for (int i = 0; i < studentCount; i++) {
+            Student student = new Student.Builder("S" + i, "24BCE" + i)
+                .fullName("Student " + i)
+                .email("student" + i + "@university.edu")
+                .build();
+            students.add(student);
+        }
+        service.addStudents(students);
+        List<Course> sections = new ArrayList<>();
+        for (int i = 0; i < SECTIONS; i++) {
+            sections.add(new Course.Builder(CourseCode.of("CS", 100 + i))
+                .title("Section " + i)
+                .credits(3)
+                .capacity(capacity)
+                .build());
+        }
+        Semester semester = Semester.of("FALL", 2025);
+
+        AtomicInteger enrolled = new AtomicInteger();
+        AtomicInteger waitlisted = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicLong worstNanos = new AtomicLong();
+        CountDownLatch opening = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        int perThread = (studentCount + threads - 1) / threads;
+        for (int t = 0; t < threads; t++) {
+            int from = t * perThread;
+            int to = Math.min(studentCount, from + perThread);
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    opening.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = from; i < to; i++) {
+                    for (int r = 0; r < REQUESTS_PER_STUDENT; r++) {
+                        // Most requests target the few popular sections
+                        Course section = random.nextInt(4) == 0
+                            ? sections.get(random.nextInt(SECTIONS))
+                            : sections.get(random.nextInt(POPULAR_SECTIONS));
+                        long start = System.nanoTime();
+                        try {
+                            if (service.enrollOrWaitlist("S" + i, section, semester) == 0) {
+                                enrolled.incrementAndGet();
+                            } else {
+                                waitlisted.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        worstNanos.accumulateAndGet(System.nanoTime() - start, Math::max);
+                    }
+                }
+            });
+        }
+        long start = System.nanoTime();
+        opening.countDown();
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+
+        boolean ok = checkSeats(sections, capacity, "after burst");
+        int filled = sections.stream().mapToInt(Course::getSeatsTaken).sum();
+        long requests = (long) studentCount * REQUESTS_PER_STUDENT;
+        System.out.printf("#%d %,d requests from %d threads in %.1f ms (%,.0f req/s, worst %.2f ms): "
+                + "%,d enrolled, %,d waitlisted, %,d rejected, %,d seats filled%n",
+            iteration, requests, threads, elapsed / 1e6, requests / (elapsed / 1e9), worstNanos.get() / 1e6,
+            enrolled.get(), waitlisted.get(), errors.get(), filled);
+
+        // Drop students from the popular sections and let the waitlists take their seats
+        int promotedBefore = 0;
+        for (int i = 0; i < POPULAR_SECTIONS; i++) {
+            promotedBefore += sections.get(i).getWaitlistSize();
+        }
+        for (int i = 0; i < POPULAR_SECTIONS; i++) {
+            Course section = sections.get(i);
+            List<Enrollment> holders = new ArrayList<>(section.getEnrollments());
+            for (int d = 0; d < holders.size() / 10; d++) {
+                service.unenrollStudent(holders.get(d).getStudent().getId(), section);
+            }
+        }
+        int promotedAfter = 0;
+        for (int i = 0; i < POPULAR_SECTIONS; i++) {
+            Course section = sections.get(i);
+            promotedAfter += section.getWaitlistSize();
+            if (section.getWaitlistSize() > 0 && section.getSeatsTaken() < capacity) {
+                System.out.println("  " + section.getCode() + " has free seats and a waitlist");
+                ok = false;
+            }
+        }
+        System.out.printf("   waitlists %,d -> %,d after drops%n", promotedBefore, promotedAfter);
+        return checkSeats(sections, capacity, "after drops") && ok;
+    }
+
+    private static boolean checkSeats(List<Course> sections, int capacity, String phase) {
+        boolean ok = true;
+        for (Course section : sections) {
+            int held = section.getEnrollments().size();
+            if (section.getSeatsTaken() > capacity || held != section.getSeatsTaken()) {
+                System.out.printf("  %s %s: %d seats taken, %d enrollments, capacity %d%n",
+                    phase, section.getCode(), section.getSeatsTaken(), held, capacity);
+                ok = false;
+            }
+        }
+        return ok;
+    }
+}
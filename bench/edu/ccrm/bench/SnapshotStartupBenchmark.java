@@ -0,0 +1,79 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.io.BinarySnapshot;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.io.StudentCsvImporter;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compares startup from a binary snapshot of the full graph against a CSV import of the students.
+// Usage: java -cp target/benchmarks.jar edu.ccrm.bench.SnapshotStartupBenchmark [students] [enrollmentsPerStudent]
+public class SnapshotStartupBenchmark {
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int perStudent = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Department[] departments = Department.values();
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            courses.add(new Course.Builder(CourseCode.of("CS", 100 + i))
+                .title("Course " + i)
+                .credits(1 + i % 3)
+                .department(departments[i % departments.length])
+                .build());
+        }
+        Semester[] semesters = { Semester.of("FALL", 2024), Semester.of("SPRING", 2025), Semester.of("FALL", 2025) };
+        Grade[] grades = Grade.values();
+
+        List<Student> students = new ArrayList<>(studentCount);
+        for (int i = 0; i < studentCount; i++) {
+            Student student = new Student.Builder("S" + i, "24BCE" + i)
+                .fullName("Student " + i)
+                .email("student" + i + "@university.edu")
+                .department(departments[i % departments.length])
+                .build();
+            for (int e = 0; e < perStudent; e++) {
+                Course course = courses.get((i + e * 37) % courses.size());
+                Grade grade = (i + e) % 4 == 0 ? null : grades[(i + e) % grades.length];
+                student.restoreEnrollment(course, semesters[e % semesters.length], grade);
+            }
+            students.add(student);
+        }
+
+        Path directory = Files.createTempDirectory("ccrm-bench");
+        Path snapshot = directory.resolve("ccrm.snapshot");
+        Path csv = directory.resolve("students.csv");
+        BinarySnapshot.write(snapshot, 1, courses, students);
+        new ImportExportService().exportStudents(students.stream(), csv);
+        students = null;
+
+        System.out.printf("%d students, %d enrollments, snapshot %,d bytes, csv %,d bytes%n",
+            studentCount, (long) studentCount * perStudent, Files.size(snapshot), Files.size(csv));
+
+        for (int i = 1; i <= ITERATIONS; i++) {
+            long start = System.nanoTime();
+            StudentService studentService = new StudentService();
+            BinarySnapshot.load(snapshot, studentService, new CourseService());
+            long snapshotNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            new StudentCsvImporter().importInto(csv, new StudentService());
+            long csvNanos = System.nanoTime() - start;
+
+            System.out.printf("iteration %d: snapshot (students + enrollments) %,d ms, csv (students only) %,d ms%n",
+                i, snapshotNanos / 1_000_000, csvNanos / 1_000_000);
+        }
+
+        Files.delete(snapshot);
+        Files.delete(csv);
+        Files.delete(directory);
+    }
+}
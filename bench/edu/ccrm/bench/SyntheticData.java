@@ -0,0 +1,107 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.io.ImportExportService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic generator for students, courses and enrollments shaped like test-data/students.csv
+// and test-data/courses.csv: department-prefixed ids, 24BCE-style registration numbers,
+// first.last@university.edu emails and 3-4 credit courses numbered from 101.
+// Usage: java -cp target/benchmarks.jar edu.ccrm.bench.SyntheticData <students> <courses> [outputDir]
+public final class SyntheticData {
+    private static final String[] PREFIXES = { "CS", "ME", "CH", "BT", "EE" };
+    private static final String[] FIRST_NAMES = {
+        "Aditya", "Tejaswa", "Kevin", "Samay", "Ankur", "Arpit", "Priya", "Neha", "Rohan", "Isha",
+        "Karan", "Meera", "Vikram", "Ananya", "Rahul", "Sneha", "Arjun", "Kavya", "Nikhil", "Pooja"
+    };
+    private static final String[] LAST_NAMES = {
+        "Das", "Sharma", "George", "Dutta", "Sen", "Kumar", "Iyer", "Gupta", "Nair", "Reddy",
+        "Mehta", "Singh", "Rao", "Bose", "Joshi", "Menon", "Verma", "Pillai", "Chopra", "Kapoor"
+    };
+    private static final String[] TOPICS = {
+        "Programming", "Circuit Analysis", "Engineering Mechanics", "Process Principles", "Biotechnology",
+        "Data Structures", "Thermodynamics", "Signals", "Materials", "Algorithms", "Control Systems", "Genetics"
+    };
+    private static final String[] LEVELS = { "Introduction to", "Applied", "Advanced", "Topics in" };
+    private static final Semester[] SEMESTERS = {
+        Semester.of("FALL", 2024), Semester.of("SPRING", 2025), Semester.of("FALL", 2025)
+    };
+
+    private SyntheticData() { }
+
+    public static List<Student> students(int count) {
+        Department[] departments = Department.values();
+        int[] perDepartment = new int[departments.length];
+        int combinations = FIRST_NAMES.length * LAST_NAMES.length;
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int department = i % departments.length;
+            String first = FIRST_NAMES[i % FIRST_NAMES.length];
+            String last = LAST_NAMES[(i / FIRST_NAMES.length) % LAST_NAMES.length];
+            int round = i / combinations;
+            students.add(new Student.Builder(
+                    String.format("%s%03d", PREFIXES[department], ++perDepartment[department]), regNo(i))
+                .fullName(first + " " + last)
+                .email((first + "." + last).toLowerCase() + (round == 0 ? "" : String.valueOf(round))
+                    + "@university.edu")
+                .department(departments[department])
+                .build());
+        }
+        return students;
+    }
+
+    // At most 9,999 courses per department prefix
+    public static List<Course> courses(int count) {
+        Department[] departments = Department.values();
+        List<Course> courses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int department = i % departments.length;
+            int number = 101 + i / departments.length;
+            courses.add(new Course.Builder(CourseCode.of(PREFIXES[department], number))
+                .title(LEVELS[(i / 7) % LEVELS.length] + " " + TOPICS[i % TOPICS.length])
+                .credits(3 + (i / departments.length) % 2)
+                .department(departments[department])
+                .build());
+        }
+        return courses;
+    }
+
+    // Gives every student perStudent distinct courses; roughly three quarters of them graded
+    public static void enroll(List<Student> students, List<Course> courses, int perStudent, long seed) {
+        Random random = new Random(seed);
+        Grade[] grades = Grade.values();
+        int step = Math.max(1, courses.size() / Math.max(1, perStudent));
+        for (Student student : students) {
+            int first = random.nextInt(courses.size());
+            for (int e = 0; e < Math.min(perStudent, courses.size()); e++) {
+                Course course = courses.get((first + e * step) % courses.size());
+                Grade grade = random.nextInt(4) == 0 ? null : grades[random.nextInt(grades.length)];
+                student.restoreEnrollment(course, SEMESTERS[e % SEMESTERS.length], grade);
+            }
+        }
+    }
+
+    private static String regNo(int i) {
+        int year = 24 - (i / 200_000) % 10;
+        String branch = (i / 100_000) % 2 == 0 ? "BCE" : "BAI";
+        return String.format("%02d%s%05d", year, branch, i % 100_000);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int courseCount = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        Path directory = Paths.get(args.length > 2 ? args[2] : "test-data/generated");
+        Files.createDirectories(directory);
+
+        ImportExportService exporter = new ImportExportService();
+        long students = exporter.exportStudents(students(studentCount).stream(), directory.resolve("students.csv"));
+        long courses = exporter.exportCourses(courses(courseCount).stream(), directory.resolve("courses.csv"));
+        System.out.printf("Wrote %,d students and %,d courses to %s%n", students, courses, directory);
+    }
+}
@@ -0,0 +1,297 @@
+package edu.ccrm.domain;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Struct-of-arrays image of a student roster for million-record workloads. A student is an int
+// index into parallel columns: strings are codes into one shared dictionary, timestamps are epoch
+// millis, and departments and grades are byte ordinals (-1 for none). Each student's enrollments
+// occupy a contiguous range of the enrollment columns, which refer to small course and semester
+// tables, so an enrollment costs a few bytes and carries no back-pointers.
+//
+// The roster is immutable once built and safe to share between threads. StudentView and
+// EnrollmentView are flyweights over the columns; toStudent re-creates the full object graph of
+// one student when it has to be changed.
+//
+// It is built only by MemoryFootprintBenchmark, as the yardstick for the object graph, so it sits
+// with the benchmarks rather than in the application; it stays in this package for restoreTimestamps.
+public final class CompactRoster {
+    private static final Grade[] GRADES = Grade.values();
+    private static final Department[] DEPARTMENTS = Department.values();
+
+    private final StringDictionary strings;
+    private final int size;
+    private final int[] ids;
+    private final int[] regNos;
+    private final int[] names;
+    private final int[] emails;
+    private final byte[] departments;
+    private final boolean[] active;
+    private final long[] createdAt;
+    private final long[] updatedAt;
+    // Student i owns enrollments enrollmentStart[i] until enrollmentStart[i + 1]
+    private final int[] enrollmentStart;
+    private final int[] enrollmentCourses;
+    private final short[] enrollmentSemesters;
+    private final byte[] enrollmentGrades;
+    private final Course[] courses;
+    private final Semester[] semesters;
+    // Open-addressing table of student index + 1 by regNo code
+    private final int[] regNoTable;
+
+    // Builds one roster; the dictionary is handed over to it, so a builder is not reused after build
+    public static class Builder {
+        private final StringDictionary strings = new StringDictionary();
+        private final Map<Course, Integer> courseIndex = new IdentityHashMap<>();
+        private final Map<Semester, Integer> semesterIndex = new IdentityHashMap<>();
+        private int size;
+        private int[] ids = new int[16];
+        private int[] regNos = new int[16];
+        private int[] names = new int[16];
+        private int[] emails = new int[16];
+        private byte[] departments = new byte[16];
+        private boolean[] active = new boolean[16];
+        private long[] createdAt = new long[16];
+        private long[] updatedAt = new long[16];
+        private int[] enrollmentStart = new int[17];
+        private int enrollments;
+        private int[] enrollmentCourses = new int[64];
+        private short[] enrollmentSemesters = new short[64];
+        private byte[] enrollmentGrades = new byte[64];
+
+        public Builder add(Student student) {
+            synchronized (student) {
+                addStudent(student.getId(), student.getRegNo(), student.getFullName(), student.getEmail(),
+                    student.getDepartment(), student.isActive(), student.getCreatedAtMillis(), student.getUpdatedAtMillis());
+                for (Enrollment enrollment : student.getEnrolledCourses().values()) {
+                    addEnrollment(enrollment.getCourse(), enrollment.getSemester(), enrollment.getGrade());
+                }
+            }
+            return this;
+        }
+
+        public Builder addAll(Collection<Student> students) {
+            students.forEach(this::add);
+            return this;
+        }
+
+        public Builder addStudent(String id, String regNo, String fullName, String email, Department department,
+                                  boolean isActive, long createdAtMillis, long updatedAtMillis) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                regNos = Arrays.copyOf(regNos, capacity);
+                names = Arrays.copyOf(names, capacity);
+                emails = Arrays.copyOf(emails, capacity);
+                departments = Arrays.copyOf(departments, capacity);
+                active = Arrays.copyOf(active, capacity);
+                createdAt = Arrays.copyOf(createdAt, capacity);
+                updatedAt = Arrays.copyOf(updatedAt, capacity);
+                enrollmentStart = Arrays.copyOf(enrollmentStart, capacity + 1);
+            }
+            ids[size] = strings.add(id);
+            regNos[size] = strings.add(regNo);
+            names[size] = strings.add(fullName);
+            emails[size] = strings.add(email);
+            departments[size] = (byte) (department == null ? -1 : department.ordinal());
+            active[size] = isActive;
+            createdAt[size] = createdAtMillis;
+            updatedAt[size] = updatedAtMillis;
+            size++;
+            enrollmentStart[size] = enrollments;
+            return this;
+        }
+
+        // Adds an enrollment to the most recently added student
+        public Builder addEnrollment(Course course, Semester semester, Grade grade) {
+            if (size == 0) {
+                throw new IllegalStateException("No student to enroll");
+            }
+            if (enrollments == enrollmentCourses.length) {
+                int capacity = enrollments * 2;
+                enrollmentCourses = Arrays.copyOf(enrollmentCourses, capacity);
+                enrollmentSemesters = Arrays.copyOf(enrollmentSemesters, capacity);
+                enrollmentGrades = Arrays.copyOf(enrollmentGrades, capacity);
+            }
+            if (semesterIndex.size() == Short.MAX_VALUE && !semesterIndex.containsKey(semester)) {
+                throw new IllegalStateException("Too many semesters");
+            }
+            enrollmentCourses[enrollments] = courseIndex.computeIfAbsent(course, key -> courseIndex.size());
+            enrollmentSemesters[enrollments] = (short) (int) semesterIndex.computeIfAbsent(semester, key -> semesterIndex.size());
+            enrollmentGrades[enrollments] = (byte) (grade == null ? -1 : grade.ordinal());
+            enrollments++;
+            enrollmentStart[size] = enrollments;
+            return this;
+        }
+
+        public CompactRoster build() {
+            return new CompactRoster(this);
+        }
+    }
+
+    private CompactRoster(Builder builder) {
+        builder.strings.trim();
+        this.strings = builder.strings;
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, size);
+        this.regNos = Arrays.copyOf(builder.regNos, size);
+        this.names = Arrays.copyOf(builder.names, size);
+        this.emails = Arrays.copyOf(builder.emails, size);
+        this.departments = Arrays.copyOf(builder.departments, size);
+        this.active = Arrays.copyOf(builder.active, size);
+        this.createdAt = Arrays.copyOf(builder.createdAt, size);
+        this.updatedAt = Arrays.copyOf(builder.updatedAt, size);
+        this.enrollmentStart = Arrays.copyOf(builder.enrollmentStart, size + 1);
+        this.enrollmentCourses = Arrays.copyOf(builder.enrollmentCourses, builder.enrollments);
+        this.enrollmentSemesters = Arrays.copyOf(builder.enrollmentSemesters, builder.enrollments);
+        this.enrollmentGrades = Arrays.copyOf(builder.enrollmentGrades, builder.enrollments);
+        this.courses = new Course[builder.courseIndex.size()];
+        builder.courseIndex.forEach((course, index) -> courses[index] = course);
+        this.semesters = new Semester[builder.semesterIndex.size()];
+        builder.semesterIndex.forEach((semester, index) -> semesters[index] = semester);
+
+        this.regNoTable = new int[Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1];
+        int mask = regNoTable.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = mix(regNos[i]) & mask;
+            while (regNoTable[slot] != 0) {
+                if (regNos[regNoTable[slot] - 1] == regNos[i]) {
+                    throw new IllegalArgumentException("Duplicate regNo: " + strings.get(regNos[i]));
+                }
+                slot = (slot + 1) & mask;
+            }
+            regNoTable[slot] = i + 1;
+        }
+    }
+
+    public int size() { return size; }
+    public int getEnrollmentCount() { return enrollmentStart[size]; }
+
+    public StudentView student(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Student " + index + " of " + size);
+        }
+        return new StudentView(index);
+    }
+
+    public StudentView findByRegNo(String regNo) {
+        int code = strings.indexOf(regNo);
+        if (code < 0) return null;
+        int mask = regNoTable.length - 1;
+        for (int slot = mix(code) & mask; regNoTable[slot] != 0; slot = (slot + 1) & mask) {
+            int index = regNoTable[slot] - 1;
+            if (regNos[index] == code) return new StudentView(index);
+        }
+        return null;
+    }
+
+    // GPA straight from the columns, without creating views
+    public double calculateGPA(int index) {
+        double points = 0;
+        int credits = 0;
+        for (int e = enrollmentStart[index]; e < enrollmentStart[index + 1]; e++) {
+            if (enrollmentGrades[e] < 0) continue;
+            int courseCredits = courses[enrollmentCourses[e]].getCredits();
+            points += GRADES[enrollmentGrades[e]].getPoints() * courseCredits;
+            credits += courseCredits;
+        }
+        return credits > 0 ? points / credits : 0.0;
+    }
+
+    public final class StudentView {
+        private final int index;
+
+        private StudentView(int index) {
+            this.index = index;
+        }
+
+        public int getIndex() { return index; }
+        public String getId() { return strings.get(ids[index]); }
+        public String getRegNo() { return strings.get(regNos[index]); }
+        public String getFullName() { return strings.get(names[index]); }
+        public String getEmail() { return strings.get(emails[index]); }
+        public Department getDepartment() {
+            return departments[index] < 0 ? null : DEPARTMENTS[departments[index]];
+        }
+        public boolean isActive() { return active[index]; }
+        public long getCreatedAtMillis() { return createdAt[index]; }
+        public long getUpdatedAtMillis() { return updatedAt[index]; }
+        public LocalDateTime getCreatedAt() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(createdAt[index]), ZoneId.systemDefault());
+        }
+        public double calculateGPA() { return CompactRoster.this.calculateGPA(index); }
+
+        public List<EnrollmentView> getEnrollments() {
+            int from = enrollmentStart[index];
+            int count = enrollmentStart[index + 1] - from;
+            return new AbstractList<EnrollmentView>() {
+                @Override
+                public EnrollmentView get(int i) {
+                    if (i < 0 || i >= count) {
+                        throw new IndexOutOfBoundsException("Enrollment " + i + " of " + count);
+                    }
+                    return new EnrollmentView(index, from + i);
+                }
+
+                @Override
+                public int size() {
+                    return count;
+                }
+            };
+        }
+
+        // Re-creates the student with its enrollments, which attach to the course rosters as they do
+        // when a snapshot is loaded; meant for moving a student back into a StudentService
+        public Student toStudent() {
+            Student student = new Student.Builder(getId(), getRegNo())
+                .fullName(getFullName())
+                .email(getEmail())
+                .department(getDepartment())
+                .build();
+            for (int e = enrollmentStart[index]; e < enrollmentStart[index + 1]; e++) {
+                student.restoreEnrollment(courses[enrollmentCourses[e]], semesters[enrollmentSemesters[e]],
+                    enrollmentGrades[e] < 0 ? null : GRADES[enrollmentGrades[e]]);
+            }
+            if (!active[index]) {
+                student.setActive(false);
+            }
+            student.restoreTimestamps(createdAt[index], updatedAt[index]);
+            return student;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Student{id='%s', regNo='%s', name='%s', department=%s, GPA=%.2f}",
+                getId(), getRegNo(), getFullName(), getDepartment(), calculateGPA());
+        }
+    }
+
+    public final class EnrollmentView {
+        private final int student;
+        private final int index;
+
+        private EnrollmentView(int student, int index) {
+            this.student = student;
+            this.index = index;
+        }
+
+        public StudentView getStudent() { return new StudentView(student); }
+        public Course getCourse() { return courses[enrollmentCourses[index]]; }
+        public Semester getSemester() { return semesters[enrollmentSemesters[index]]; }
+        public Grade getGrade() {
+            return enrollmentGrades[index] < 0 ? null : GRADES[enrollmentGrades[index]];
+        }
+    }
+
+    private static int mix(int code) {
+        int hash = code * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,98 @@
+package edu.ccrm.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Append-only pool of distinct strings, stored back to back as UTF-8 in one byte array and
+// addressed by int codes. Equal strings share a code, so a repeated name costs four bytes per use
+// instead of a String and its backing array. Not thread-safe; readers may share it once it is built.
+final class StringDictionary {
+    private byte[] data = new byte[1 << 12];
+    private int dataLength;
+    // offsets[code] is where the string starts; offsets[count] is the end of the last one
+    private int[] offsets = new int[1 << 8];
+    private int count;
+    // Open-addressing table of code + 1, 0 for an empty slot
+    private int[] table = new int[1 << 9];
+
+    int add(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int slot = slotOf(bytes, hash(bytes, 0, bytes.length));
+        if (table[slot] != 0) {
+            return table[slot] - 1;
+        }
+        if (dataLength + bytes.length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + bytes.length));
+        }
+        if (count + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        System.arraycopy(bytes, 0, data, dataLength, bytes.length);
+        offsets[count] = dataLength;
+        dataLength += bytes.length;
+        offsets[count + 1] = dataLength;
+        int code = count++;
+        table[slot] = code + 1;
+        if (count * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return code;
+    }
+
+    // Code of the string, or -1 when it is not in the dictionary
+    int indexOf(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return table[slotOf(bytes, hash(bytes, 0, bytes.length))] - 1;
+    }
+
+    String get(int code) {
+        int from = offsets[code];
+        return new String(data, from, offsets[code + 1] - from, StandardCharsets.UTF_8);
+    }
+
+    int size() {
+        return count;
+    }
+
+    // Releases the slack left by growth once no more strings will be added
+    void trim() {
+        data = Arrays.copyOf(data, dataLength);
+        offsets = Arrays.copyOf(offsets, count + 1);
+    }
+
+    private int slotOf(byte[] bytes, int hash) {
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0 || matches(entry - 1, bytes)) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean matches(int code, byte[] bytes) {
+        int from = offsets[code];
+        return Arrays.equals(data, from, offsets[code + 1], bytes, 0, bytes.length);
+    }
+
+    private void rehash(int capacity) {
+        int[] resized = new int[capacity];
+        int mask = capacity - 1;
+        for (int code = 0; code < count; code++) {
+            int slot = hash(data, offsets[code], offsets[code + 1]) & mask;
+            while (resized[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            resized[slot] = code + 1;
+        }
+        table = resized;
+    }
+
+    private static int hash(byte[] bytes, int from, int to) {
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
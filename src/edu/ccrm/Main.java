@@ -1,10 +1,49 @@
 package edu.ccrm;
 
+import edu.ccrm.cli.BatchRunner;
 import edu.ccrm.cli.CLIMenu;
 import edu.ccrm.config.AppConfig;
+import edu.ccrm.http.ApiServer;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.io.PersistenceEngine;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 public class Main {
     public static void main(String[] args) {
+        // Latency histograms and counters, readable with jconsole or any JMX client
+        try {
+            Metrics.getInstance().registerMBean();
+        } catch (Exception e) {
+            System.err.println("Metrics are not published over JMX: " + e.getMessage());
+        }
+
+        // Server mode: --server [port] serves the HTTP/JSON API until the process is stopped
+        int server = Arrays.asList(args).indexOf("--server");
+        if (server >= 0) {
+            runServer(server + 1 < args.length ? args[server + 1] : null);
+            return;
+        }
+
+        // Headless mode: --batch <script> or --batch - for stdin, optionally with --parallel
+        int batch = Arrays.asList(args).indexOf("--batch");
+        if (batch >= 0) {
+            System.exit(runBatch(batch + 1 < args.length ? args[batch + 1] : "-",
+                Arrays.asList(args).contains("--parallel")));
+        }
+
         // Enable assertions
         boolean assertionsEnabled = false;
         assert assertionsEnabled = true;
@@ -32,6 +71,50 @@ public class Main {
         printPlatformInfo();
     }
 
+    // Returns the process exit status: 0 when every command succeeded
+    private static int runBatch(String script, boolean parallel) {
+        Writer output = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        try (Reader input = "-".equals(script)
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8)) {
+            BatchRunner runner = new BatchRunner(parallel);
+            return runner.run(input, output) == 0 ? 0 : 1;
+        } catch (Exception e) {
+            System.err.println("Batch run failed: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    // Starts the API and returns; the server threads keep the process alive and a shutdown hook
+    // stops them and saves the data
+    private static void runServer(String port) {
+        try {
+            AppConfig config = AppConfig.getInstance();
+            StudentService studentService = new StudentService();
+            studentService.setCreditLimits(config.getDefaultCreditLimit(), config.getCreditLimits());
+            CourseService courseService = new CourseService();
+            PersistenceEngine persistence = new PersistenceEngine(config.getDataDirectory());
+            persistence.open(studentService, courseService);
+            ApiServer server = new ApiServer(studentService, courseService, new ImportExportService(),
+                new InetSocketAddress(config.getHttpHost(), port != null ? Integer.parseInt(port) : config.getHttpPort()),
+                config.getHttpThreads(), config.getHttpMaxInFlight());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop(1);
+                try {
+                    persistence.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to save data: " + e.getMessage());
+                }
+            }));
+            server.start();
+            System.out.println("CCRM API listening on http://" + config.getHttpHost() + ":"
+                + server.getAddress().getPort() + "/api/");
+        } catch (Exception e) {
+            System.err.println("Server failed to start: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
     private static void printPlatformInfo() {
         System.out.println("\n=== Java Platform Information ===");
         System.out.println("Java SE (Standard Edition): General purpose programming");
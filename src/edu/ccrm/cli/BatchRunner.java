@@ -0,0 +1,453 @@
+package edu.ccrm.cli;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.CourseCode;
+import edu.ccrm.domain.Department;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.BackupManifest;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.io.ImportReport;
+import edu.ccrm.io.PersistenceEngine;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.service.CourseFields;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.Criteria;
+import edu.ccrm.service.Field;
+import edu.ccrm.service.GpaRanking;
+import edu.ccrm.service.QueryPlan;
+import edu.ccrm.service.ReportEngine;
+import edu.ccrm.service.StudentFields;
+import edu.ccrm.service.StudentService;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Headless counterpart of CLIMenu for unattended jobs: executes one command per line from a
+// script or a stdin pipe against the same services and data directory, and writes all output
+// through one buffered writer. Blank lines and lines starting with # are ignored; arguments
+// are separated by spaces and may be double-quoted. A failing command is reported with its line
+// number and the script continues.
+//
+// In parallel mode a run of consecutive read-only commands (listings and reports) executes
+// concurrently, each into its own buffer; the buffers are written in script order, so the output
+// is the same as a sequential run. Any other command waits for the run before it to finish.
+public class BatchRunner {
+    private static final int DEFAULT_LIST_SIZE = 10;
+    private static final int SEARCH_LIMIT = 25;
+
+    private interface Action {
+        void run(String[] args, PrintWriter out) throws Exception;
+    }
+
+    private static final class Command {
+        final String usage;
+        final int requiredArgs;
+        final boolean readOnly;
+        final Action action;
+
+        Command(String usage, int requiredArgs, boolean readOnly, Action action) {
+            this.usage = usage;
+            this.requiredArgs = requiredArgs;
+            this.readOnly = readOnly;
+            this.action = action;
+        }
+    }
+
+    // One parsed script line and, once executed in parallel, its buffered output
+    private static final class Step {
+        final int line;
+        final Command command;
+        final String[] args;
+        String output;
+        boolean failed;
+
+        Step(int line, Command command, String[] args) {
+            this.line = line;
+            this.command = command;
+            this.args = args;
+        }
+    }
+
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final ImportExportService ioService;
+    private final PersistenceEngine persistence;
+    private final boolean parallel;
+    private final Map<String, Command> commands = new LinkedHashMap<>();
+
+    public BatchRunner(boolean parallel) throws IOException {
+        this.parallel = parallel;
+        this.studentService = new StudentService();
+        studentService.setCreditLimits(AppConfig.getInstance().getDefaultCreditLimit(),
+            AppConfig.getInstance().getCreditLimits());
+        this.courseService = new CourseService();
+        this.ioService = new ImportExportService();
+        this.persistence = new PersistenceEngine(AppConfig.getInstance().getDataDirectory());
+        persistence.open(studentService, courseService);
+        ioService.setPersistence(persistence);
+        registerCommands();
+    }
+
+    // Runs the whole script, saves the data and returns the number of failed commands
+    public int run(Reader script, Writer output) throws IOException {
+        PrintWriter out = new PrintWriter(new BufferedWriter(output, 1 << 16));
+        ExecutorService pool = parallel
+            ? Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())
+            : null;
+        int failures = 0;
+        try {
+            List<Step> readOnlyRun = new ArrayList<>();
+            BufferedReader reader = new BufferedReader(script);
+            String text;
+            int line = 0;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                Step step;
+                try {
+                    step = parse(line, text);
+                } catch (IllegalArgumentException e) {
+                    out.println("line " + line + ": " + e.getMessage());
+                    failures++;
+                    continue;
+                }
+                if (step == null) continue;
+                if (pool != null && step.command.readOnly) {
+                    readOnlyRun.add(step);
+                    continue;
+                }
+                failures += flush(readOnlyRun, pool, out);
+                failures += execute(step, out) ? 0 : 1;
+            }
+            failures += flush(readOnlyRun, pool, out);
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+            try {
+                persistence.close();
+            } catch (IOException e) {
+                out.println("Failed to save data: " + e.getMessage());
+                failures++;
+            }
+            out.flush();
+        }
+        return failures;
+    }
+
+    // Executes the pending read-only steps concurrently and writes their output in script order
+    private int flush(List<Step> steps, ExecutorService pool, PrintWriter out) {
+        if (steps.isEmpty()) return 0;
+        int failures = 0;
+        if (steps.size() == 1) {
+            failures += execute(steps.get(0), out) ? 0 : 1;
+        } else {
+            List<Future<?>> results = new ArrayList<>();
+            for (Step step : steps) {
+                results.add(pool.submit(() -> {
+                    StringWriter buffer = new StringWriter();
+                    PrintWriter stepOut = new PrintWriter(buffer);
+                    step.failed = !execute(step, stepOut);
+                    stepOut.flush();
+                    step.output = buffer.toString();
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Step step = steps.get(i);
+                try {
+                    results.get(i).get();
+                } catch (Exception e) {
+                    step.output = "line " + step.line + ": " + step.args[0] + " failed: " + e.getMessage()
+                        + System.lineSeparator();
+                    step.failed = true;
+                }
+                out.print(step.output);
+                failures += step.failed ? 1 : 0;
+            }
+        }
+        steps.clear();
+        return failures;
+    }
+
+    // Returns false when the command failed; the failure is reported in its output
+    private boolean execute(Step step, PrintWriter out) {
+        try {
+            step.command.action.run(step.args, out);
+            return true;
+        } catch (Exception e) {
+            out.println("line " + step.line + ": " + step.args[0] + " failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private Step parse(int line, String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) return null;
+        List<String> tokens = tokenize(trimmed);
+        String name = tokens.get(0).toLowerCase();
+        Command command = commands.get(name);
+        if (command == null) {
+            throw new IllegalArgumentException("unknown command '" + tokens.get(0) + "'; known commands: "
+                + String.join(", ", commands.keySet()));
+        }
+        if (tokens.size() - 1 < command.requiredArgs) {
+            throw new IllegalArgumentException("usage: " + name + " " + command.usage);
+        }
+        tokens.set(0, name);
+        return new Step(line, command, tokens.toArray(new String[0]));
+    }
+
+    // Splits on whitespace; double quotes group words and "" inside quotes is a literal quote
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        boolean inToken = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    token.append(c);
+                } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    token.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+                inToken = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                token.append(c);
+                inToken = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        if (inToken) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    private void register(String name, String usage, int requiredArgs, boolean readOnly, Action action) {
+        commands.put(name, new Command(usage, requiredArgs, readOnly, action));
+    }
+
+    private void registerCommands() {
+        register("add-student", "<id> <regNo> <name> <email> <department>", 5, false, (args, out) -> {
+            studentService.addStudent(new Student.Builder(args[1], args[2])
+                .fullName(args[3])
+                .email(args[4])
+                .department(department(args[5]))
+                .build());
+            out.println("Student added: " + args[2]);
+        });
+        register("update-student", "<regNo> <name|-> <email|->", 3, false, (args, out) -> {
+            Student student = student(args[1]);
+            studentService.updateStudent(student, "-".equals(args[2]) ? null : args[2], "-".equals(args[3]) ? null : args[3]);
+            out.println("Student updated: " + args[1]);
+        });
+        register("deactivate-student", "<regNo>", 1, false, (args, out) -> {
+            studentService.deactivateStudent(student(args[1]).getId());
+            out.println("Student deactivated: " + args[1]);
+        });
+        register("add-course", "<prefix> <number> <title> <credits> <capacity> <department>", 6, false, (args, out) -> {
+            Course course = new Course.Builder(CourseCode.of(args[1], Integer.parseInt(args[2])))
+                .title(args[3])
+                .credits(Integer.parseInt(args[4]))
+                .capacity(Integer.parseInt(args[5]))
+                .department(department(args[6]))
+                .build();
+            courseService.addCourse(course);
+            out.println("Course added: " + course.getCode());
+        });
+        register("set-capacity", "<course> <capacity>", 2, false, (args, out) -> {
+            Course course = course(args[1]);
+            courseService.updateCapacity(course.getCode().toString(), Integer.parseInt(args[2]));
+            studentService.promoteWaitlisted(course);
+            out.println("Capacity updated: " + course);
+        });
+        register("enroll", "<regNo> <course> <semester>", 3, false, (args, out) -> {
+            int position = studentService.enrollOrWaitlist(student(args[1]).getId(), course(args[2]),
+                Semester.valueOf(args[3]));
+            out.println(position == 0
+                ? "Enrolled " + args[1] + " in " + args[2]
+                : "Waitlisted " + args[1] + " for " + args[2] + " at position " + position);
+        });
+        register("unenroll", "<regNo> <course>", 2, false, (args, out) -> {
+            studentService.unenrollStudent(student(args[1]).getId(), course(args[2]));
+            out.println("Unenrolled " + args[1] + " from " + args[2]);
+        });
+        register("grade", "<regNo> <course> <grade>", 3, false, (args, out) -> {
+            Student student = student(args[1]);
+            Course course = course(args[2]);
+            if (!student.getEnrolledCourses().containsKey(course)) {
+                throw new IllegalArgumentException(args[1] + " is not enrolled in " + args[2]);
+            }
+            studentService.recordGrade(student.getId(), course, Grade.valueOf(args[3].toUpperCase()));
+            out.println("Grade recorded: " + args[1] + " " + args[2] + " " + args[3].toUpperCase());
+        });
+        register("import-students", "<csv>", 1, false, (args, out) -> {
+            ImportReport report = ioService.importStudents(Paths.get(args[1]), studentService);
+            out.println("Imported " + report.getImported() + " of " + report.getRowsRead()
+                + " students, rejected " + report.getRejected() + ".");
+            report.getRejects().forEach(reject -> out.println("  " + reject));
+        });
+        register("import-enrollments", "<csv> [atomic]", 1, false, (args, out) -> {
+            boolean atomic = args.length > 2 && args[2].equalsIgnoreCase("atomic");
+            ImportReport report = ioService.importEnrollments(Paths.get(args[1]), studentService, courseService, atomic);
+            out.println("Applied " + report.getImported() + " of " + report.getRowsRead()
+                + " rows, rejected " + report.getRejected() + ".");
+            report.getRejects().forEach(reject -> out.println("  " + reject));
+        });
+        // Exports and backups only read the services, but they write files that later commands
+        // may depend on, so they run in order
+        register("export-students", "<csv[.gz]>", 1, false, (args, out) ->
+            out.println("Exported " + ioService.exportStudents(studentService.snapshot().stream(), Paths.get(args[1])) + " students."));
+        register("export-courses", "<csv[.gz]>", 1, false, (args, out) ->
+            out.println("Exported " + ioService.exportCourses(courseService.snapshot().stream(), Paths.get(args[1])) + " courses."));
+        register("export-enrollments", "<csv[.gz]>", 1, false, (args, out) ->
+            out.println("Exported " + ioService.exportEnrollments(studentService.snapshot().stream(), Paths.get(args[1])) + " enrollments."));
+        register("export-analytics", "<csv>", 1, false, (args, out) -> {
+            ReportEngine.Report report = studentService.buildReport(courseService.snapshot());
+            try (BufferedWriter file = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                report.emit(ReportEngine.csv(file));
+            }
+            out.println("Analytics for " + report.getStudentCount() + " students written to " + args[1]);
+        });
+        register("backup", "", 0, false, (args, out) -> {
+            Path backupDir = ioService.createBackup();
+            out.println("Backup created: " + backupDir.getFileName() + " ("
+                + ioService.calculateBackupSize(backupDir) + " bytes)");
+        });
+        register("incremental-backup", "", 0, false, (args, out) -> {
+            BackupManifest manifest = ioService.createIncrementalBackup();
+            out.println("Backup created: " + manifest.getId() + " (" + manifest.getTotalBytes() + " bytes, "
+                + manifest.getNewBytes() + " bytes of new chunks)");
+        });
+        register("prune-backups", "<keep>", 1, false, (args, out) ->
+            out.println("Pruned backups, reclaimed " + ioService.pruneBackups(Integer.parseInt(args[1])) + " bytes."));
+        register("checkpoint", "", 0, false, (args, out) -> {
+            persistence.checkpoint();
+            out.println("Checkpoint written.");
+        });
+
+        register("list-students", "", 0, true, (args, out) ->
+            studentService.findAll().forEach(student -> out.println(student.getDisplayInfo())));
+        register("list-courses", "", 0, true, (args, out) ->
+            courseService.findAll().forEach(out::println));
+        register("search", "<text> [count]", 1, true, (args, out) ->
+            studentService.searchText(args[1], args.length > 2 ? Integer.parseInt(args[2]) : SEARCH_LIMIT)
+                .forEach(out::println));
+        register("find-students", "<field=value>...", 1, true, (args, out) ->
+            studentService.search(criteria(StudentFields.ALL, args)).forEach(out::println));
+        register("find-courses", "<field=value>...", 1, true, (args, out) ->
+            courseService.search(criteria(CourseFields.ALL, args)).forEach(out::println));
+        register("count-students", "<field=value>...", 1, true, (args, out) ->
+            out.println(studentService.count(criteria(StudentFields.ALL, args))));
+        register("explain-students", "<field=value>...", 1, true, (args, out) ->
+            out.println(explain(studentService.plan(criteria(StudentFields.ALL, args)))));
+        register("explain-courses", "<field=value>...", 1, true, (args, out) ->
+            out.println(explain(courseService.plan(criteria(CourseFields.ALL, args)))));
+        register("class-list", "<course> <semester>", 2, true, (args, out) -> {
+            Course course = course(args[1]);
+            Semester semester = Semester.valueOf(args[2]);
+            List<Enrollment> classList = studentService.getClassList(course, semester);
+            out.println(course.getCode() + " " + course.getTitle() + " - " + semester
+                + " (" + classList.size() + " enrolled)");
+            for (Enrollment enrollment : classList) {
+                Student student = enrollment.getStudent();
+                out.printf("%s  %-30s %s%n", student.getRegNo(), student.getFullName(),
+                    enrollment.getGrade() != null ? enrollment.getGrade() : "-");
+            }
+        });
+        register("gpa-report", "", 0, true, (args, out) -> {
+            for (Student student : studentService.snapshot()) {
+                out.printf("%s (%s): GPA = %.2f%n", student.getFullName(), student.getRegNo(), student.calculateGPA());
+            }
+        });
+        register("top-students", "[count]", 0, true, (args, out) ->
+            printLeaderboard("Top Students", studentService.getLeaderboard(count(args, 1)), out));
+        register("department-leaderboards", "[count]", 0, true, (args, out) ->
+            studentService.getDepartmentLeaderboards(count(args, 1))
+                .forEach((department, entries) -> printLeaderboard(department.toString(), entries, out)));
+        register("semester-leaderboard", "<semester> [count]", 1, true, (args, out) -> {
+            Semester semester = Semester.valueOf(args[1]);
+            printLeaderboard(semester.toString(), studentService.getSemesterLeaderboard(semester, count(args, 2)), out);
+        });
+        register("analytics", "", 0, true, (args, out) ->
+            studentService.buildReport(courseService.snapshot()).emit(ReportEngine.console(out)));
+        register("metrics", "", 0, true, (args, out) -> out.print(Metrics.getInstance().format()));
+    }
+
+    private Student student(String regNo) {
+        Student student = studentService.findByRegNo(regNo);
+        if (student == null) {
+            throw new IllegalArgumentException("Student not found: " + regNo);
+        }
+        return student;
+    }
+
+    private Course course(String code) {
+        Course course = courseService.findByCode(code);
+        if (course == null) {
+            throw new IllegalArgumentException("Course not found: " + code);
+        }
+        return course;
+    }
+
+    private static Department department(String name) {
+        return Department.valueOf(name.trim().toUpperCase());
+    }
+
+    private static <T> Criteria<T> criteria(List<Field<T, ?>> fields, String[] args) {
+        return Criteria.parse(fields, Arrays.asList(args).subList(1, args.length));
+    }
+
+    private static String explain(QueryPlan<?> plan) {
+        plan.execute();
+        return plan.toString();
+    }
+
+    private static int count(String[] args, int index) {
+        return args.length > index ? Integer.parseInt(args[index]) : DEFAULT_LIST_SIZE;
+    }
+
+    private static void printLeaderboard(String title, List<GpaRanking.Entry> entries, PrintWriter out) {
+        out.println("--- " + title + " ---");
+        if (entries.isEmpty()) {
+            out.println("No graded students.");
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            out.println((i + 1) + ". " + entries.get(i));
+        }
+    }
+}
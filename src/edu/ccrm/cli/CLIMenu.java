@@ -1,34 +1,81 @@
 package edu.ccrm.cli;
 
+import edu.ccrm.config.AppConfig;
 import edu.ccrm.domain.Course;
 import edu.ccrm.domain.CourseCode;
 import edu.ccrm.domain.Department;
+import edu.ccrm.domain.Enrollment;
 import edu.ccrm.domain.Grade;
 import edu.ccrm.domain.Semester;
 import edu.ccrm.domain.Student;
+import edu.ccrm.io.BackupManifest;
 import edu.ccrm.io.ImportExportService;
+import edu.ccrm.io.ImportReport;
+import edu.ccrm.io.PersistenceEngine;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.service.ChangeEvent;
 import edu.ccrm.service.CourseService;
+import edu.ccrm.service.Criteria;
+import edu.ccrm.service.EnrollmentBatch;
+import edu.ccrm.service.EventBus;
+import edu.ccrm.service.GpaRanking;
+import edu.ccrm.service.ReportEngine;
 import edu.ccrm.service.StudentService;
+import edu.ccrm.service.StudentFields;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
 import java.util.Scanner;
-import java.util.function.Predicate;
 
 
 public class CLIMenu {
+    private static final int SEARCH_LIMIT = 25;
+    private static final int LEADERBOARD_SIZE = 10;
+    private static final int RECENT_CHANGES = 20;
+
     private final Scanner scanner;
     private final StudentService studentService;
     private final CourseService courseService;
     private final ImportExportService ioService;
+    private final PersistenceEngine persistence;
+    private final EventBus events;
+    // Filled by the event dispatch thread, read by the menu
+    private final Deque<ChangeEvent> recentChanges = new ArrayDeque<>();
 
-    public CLIMenu() {
+    public CLIMenu() throws IOException {
         this.scanner = new Scanner(System.in);
         this.studentService = new StudentService();
+        studentService.setCreditLimits(AppConfig.getInstance().getDefaultCreditLimit(),
+            AppConfig.getInstance().getCreditLimits());
         this.courseService = new CourseService();
         this.ioService = new ImportExportService();
-        initializeSampleData();
+        this.persistence = new PersistenceEngine(AppConfig.getInstance().getDataDirectory());
+        persistence.open(studentService, courseService);
+        ioService.setPersistence(persistence);
+        // Attached after loading, so only changes made in this session are streamed
+        this.events = new EventBus();
+        events.subscribe(batch -> {
+            synchronized (recentChanges) {
+                for (ChangeEvent event : batch) {
+                    if (recentChanges.size() == RECENT_CHANGES) recentChanges.removeFirst();
+                    recentChanges.addLast(event);
+                }
+            }
+        });
+        studentService.setEventBus(events);
+        courseService.setEventBus(events);
+        if (studentService.findAll().isEmpty() && courseService.findAll().isEmpty()) {
+            initializeSampleData();
+        }
     }
 
     public void start() {
@@ -61,6 +108,7 @@ public class CLIMenu {
                  generateReports();
                 break;
                 case 8 :
+                 shutdown();
                  System.out.println("Exiting CCRM. Goodbye!");
                  break mainLoop;
                 default : System.out.println("Invalid option! Try again.");
@@ -68,6 +116,17 @@ public class CLIMenu {
         }
     }
 
+    private void shutdown() {
+        studentService.setEventBus(null);
+        courseService.setEventBus(null);
+        events.close();
+        try {
+            persistence.close();
+        } catch (IOException e) {
+            System.out.println("Failed to save data: " + e.getMessage());
+        }
+    }
+
     private void printMainMenu() {
         System.out.println("\n=== MAIN MENU ===");
         System.out.println("1. Manage Students");
@@ -87,7 +146,8 @@ public class CLIMenu {
             System.out.println("2. List All Students");
             System.out.println("3. Search Students");
             System.out.println("4. Update Student");
-            System.out.println("5. Back to Main Menu");
+            System.out.println("5. Deactivate Student");
+            System.out.println("6. Back to Main Menu");
             
             int choice = getIntInput("Choose an option: ");
             
@@ -100,7 +160,9 @@ public class CLIMenu {
                 break;
                 case 4 : updateStudent();
                 break;
-                case 5 : break studentMenu;
+                case 5 : deactivateStudent();
+                break;
+                case 6 : break studentMenu;
                 default : System.out.println("Invalid option!");
             }
         }
@@ -144,24 +206,49 @@ public class CLIMenu {
 
     private void searchStudents() {
         System.out.println("\n--- Search Students ---");
-        String searchTerm = getStringInput("Enter search term (name or email): ").toLowerCase();
-        
-        Predicate<Student> searchPredicate = student -> 
-            student.getFullName().toLowerCase().contains(searchTerm) ||
-            student.getEmail().toLowerCase().contains(searchTerm);
+        String searchTerm = getStringInput("Enter search term (name or email): ");
+
+        List<Student> results = studentService.searchText(searchTerm, SEARCH_LIMIT);
 
-        List<Student> results = studentService.search(searchPredicate);
-        
         if (results.isEmpty()) {
             System.out.println("No matching students found.");
         } else {
             results.forEach(System.out::println);
+            if (results.size() == SEARCH_LIMIT) {
+                System.out.println("Showing the best " + SEARCH_LIMIT + " matches; refine the search to see others.");
+            }
         }
     }
 
     private void backupOperations() {
-        try {
+        backupMenu: while (true) {
             System.out.println("\n=== BACKUP OPERATIONS ===");
+            System.out.println("1. Full Backup");
+            System.out.println("2. Incremental Backup");
+            System.out.println("3. List Incremental Backups");
+            System.out.println("4. Restore Incremental Backup");
+            System.out.println("5. Prune Old Backups");
+            System.out.println("6. Back to Main Menu");
+            int choice = getIntInput("Choose an option: ");
+            switch (choice) {
+                case 1 : fullBackup();
+                break;
+                case 2 : incrementalBackup();
+                break;
+                case 3 : listBackups();
+                break;
+                case 4 : restoreBackup();
+                break;
+                case 5 : pruneBackups();
+                break;
+                case 6 : break backupMenu;
+                default : System.out.println("Invalid option!");
+            }
+        }
+    }
+
+    private void fullBackup() {
+        try {
             Path backupDir = ioService.createBackup();
             System.out.println("Backup created: " + backupDir.getFileName());
             
@@ -173,6 +260,54 @@ public class CLIMenu {
         }
     }
 
+    private void incrementalBackup() {
+        try {
+            BackupManifest manifest = ioService.createIncrementalBackup();
+            System.out.println("Backup created: " + manifest.getId());
+            System.out.println("Backup size: " + manifest.getTotalBytes() + " bytes ("
+                + manifest.getNewBytes() + " bytes of new chunks)");
+        } catch (Exception e) {
+            System.out.println("Backup failed: " + e.getMessage());
+        }
+    }
+
+    private void listBackups() {
+        try {
+            List<BackupManifest> backups = ioService.listIncrementalBackups();
+            if (backups.isEmpty()) {
+                System.out.println("No incremental backups found.");
+                return;
+            }
+            for (BackupManifest backup : backups) {
+                System.out.println(backup.getId() + " - " + backup.getFiles().size() + " files, "
+                    + backup.getTotalBytes() + " bytes");
+            }
+        } catch (Exception e) {
+            System.out.println("Error listing backups: " + e.getMessage());
+        }
+    }
+
+    private void restoreBackup() {
+        try {
+            String backupId = getStringInput("Backup ID: ");
+            Path target = Paths.get(getStringInput("Restore into directory: "));
+            ioService.restoreBackup(backupId, target);
+            System.out.println("Backup " + backupId + " restored to " + target);
+        } catch (Exception e) {
+            System.out.println("Restore failed: " + e.getMessage());
+        }
+    }
+
+    private void pruneBackups() {
+        try {
+            int keep = getIntInput("Number of backups to keep: ");
+            long reclaimed = ioService.pruneBackups(keep);
+            System.out.println("Pruned backups, reclaimed " + reclaimed + " bytes.");
+        } catch (Exception e) {
+            System.out.println("Prune failed: " + e.getMessage());
+        }
+    }
+
     private int getIntInput(String prompt) {
         while (true) {
             try {
@@ -192,35 +327,35 @@ public class CLIMenu {
     private void initializeSampleData() {
         try {
             // For Computer Science
-            Course cs101 = new Course.Builder(new CourseCode("CS", 101))
+            Course cs101 = new Course.Builder(CourseCode.of("CS", 101))
                 .title("Introduction to Programming")
                 .credits(3)
                 .department(Department.COMPUTER_SCIENCE)
                 .build();
 
             // For Electrical Engineering
-            Course ee101 = new Course.Builder(new CourseCode("EE", 101))
+            Course ee101 = new Course.Builder(CourseCode.of("EE", 101))
                 .title("Circuit Analysis")
                 .credits(4)
                 .department(Department.ELECTRICAL_ENGINEERING)
                 .build();
 
             // For Mechanical Engineering
-            Course me101 = new Course.Builder(new CourseCode("ME", 101))
+            Course me101 = new Course.Builder(CourseCode.of("ME", 101))
                 .title("Engineering Mechanics")
                 .credits(4)
                 .department(Department.MECHANICAL_ENGINEERING)
                 .build();
 
             // For Chemical Engineering
-            Course ch101 = new Course.Builder(new CourseCode("CH", 101))
+            Course ch101 = new Course.Builder(CourseCode.of("CH", 101))
                 .title("Chemical Process Principles")
                 .credits(3)
                 .department(Department.CHEMICAL_ENGINEERING)
                 .build();
 
             // For Biotechnology
-            Course bt101 = new Course.Builder(new CourseCode("BT", 101))
+            Course bt101 = new Course.Builder(CourseCode.of("BT", 101))
                 .title("Introduction to Biotechnology")
                 .credits(3)
                 .department(Department.BIO_TECHNOLOGY)
@@ -246,23 +381,23 @@ public class CLIMenu {
                 .department(Department.ELECTRICAL_ENGINEERING)
                 .build();
 
+            // Adding students to the service
+            studentService.addStudent(csStudent);
+            studentService.addStudent(eeStudent);
+
             // Creating the semester instances
-            Semester fall2025 = new Semester("FALL", 2025);
+            Semester fall2025 = Semester.of("FALL", 2025);
 
             // Enrolling students in courses and assign grades
-            csStudent.enrollInCourse(cs101, fall2025);
-            csStudent.enrollInCourse(ee101, fall2025);
-            csStudent.recordGrade(cs101, Grade.S);
-            csStudent.recordGrade(ee101, Grade.A);
+            studentService.enrollStudent(csStudent.getId(), cs101, fall2025);
+            studentService.enrollStudent(csStudent.getId(), ee101, fall2025);
+            studentService.recordGrade(csStudent.getId(), cs101, Grade.S);
+            studentService.recordGrade(csStudent.getId(), ee101, Grade.A);
 
-            eeStudent.enrollInCourse(ee101, fall2025);
-            eeStudent.enrollInCourse(me101, fall2025);
-            eeStudent.recordGrade(ee101, Grade.A);
-            eeStudent.recordGrade(me101, Grade.B);
-
-            // Adding students to the service
-            studentService.addStudent(csStudent);
-            studentService.addStudent(eeStudent);
+            studentService.enrollStudent(eeStudent.getId(), ee101, fall2025);
+            studentService.enrollStudent(eeStudent.getId(), me101, fall2025);
+            studentService.recordGrade(eeStudent.getId(), ee101, Grade.A);
+            studentService.recordGrade(eeStudent.getId(), me101, Grade.B);
 
         } catch (Exception e) {
             System.err.println("Error initializing sample data: " + e.getMessage());
@@ -274,14 +409,17 @@ public class CLIMenu {
             System.out.println("\n=== COURSE MANAGEMENT ===");
             System.out.println("1. Add Course");
             System.out.println("2. List All Courses");
-            System.out.println("3. Back to Main Menu");
+            System.out.println("3. Set Course Capacity");
+            System.out.println("4. Back to Main Menu");
             int choice = getIntInput("Choose an option: ");
             switch (choice) {
                 case 1 : addCourse();
                 break;
                 case 2 : listCourses();
                 break;
-                case 3 : break courseMenu;
+                case 3 : setCourseCapacity();
+                break;
+                case 4 : break courseMenu;
                 default : System.out.println("Invalid option!");
             }
         }
@@ -294,11 +432,13 @@ public class CLIMenu {
             int codeNumber = getIntInput("Course Code Number (e.g., 101): ");
             String title = getStringInput("Course Title: ");
             int credits = getIntInput("Credits: ");
+            int capacity = getIntInput("Capacity (0 for unlimited): ");
             System.out.println("Available Departments: " + Arrays.toString(Department.values()));
             Department department = Department.valueOf(getStringInput("Department: ").toUpperCase());
-            Course course = new Course.Builder(new CourseCode(codePrefix, codeNumber))
+            Course course = new Course.Builder(CourseCode.of(codePrefix, codeNumber))
                 .title(title)
                 .credits(credits)
+                .capacity(capacity)
                 .department(department)
                 .build();
             courseService.addCourse(course);
@@ -308,6 +448,23 @@ public class CLIMenu {
         }
     }
 
+    private void setCourseCapacity() {
+        try {
+            System.out.println("\n--- Set Course Capacity ---");
+            Course course = courseService.findByCode(getStringInput("Course Code (e.g., CS101): "));
+            if (course == null) {
+                System.out.println("Course not found.");
+                return;
+            }
+            int capacity = getIntInput("Capacity (0 for unlimited): ");
+            courseService.updateCapacity(course.getCode().toString(), capacity);
+            studentService.promoteWaitlisted(course);
+            System.out.println("Capacity updated: " + course);
+        } catch (Exception e) {
+            System.out.println("Error updating capacity: " + e.getMessage());
+        }
+    }
+
     private void listCourses() {
         List<Course> courses = courseService.findAll();
         if (courses.isEmpty()) {
@@ -323,14 +480,20 @@ public class CLIMenu {
             System.out.println("\n=== ENROLLMENT MANAGEMENT ===");
             System.out.println("1. Enroll Student in Course");
             System.out.println("2. Unenroll Student from Course");
-            System.out.println("3. Back to Main Menu");
+            System.out.println("3. View Class List");
+            System.out.println("4. Block Enroll a Department");
+            System.out.println("5. Back to Main Menu");
             int choice = getIntInput("Choose an option: ");
             switch (choice) {
                 case 1 : enrollStudentInCourse();
                 break;
                 case 2 : unenrollStudentFromCourse();
                 break;
-                case 3 : break enrollmentMenu;
+                case 3 : viewClassList();
+                break;
+                case 4 : blockEnroll();
+                break;
+                case 5 : break enrollmentMenu;
                 default : System.out.println("Invalid option!");
             }
         }
@@ -349,8 +512,12 @@ public class CLIMenu {
                 System.out.println("Student or course not found.");
                 return;
             }
-            student.enrollInCourse(course, semester);
-            System.out.println("Enrollment successful!");
+            int position = studentService.enrollOrWaitlist(student.getId(), course, semester);
+            if (position == 0) {
+                System.out.println("Enrollment successful!");
+            } else {
+                System.out.println("Course is full. Added to the waitlist at position " + position + ".");
+            }
         } catch (Exception e) {
             System.out.println("Error enrolling student: " + e.getMessage());
         }
@@ -367,23 +534,86 @@ public class CLIMenu {
                 System.out.println("Student or course not found.");
                 return;
             }
-            student.unenrollFromCourse(course);
+            studentService.unenrollStudent(student.getId(), course);
             System.out.println("Unenrollment successful!");
         } catch (Exception e) {
             System.out.println("Error unenrolling student: " + e.getMessage());
         }
     }
 
+    // Enrolls every active student of a department into a fixed list of courses as one batch
+    private void blockEnroll() {
+        try {
+            System.out.println("\n--- Block Enroll a Department ---");
+            System.out.println("Departments: " + Arrays.toString(Department.values()));
+            Department department = Department.valueOf(getStringInput("Department: ").trim().toUpperCase());
+            Semester semester = Semester.valueOf(getStringInput("Semester (e.g., FALL2025): "));
+            List<Course> curriculum = new ArrayList<>();
+            for (String code : getStringInput("Course codes, comma separated: ").split(",")) {
+                Course course = courseService.findByCode(code);
+                if (course == null) {
+                    System.out.println("Course not found: " + code.trim());
+                    return;
+                }
+                curriculum.add(course);
+            }
+            boolean atomic = getStringInput("All or nothing? (y/n): ").trim().equalsIgnoreCase("y");
+            List<EnrollmentBatch.Request> requests = new ArrayList<>();
+            for (Student student : studentService.search(StudentFields.DEPARTMENT.eq(department).and(StudentFields.ACTIVE.eq(true)))) {
+                for (Course course : curriculum) {
+                    requests.add(new EnrollmentBatch.Request(student.getId(), course, semester, null));
+                }
+            }
+            EnrollmentBatch.Result result = studentService.enrollAll(requests, atomic);
+            System.out.println("Enrolled " + result.getApplied() + " of " + result.size()
+                + " requests, rejected " + result.getRejected() + ".");
+            int shown = 0;
+            for (int row = 0; row < result.size() && shown < 20; row++) {
+                if (!result.getStatus(row).isSuccess() && result.getStatus(row) != EnrollmentBatch.Status.SKIPPED) {
+                    System.out.println("  " + result.getStatus(row) + ": " + result.getMessage(row));
+                    shown++;
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("Error in block enrollment: " + e.getMessage());
+        }
+    }
+
+    private void viewClassList() {
+        try {
+            System.out.println("\n--- Class List ---");
+            Course course = courseService.findByCode(getStringInput("Course Code (e.g., CS101): "));
+            Semester semester = Semester.valueOf(getStringInput("Semester (e.g., FALL2025): "));
+            if (course == null) {
+                System.out.println("Course not found.");
+                return;
+            }
+            List<Enrollment> classList = studentService.getClassList(course, semester);
+            System.out.println(course.getCode() + " " + course.getTitle() + " - " + semester
+                + " (" + classList.size() + " enrolled)");
+            for (Enrollment enrollment : classList) {
+                Student student = enrollment.getStudent();
+                System.out.printf("%s  %-30s %s\n", student.getRegNo(), student.getFullName(),
+                    enrollment.getGrade() != null ? enrollment.getGrade() : "-");
+            }
+        } catch (Exception e) {
+            System.out.println("Error listing class: " + e.getMessage());
+        }
+    }
+
     private void manageGrades() {
         gradeMenu: while (true) {
             System.out.println("\n=== GRADE MANAGEMENT ===");
             System.out.println("1. Record Grade");
-            System.out.println("2. Back to Main Menu");
+            System.out.println("2. Enter Grades for a Class");
+            System.out.println("3. Back to Main Menu");
             int choice = getIntInput("Choose an option: ");
             switch (choice) {
                 case 1 : recordGradeForStudent();
                 break;
-                case 2 :break gradeMenu;
+                case 2 : enterClassGrades();
+                break;
+                case 3 :break gradeMenu;
                 default : System.out.println("Invalid option!");
             }
         }
@@ -402,26 +632,64 @@ public class CLIMenu {
                 System.out.println("Student or course not found.");
                 return;
             }
-            student.recordGrade(course, grade);
+            studentService.recordGrade(student.getId(), course, grade);
             System.out.println("Grade recorded successfully!");
         } catch (Exception e) {
             System.out.println("Error recording grade: " + e.getMessage());
         }
     }
 
+    // Grade sheet: walks the class list and prompts for each student; a blank entry skips the student
+    private void enterClassGrades() {
+        try {
+            System.out.println("\n--- Enter Grades for a Class ---");
+            Course course = courseService.findByCode(getStringInput("Course Code (e.g., CS101): "));
+            Semester semester = Semester.valueOf(getStringInput("Semester (e.g., FALL2025): "));
+            if (course == null) {
+                System.out.println("Course not found.");
+                return;
+            }
+            int recorded = 0;
+            for (Enrollment enrollment : studentService.getClassList(course, semester)) {
+                Student student = enrollment.getStudent();
+                String current = enrollment.getGrade() != null ? " [" + enrollment.getGrade() + "]" : "";
+                String gradeValue = getStringInput(student.getRegNo() + " " + student.getFullName() + current + ": ").trim();
+                if (gradeValue.isEmpty()) continue;
+                try {
+                    studentService.recordGrade(student.getId(), course, Grade.valueOf(gradeValue.toUpperCase()));
+                    recorded++;
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Unknown grade, skipped.");
+                }
+            }
+            System.out.println(recorded + " grades recorded.");
+        } catch (Exception e) {
+            System.out.println("Error entering grades: " + e.getMessage());
+        }
+    }
+
     private void importExportData() {
         importExportMenu: while (true) {
             System.out.println("\n=== IMPORT/EXPORT DATA ===");
             System.out.println("1. Import Students from CSV");
-            System.out.println("2. Export Students to CSV");
-            System.out.println("3. Back to Main Menu");
+            System.out.println("2. Import Enrollments and Grades from CSV");
+            System.out.println("3. Export Students to CSV");
+            System.out.println("4. Export Courses to CSV");
+            System.out.println("5. Export Enrollments to CSV");
+            System.out.println("6. Back to Main Menu");
             int choice = getIntInput("Choose an option: ");
             switch (choice) {
                 case 1 : importStudentsFromCSV();
                 break;
-                case 2 : exportStudentsToCSV();
+                case 2 : importEnrollmentsFromCSV();
+                break;
+                case 3 : exportStudentsToCSV();
                 break;
-                case 3 : break importExportMenu;
+                case 4 : exportCoursesToCSV();
+                break;
+                case 5 : exportEnrollmentsToCSV();
+                break;
+                case 6 : break importExportMenu;
                 default : System.out.println("Invalid option!");
             }
         }
@@ -432,29 +700,67 @@ public class CLIMenu {
             System.out.println("\n--- Import Students from CSV ---");
             String pathStr = getStringInput("CSV file path: ");
             Path path = Paths.get(pathStr);
-            List<Student> students = ioService.importStudentsFromCSV(path);
-            for (Student s : students) {
-                studentService.addStudent(s);
-            }
-            System.out.println("Imported " + students.size() + " students.");
+            ImportReport report = ioService.importStudents(path, studentService);
+            System.out.println("Imported " + report.getImported() + " of " + report.getRowsRead()
+                + " students, rejected " + report.getRejected() + ".");
+            report.getRejects().stream()
+                .limit(20)
+                .forEach(reject -> System.out.println("  " + reject));
         } catch (Exception e) {
             System.out.println("Error importing students: " + e.getMessage());
         }
     }
 
+    private void importEnrollmentsFromCSV() {
+        try {
+            System.out.println("\n--- Import Enrollments and Grades from CSV ---");
+            Path path = Paths.get(getStringInput("CSV file path (RegNo,CourseCode,Semester,Grade): "));
+            boolean atomic = getStringInput("All or nothing? (y/n): ").trim().equalsIgnoreCase("y");
+            ImportReport report = ioService.importEnrollments(path, studentService, courseService, atomic);
+            System.out.println("Applied " + report.getImported() + " of " + report.getRowsRead()
+                + " rows, rejected " + report.getRejected() + ".");
+            report.getRejects().stream()
+                .limit(20)
+                .forEach(reject -> System.out.println("  " + reject));
+        } catch (Exception e) {
+            System.out.println("Error importing enrollments: " + e.getMessage());
+        }
+    }
+
     private void exportStudentsToCSV() {
         try {
             System.out.println("\n--- Export Students to CSV ---");
-            String pathStr = getStringInput("CSV file path: ");
+            String pathStr = getStringInput("CSV file path (.gz to compress): ");
             Path path = Paths.get(pathStr);
-            List<Student> students = studentService.findAll();
-            ioService.exportStudentsToCSV(students, path);
-            System.out.println("Exported " + students.size() + " students.");
+            long rows = ioService.exportStudents(studentService.snapshot().stream(), path);
+            System.out.println("Exported " + rows + " students.");
         } catch (Exception e) {
             System.out.println("Error exporting students: " + e.getMessage());
         }
     }
 
+    private void exportCoursesToCSV() {
+        try {
+            System.out.println("\n--- Export Courses to CSV ---");
+            Path path = Paths.get(getStringInput("CSV file path (.gz to compress): "));
+            long rows = ioService.exportCourses(courseService.snapshot().stream(), path);
+            System.out.println("Exported " + rows + " courses.");
+        } catch (Exception e) {
+            System.out.println("Error exporting courses: " + e.getMessage());
+        }
+    }
+
+    private void exportEnrollmentsToCSV() {
+        try {
+            System.out.println("\n--- Export Enrollments to CSV ---");
+            Path path = Paths.get(getStringInput("CSV file path (.gz to compress): "));
+            long rows = ioService.exportEnrollments(studentService.snapshot().stream(), path);
+            System.out.println("Exported " + rows + " enrollments.");
+        } catch (Exception e) {
+            System.out.println("Error exporting enrollments: " + e.getMessage());
+        }
+    }
+
     private void updateStudent() {
         try {
             System.out.println("\n--- Update Student ---");
@@ -466,21 +772,118 @@ public class CLIMenu {
             }
             String newName = getStringInput("New Full Name (leave blank to keep current): ");
             String newEmail = getStringInput("New Email (leave blank to keep current): ");
-            if (newName != null && !newName.trim().isEmpty()) {
-                student.setFullName(newName);
-            }
-            if (newEmail != null && !newEmail.trim().isEmpty()) {
-                student.setEmail(newEmail);
-            }
+            studentService.updateStudent(student, newName, newEmail);
             System.out.println("Student updated (fields changed if provided).");
         } catch (Exception e) {
             System.out.println("Error updating student: " + e.getMessage());
         }
     }
 
+    private void deactivateStudent() {
+        try {
+            System.out.println("\n--- Deactivate Student ---");
+            String regNo = getStringInput("Registration Number: ");
+            Student student = studentService.findByRegNo(regNo);
+            if (student == null) {
+                System.out.println("Student not found.");
+                return;
+            }
+            studentService.deactivateStudent(student.getId());
+            System.out.println("Student deactivated.");
+        } catch (Exception e) {
+            System.out.println("Error deactivating student: " + e.getMessage());
+        }
+    }
+
     private void generateReports() {
-        System.out.println("\n=== REPORT GENERATION ===");
-        List<Student> students = studentService.findAll();
+        reportMenu: while (true) {
+            System.out.println("\n=== REPORT GENERATION ===");
+            System.out.println("1. GPA Report");
+            System.out.println("2. Top Students");
+            System.out.println("3. Department Leaderboards");
+            System.out.println("4. Semester Leaderboard");
+            System.out.println("5. Analytics Summary");
+            System.out.println("6. Export Analytics to CSV");
+            System.out.println("7. Recent Changes");
+            System.out.println("8. Enrollment Dashboard");
+            System.out.println("9. Performance Metrics");
+            System.out.println("10. Back to Main Menu");
+            int choice = getIntInput("Choose an option: ");
+            switch (choice) {
+                case 1 : gpaReport();
+                break;
+                case 2 : printLeaderboard("Top Students", studentService.getLeaderboard(LEADERBOARD_SIZE));
+                break;
+                case 3 : studentService.getDepartmentLeaderboards(LEADERBOARD_SIZE)
+                    .forEach((department, entries) -> printLeaderboard(department.toString(), entries));
+                break;
+                case 4 : semesterLeaderboard();
+                break;
+                case 5 : analyticsSummary();
+                break;
+                case 6 : exportAnalytics();
+                break;
+                case 7 : recentChanges();
+                break;
+                case 8 : enrollmentDashboard();
+                break;
+                case 9 : performanceMetrics();
+                break;
+                case 10 : break reportMenu;
+                default : System.out.println("Invalid option!");
+            }
+        }
+    }
+
+    private void recentChanges() {
+        List<ChangeEvent> changes;
+        synchronized (recentChanges) {
+            changes = new ArrayList<>(recentChanges);
+        }
+        System.out.println("\n=== RECENT CHANGES ===");
+        if (changes.isEmpty()) {
+            System.out.println("No changes in this session.");
+        }
+        changes.forEach(System.out::println);
+        if (events.getDropped() > 0) {
+            System.out.println("(" + events.getDropped() + " changes were not streamed)");
+        }
+    }
+
+    // Every figure is a bitmap count; no student record is read
+    private void enrollmentDashboard() {
+        try {
+            String input = getStringInput("Semester (e.g., FALL2025, blank for none): ").trim();
+            Semester semester = input.isEmpty() ? null : Semester.valueOf(input);
+            System.out.println("\n=== ENROLLMENT DASHBOARD ===");
+            System.out.printf("%-26s %10s %10s%s%n", "Department", "Students", "Active",
+                semester == null ? "" : String.format(" %18s", "Enrolled " + semester.toString().replace(" ", "")));
+            for (Department department : Department.values()) {
+                Criteria<Student> active = StudentFields.DEPARTMENT.eq(department).and(StudentFields.ACTIVE.eq(true));
+                System.out.printf("%-26s %10d %10d", department,
+                    studentService.count(StudentFields.DEPARTMENT.eq(department)), studentService.count(active));
+                if (semester != null) {
+                    System.out.printf(" %18d", studentService.count(active.and(StudentFields.SEMESTER.eq(semester))));
+                }
+                System.out.println();
+            }
+        } catch (Exception e) {
+            System.out.println("Error building dashboard: " + e.getMessage());
+        }
+    }
+
+    // Latencies since startup; the same figures are published over JMX as edu.ccrm:type=Metrics
+    private void performanceMetrics() {
+        System.out.println("\n=== PERFORMANCE METRICS ===");
+        System.out.print(Metrics.getInstance().format());
+        if (getStringInput("Reset metrics? (y/N): ").trim().equalsIgnoreCase("y")) {
+            Metrics.getInstance().reset();
+            System.out.println("Metrics reset.");
+        }
+    }
+
+    private void gpaReport() {
+        Collection<Student> students = studentService.snapshot();
         if (students.isEmpty()) {
             System.out.println("No students found.");
             return;
@@ -490,4 +893,45 @@ public class CLIMenu {
             System.out.printf("%s (%s): GPA = %.2f\n", s.getFullName(), s.getRegNo(), s.calculateGPA());
         }
     }
+
+    private void analyticsSummary() {
+        try {
+            ReportEngine.Report report = studentService.buildReport(courseService.snapshot());
+            report.emit(ReportEngine.console(System.out));
+        } catch (Exception e) {
+            System.out.println("Error generating analytics: " + e.getMessage());
+        }
+    }
+
+    private void exportAnalytics() {
+        try {
+            Path path = Paths.get(getStringInput("CSV file path: "));
+            ReportEngine.Report report = studentService.buildReport(courseService.snapshot());
+            try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                report.emit(ReportEngine.csv(out));
+            }
+            System.out.println("Analytics for " + report.getStudentCount() + " students written to " + path);
+        } catch (Exception e) {
+            System.out.println("Error exporting analytics: " + e.getMessage());
+        }
+    }
+
+    private void semesterLeaderboard() {
+        try {
+            Semester semester = Semester.valueOf(getStringInput("Semester (e.g., FALL2025): "));
+            printLeaderboard(semester.toString(), studentService.getSemesterLeaderboard(semester, LEADERBOARD_SIZE));
+        } catch (Exception e) {
+            System.out.println("Error generating leaderboard: " + e.getMessage());
+        }
+    }
+
+    private void printLeaderboard(String title, List<GpaRanking.Entry> entries) {
+        System.out.println("\n--- " + title + " ---");
+        if (entries.isEmpty()) {
+            System.out.println("No graded students.");
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            System.out.println((i + 1) + ". " + entries.get(i));
+        }
+    }
 }
\ No newline at end of file
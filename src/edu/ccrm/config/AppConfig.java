@@ -1,16 +1,48 @@
 package edu.ccrm.config;
 
+import edu.ccrm.domain.Department;
+import edu.ccrm.domain.Student;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
 
 public class AppConfig {
     private static AppConfig instance;
     private final Path dataDirectory;
     private final Path backupDirectory;
+    private final int checkpointInterval;
+    private final int backupRetention;
+    private final int defaultCreditLimit;
+    private final Map<Department, Integer> creditLimits;
+    private final String httpHost;
+    private final int httpPort;
+    private final int httpThreads;
+    private final int httpMaxInFlight;
 
     private AppConfig() {
         this.dataDirectory = Paths.get("data");
         this.backupDirectory = Paths.get("backups");
+        // Log records written between two persistence snapshots
+        this.checkpointInterval = Integer.getInteger("ccrm.checkpointInterval", 10_000);
+        // Incremental backups kept by the retention policy
+        this.backupRetention = Integer.getInteger("ccrm.backupRetention", 10);
+        // In-progress credits a student may carry per semester, e.g. -Dccrm.creditLimit=18,
+        // overridable per program with -Dccrm.creditLimit.COMPUTER_SCIENCE=21
+        this.defaultCreditLimit = Integer.getInteger("ccrm.creditLimit", Student.DEFAULT_MAX_CREDITS);
+        Map<Department, Integer> limits = new EnumMap<>(Department.class);
+        for (Department department : Department.values()) {
+            limits.put(department, Integer.getInteger("ccrm.creditLimit." + department.name(), defaultCreditLimit));
+        }
+        this.creditLimits = Collections.unmodifiableMap(limits);
+        // Server mode (--server): loopback only unless -Dccrm.http.host=0.0.0.0 is given
+        this.httpHost = System.getProperty("ccrm.http.host", "127.0.0.1");
+        this.httpPort = Integer.getInteger("ccrm.http.port", 8080);
+        // Request threads when virtual threads are not available
+        this.httpThreads = Integer.getInteger("ccrm.http.threads", 64);
+        // Requests queued or running beyond which new ones are refused with 503
+        this.httpMaxInFlight = Integer.getInteger("ccrm.http.maxInFlight", 256);
         initializeDirectories();
     }
 
@@ -32,4 +64,12 @@ public class AppConfig {
 
     public Path getDataDirectory() { return dataDirectory; }
     public Path getBackupDirectory() { return backupDirectory; }
+    public int getCheckpointInterval() { return checkpointInterval; }
+    public int getBackupRetention() { return backupRetention; }
+    public int getDefaultCreditLimit() { return defaultCreditLimit; }
+    public Map<Department, Integer> getCreditLimits() { return creditLimits; }
+    public String getHttpHost() { return httpHost; }
+    public int getHttpPort() { return httpPort; }
+    public int getHttpThreads() { return httpThreads; }
+    public int getHttpMaxInFlight() { return httpMaxInFlight; }
 }
\ No newline at end of file
@@ -1,14 +1,43 @@
 package edu.ccrm.domain;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Course {
     private final CourseCode code;
     private String title;
-    private int credits;
+    private volatile int credits;
     private Instructor instructor;
     private Department department;
     private boolean active;
+    private final Set<Enrollment> enrollments = ConcurrentHashMap.newKeySet();
+    // 0 means unlimited; seats are reserved with a CAS on seatsTaken so a rush never oversells
+    private volatile int capacity;
+    private final AtomicInteger seatsTaken = new AtomicInteger();
+    // Queue order plus a membership set, both guarded by the waitlist's monitor
+    private final Deque<WaitlistEntry> waitlist = new ArrayDeque<>();
+    private final Set<Student> waitlisted = new HashSet<>();
+
+    public static final class WaitlistEntry {
+        private final Student student;
+        private final Semester semester;
+
+        public WaitlistEntry(Student student, Semester semester) {
+            this.student = student;
+            this.semester = semester;
+        }
+
+        public Student getStudent() { return student; }
+        public Semester getSemester() { return semester; }
+    }
 
     public static class Builder {
         private final CourseCode code;
@@ -16,6 +45,7 @@ public class Course {
         private int credits = 3;
         private Instructor instructor;
         private Department department;
+        private int capacity;
 
         public Builder(CourseCode code) {
             this.code = code;
@@ -41,6 +71,11 @@ public class Course {
             return this;
         }
 
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
         public Course build() {
             Course course = new Course(this);
             course.validate();
@@ -54,6 +89,7 @@ public class Course {
         this.credits = builder.credits;
         this.instructor = builder.instructor;
         this.department = builder.department;
+        this.capacity = builder.capacity;
         this.active = true;
     }
 
@@ -63,6 +99,9 @@ public class Course {
         if (credits <= 0 || credits > 6) {
             throw new IllegalArgumentException("Credits must be between 1 and 6");
         }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative");
+        }
     }
 
     // Getters and setters
@@ -70,17 +109,116 @@ public class Course {
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
     public int getCredits() { return credits; }
-    public void setCredits(int credits) { this.credits = credits; }
+    // Each enrolled student re-reads the credits under its own monitor, so its totals always
+    // match what its enrollments count for, whichever writer gets there first
+    public synchronized void setCredits(int credits) {
+        if (credits <= 0 || credits > 6) {
+            throw new IllegalArgumentException("Credits must be between 1 and 6");
+        }
+        int oldCredits = this.credits;
+        this.credits = credits;
+        if (oldCredits != credits) {
+            for (Enrollment enrollment : enrollments) {
+                enrollment.getStudent().creditsChanged(enrollment);
+            }
+        }
+    }
     public Instructor getInstructor() { return instructor; }
     public void setInstructor(Instructor instructor) { this.instructor = instructor; }
     public Department getDepartment() { return department; }
     public void setDepartment(Department department) { this.department = department; }
     public boolean isActive() { return active; }
     public void setActive(boolean active) { this.active = active; }
+    public Set<Enrollment> getEnrollments() { return Collections.unmodifiableSet(enrollments); }
+    public int getCapacity() { return capacity; }
+    // Lowering the capacity never evicts anyone, it only stops new reservations
+    public void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative");
+        }
+        this.capacity = capacity;
+    }
+    public int getSeatsTaken() { return seatsTaken.get(); }
+    public int getAvailableSeats() {
+        int limit = capacity;
+        return limit == 0 ? Integer.MAX_VALUE : Math.max(0, limit - seatsTaken.get());
+    }
+
+    // Queues the student unless already waiting; returns the 1-based position, or -1 if already queued
+    public int addToWaitlist(Student student, Semester semester) {
+        synchronized (waitlist) {
+            if (!waitlisted.add(student)) return -1;
+            waitlist.addLast(new WaitlistEntry(student, semester));
+            return waitlist.size();
+        }
+    }
+
+    public boolean removeFromWaitlist(Student student) {
+        synchronized (waitlist) {
+            return waitlisted.remove(student)
+                && waitlist.removeIf(entry -> entry.getStudent().equals(student));
+        }
+    }
+
+    public WaitlistEntry pollWaitlist() {
+        synchronized (waitlist) {
+            WaitlistEntry entry = waitlist.pollFirst();
+            if (entry != null) {
+                waitlisted.remove(entry.getStudent());
+            }
+            return entry;
+        }
+    }
+
+    // Puts back an entry whose promotion lost its seat to a concurrent enrollment
+    public void returnToWaitlist(WaitlistEntry entry) {
+        synchronized (waitlist) {
+            if (waitlisted.add(entry.getStudent())) {
+                waitlist.addFirst(entry);
+            }
+        }
+    }
+
+    public List<WaitlistEntry> getWaitlist() {
+        synchronized (waitlist) {
+            return new ArrayList<>(waitlist);
+        }
+    }
+
+    public int getWaitlistSize() {
+        synchronized (waitlist) {
+            return waitlist.size();
+        }
+    }
+
+    // Lock-free seat reservation, called by Student right before the enrollment is attached
+    boolean reserveSeat() {
+        while (true) {
+            int taken = seatsTaken.get();
+            int limit = capacity;
+            if (limit > 0 && taken >= limit) return false;
+            if (seatsTaken.compareAndSet(taken, taken + 1)) return true;
+        }
+    }
+
+    // Maintained by Student so credit changes can be pushed to enrolled students.
+    // Restored enrollments take their seat unconditionally; detaching frees it.
+    void attach(Enrollment enrollment, boolean seatReserved) {
+        if (enrollments.add(enrollment) && !seatReserved) {
+            seatsTaken.incrementAndGet();
+        }
+    }
+
+    void detach(Enrollment enrollment) {
+        if (enrollments.remove(enrollment)) {
+            seatsTaken.decrementAndGet();
+        }
+    }
 
     @Override
     public String toString() {
-        return String.format("Course{code=%s, title='%s', credits=%d, instructor=%s}", 
-            code, title, credits, instructor != null ? instructor.getFullName() : "None");
+        String seats = capacity == 0 ? String.valueOf(seatsTaken.get()) : seatsTaken.get() + "/" + capacity;
+        return String.format("Course{code=%s, title='%s', credits=%d, instructor=%s, seats=%s, waitlist=%d}", 
+            code, title, credits, instructor != null ? instructor.getFullName() : "None", seats, getWaitlistSize());
     }
 }
\ No newline at end of file
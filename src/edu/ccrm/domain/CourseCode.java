@@ -1,22 +1,123 @@
 package edu.ccrm.domain;
 
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
+// Course codes are canonical: every code is created through of/parse and interned, so lookups
+// from user input resolve to the shared instance without allocating. Codes that fit the packed
+// int form are pooled by that int; the rare longer codes fall back to a map keyed by full code.
 public final class CourseCode {
+    private static final int NUMBER_BITS = 14;
+    private static final InternPool<CourseCode> PACKED = new InternPool<>(CourseCode::pack);
+    private static final Map<String, CourseCode> UNPACKED = new ConcurrentHashMap<>();
+
     private final String departmentCode;
     private final int courseNumber;
     private final String fullCode;
+    private final int packed;
+    private final int hash;
 
-    public CourseCode(String departmentCode, int courseNumber) {
+    private CourseCode(String departmentCode, int courseNumber) {
         this.departmentCode = Objects.requireNonNull(departmentCode).toUpperCase();
         this.courseNumber = courseNumber;
-        this.fullCode = String.format("%s%04d", departmentCode, courseNumber);
+        this.fullCode = String.format("%s%04d", this.departmentCode, courseNumber);
+        this.packed = pack(this.departmentCode, courseNumber);
+        this.hash = 31 * this.departmentCode.hashCode() + courseNumber;
+    }
+
+    public static CourseCode of(String departmentCode, int courseNumber) {
+        CourseCode candidate = new CourseCode(departmentCode, courseNumber);
+        if (candidate.packed >= 0) {
+            CourseCode existing = PACKED.get(candidate.packed);
+            return existing != null ? existing : PACKED.intern(candidate);
+        }
+        return UNPACKED.computeIfAbsent(candidate.fullCode, key -> candidate);
+    }
+
+    // Accepts user-typed codes such as "cs101", "CS0101" or " ee 205 "; creates the code if needed
+    public static CourseCode parse(CharSequence text) {
+        CourseCode code = resolve(text, true);
+        if (code == null) {
+            throw new IllegalArgumentException("Invalid course code: " + text);
+        }
+        return code;
+    }
+
+    // The canonical code for the text if it has been created before, otherwise null.
+    // Never creates a code, and does not allocate for codes that fit the packed form.
+    public static CourseCode lookup(CharSequence text) {
+        return resolve(text, false);
+    }
+
+    // Letters, optional spaces, then at most 9 digits, with surrounding whitespace ignored
+    private static CourseCode resolve(CharSequence text, boolean create) {
+        int length = text.length();
+        int i = 0;
+        while (i < length && Character.isWhitespace(text.charAt(i))) i++;
+        int lettersFrom = i;
+        int letters = 0;
+        for (; i < length; i++) {
+            char c = Character.toUpperCase(text.charAt(i));
+            if (c < 'A' || c > 'Z') break;
+            letters = (letters << 5) | (c - 'A' + 1);
+        }
+        int lettersTo = i;
+        while (i < length && text.charAt(i) == ' ') i++;
+        int digitsFrom = i;
+        int number = 0;
+        for (; i < length && i - digitsFrom < 9; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') break;
+            number = number * 10 + (c - '0');
+        }
+        int digits = i - digitsFrom;
+        while (i < length && Character.isWhitespace(text.charAt(i))) i++;
+        if (lettersTo == lettersFrom || digits == 0 || i != length) return null;
+
+        if (lettersTo - lettersFrom <= 3 && number < (1 << NUMBER_BITS)) {
+            CourseCode code = PACKED.get((letters << NUMBER_BITS) | number);
+            return code != null || !create ? code : of(text.subSequence(lettersFrom, lettersTo).toString(), number);
+        }
+        String prefix = text.subSequence(lettersFrom, lettersTo).toString().toUpperCase();
+        CourseCode code = UNPACKED.get(String.format("%s%04d", prefix, number));
+        return code != null || !create ? code : of(prefix, number);
     }
 
     public String getDepartmentCode() { return departmentCode; }
     public int getCourseNumber() { return courseNumber; }
     public String getFullCode() { return fullCode; }
 
+    // Codes of up to 3 letters and numbers below 16384 packed into a non-negative int
+    // (5 bits per letter, 14 bits for the number), or -1 when the code does not fit
+    public int pack() { return packed; }
+
+    private static int pack(String departmentCode, int courseNumber) {
+        int length = departmentCode.length();
+        if (length == 0 || length > 3 || courseNumber < 0 || courseNumber >= (1 << NUMBER_BITS)) return -1;
+        int letters = 0;
+        for (int i = 0; i < length; i++) {
+            char c = departmentCode.charAt(i);
+            if (c < 'A' || c > 'Z') return -1;
+            letters = (letters << 5) | (c - 'A' + 1);
+        }
+        return (letters << NUMBER_BITS) | courseNumber;
+    }
+
+    public static CourseCode unpack(int packed) {
+        if (packed < 0) {
+            throw new IllegalArgumentException("Invalid packed course code: " + packed);
+        }
+        CourseCode existing = PACKED.get(packed);
+        if (existing != null) return existing;
+        int letters = packed >>> NUMBER_BITS;
+        StringBuilder prefix = new StringBuilder(3);
+        for (; letters != 0; letters >>>= 5) {
+            prefix.insert(0, (char) ('A' + (letters & 31) - 1));
+        }
+        return of(prefix.toString(), packed & ((1 << NUMBER_BITS) - 1));
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -28,7 +129,7 @@ public final class CourseCode {
 
     @Override
     public int hashCode() {
-        return Objects.hash(departmentCode, courseNumber);
+        return hash;
     }
 
     @Override
@@ -4,7 +4,10 @@ public class Enrollment {
     private final Student student;
     private final Course course;
     private final Semester semester;
-    private Grade grade;
+    private volatile Grade grade;
+    // The course credits this enrollment counts for in its student's totals, guarded by the
+    // student's monitor. Brought in line with the course by Student.creditsChanged.
+    int credits;
 
     public Enrollment(Student student, Course course, Semester semester) {
         this.student = student;
@@ -13,6 +16,15 @@ public class Enrollment {
         this.grade = null;
     }
 
+    // For the enrollments of a student copy, which are created with their grade and credits
+    Enrollment(Student student, Course course, Semester semester, Grade grade, int credits) {
+        this.student = student;
+        this.course = course;
+        this.semester = semester;
+        this.grade = grade;
+        this.credits = credits;
+    }
+
     public Student getStudent() {
         return student;
     }
@@ -29,7 +41,17 @@ public class Enrollment {
         return grade;
     }
 
+    // The credits counted in the student's GPA and credit totals; on snapshot copies, as of the copy
+    public int getCredits() {
+        return credits;
+    }
+
     public void recordGrade(Grade grade) {
-        this.grade = grade;
+        synchronized (student) {
+            student.checkMutable();
+            Grade oldGrade = this.grade;
+            this.grade = grade;
+            student.gradeChanged(this, oldGrade);
+        }
     }
 }
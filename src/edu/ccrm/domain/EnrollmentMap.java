@@ -0,0 +1,148 @@
+package edu.ccrm.domain;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+
+// A student's enrollments as one copy-on-write array, and the read-only map view over it, keyed
+// by course identity like the former hash map. A student holds a handful of courses, so lookups
+// scan the array; the array costs a few bytes per enrollment instead of a hash table.
+//
+// A snapshot copy shares its source's array. Grades and credits are the only parts of an
+// enrollment that change in place, so the copy captures them, one byte per enrollment, and its
+// view materializes enrollments that belong to the copy and carry the captured values.
+final class EnrollmentMap extends AbstractMap<Course, Enrollment> {
+    private static final byte[] NONE = new byte[0];
+    // Grade ordinal + 1 (0 for ungraded) in the low nibble, credits in the high nibble
+    private static final int GRADE_BITS = 4;
+    private static final int GRADE_MASK = (1 << GRADE_BITS) - 1;
+    private static final Grade[] GRADES = Grade.values();
+
+    private final Student owner;
+    private final Enrollment[] enrollments;
+    private final byte[] frozen;
+
+    EnrollmentMap(Student owner, Enrollment[] enrollments, byte[] frozen) {
+        this.owner = owner;
+        this.enrollments = enrollments;
+        this.frozen = frozen;
+    }
+
+    static int indexOf(Enrollment[] enrollments, Object course) {
+        if (enrollments != null) {
+            for (int i = 0; i < enrollments.length; i++) {
+                if (enrollments[i].getCourse() == course) return i;
+            }
+        }
+        return -1;
+    }
+
+    static Enrollment[] with(Enrollment[] enrollments, Enrollment enrollment) {
+        if (enrollments == null) {
+            return new Enrollment[] { enrollment };
+        }
+        Enrollment[] updated = new Enrollment[enrollments.length + 1];
+        System.arraycopy(enrollments, 0, updated, 0, enrollments.length);
+        updated[enrollments.length] = enrollment;
+        return updated;
+    }
+
+    static Enrollment[] without(Enrollment[] enrollments, int index) {
+        if (enrollments.length == 1) return null;
+        Enrollment[] updated = new Enrollment[enrollments.length - 1];
+        System.arraycopy(enrollments, 0, updated, 0, index);
+        System.arraycopy(enrollments, index + 1, updated, index, updated.length - index);
+        return updated;
+    }
+
+    // Called under the student's monitor, so the grades and credits are those of one moment.
+    // Never null, since a non-null result is what marks a student as a copy.
+    static byte[] pack(Enrollment[] enrollments) {
+        if (enrollments == null) return NONE;
+        byte[] packed = new byte[enrollments.length];
+        for (int i = 0; i < enrollments.length; i++) {
+            Grade grade = enrollments[i].getGrade();
+            packed[i] = (byte) (enrollments[i].credits << GRADE_BITS | (grade == null ? 0 : grade.ordinal() + 1));
+        }
+        return packed;
+    }
+
+    static int inProgressCredits(Enrollment[] enrollments, byte[] frozen, Semester semester) {
+        int credits = 0;
+        for (int i = 0; i < frozen.length; i++) {
+            if ((frozen[i] & GRADE_MASK) == 0 && enrollments[i].getSemester() == semester) {
+                credits += (frozen[i] & 0xff) >>> GRADE_BITS;
+            }
+        }
+        return credits;
+    }
+
+    private Enrollment enrollment(int index) {
+        Enrollment enrollment = enrollments[index];
+        if (frozen == null) return enrollment;
+        int grade = frozen[index] & GRADE_MASK;
+        return new Enrollment(owner, enrollment.getCourse(), enrollment.getSemester(),
+            grade == 0 ? null : GRADES[grade - 1], (frozen[index] & 0xff) >>> GRADE_BITS);
+    }
+
+    @Override
+    public Enrollment get(Object course) {
+        int index = indexOf(enrollments, course);
+        return index < 0 ? null : enrollment(index);
+    }
+
+    @Override
+    public boolean containsKey(Object course) {
+        return indexOf(enrollments, course) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return enrollments.length;
+    }
+
+    @Override
+    public Collection<Enrollment> values() {
+        return new AbstractList<Enrollment>() {
+            @Override
+            public Enrollment get(int index) {
+                return enrollment(index);
+            }
+
+            @Override
+            public int size() {
+                return enrollments.length;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<Course, Enrollment>> entrySet() {
+        return new AbstractSet<Entry<Course, Enrollment>>() {
+            @Override
+            public Iterator<Entry<Course, Enrollment>> iterator() {
+                Iterator<Enrollment> values = values().iterator();
+                return new Iterator<Entry<Course, Enrollment>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return values.hasNext();
+                    }
+
+                    @Override
+                    public Entry<Course, Enrollment> next() {
+                        Enrollment enrollment = values.next();
+                        return new SimpleImmutableEntry<>(enrollment.getCourse(), enrollment);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return enrollments.length;
+            }
+        };
+    }
+}
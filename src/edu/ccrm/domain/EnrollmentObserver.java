@@ -0,0 +1,26 @@
+package edu.ccrm.domain;
+
+import java.util.Collection;
+
+// Notified under the student's monitor whenever one of its enrollments is created, dropped or
+// graded, so services can keep reverse indexes (by course, by semester) in step with the student
+public interface EnrollmentObserver {
+    void enrollmentAdded(Enrollment enrollment);
+    void enrollmentRemoved(Enrollment enrollment);
+
+    default void gradeRecorded(Enrollment enrollment, Grade previousGrade) { }
+
+    // The credits of the enrollment's course changed and the student's totals followed. Unlike
+    // the others, called after the student's monitor has been released.
+    default void creditsChanged(Enrollment enrollment) { }
+
+    // The student's existing enrollments when the observer is attached to or detached from it;
+    // these are handovers, not new enrollments
+    default void attached(Collection<Enrollment> current) {
+        current.forEach(this::enrollmentAdded);
+    }
+
+    default void detached(Collection<Enrollment> current) {
+        current.forEach(this::enrollmentRemoved);
+    }
+}
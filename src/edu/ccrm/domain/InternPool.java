@@ -0,0 +1,61 @@
+package edu.ccrm.domain;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToLongFunction;
+
+// Canonical instances keyed by a primitive long, in an open-addressing table. Lookups are
+// lock-free and allocation-free: a slot holds the instance itself and the key is read back from
+// its final fields. Inserts are serialized and the table is doubled before it is half full.
+final class InternPool<T> {
+    private final ToLongFunction<T> keyOf;
+    private volatile AtomicReferenceArray<T> slots = new AtomicReferenceArray<>(64);
+    private int size;
+
+    InternPool(ToLongFunction<T> keyOf) {
+        this.keyOf = keyOf;
+    }
+
+    T get(long key) {
+        AtomicReferenceArray<T> table = slots;
+        int mask = table.length() - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            T value = table.get(i);
+            if (value == null || keyOf.applyAsLong(value) == key) return value;
+        }
+    }
+
+    // Returns the canonical instance for the candidate's key, adopting the candidate if there is none
+    synchronized T intern(T candidate) {
+        long key = keyOf.applyAsLong(candidate);
+        T existing = get(key);
+        if (existing != null) return existing;
+        if ((size + 1) * 2 > slots.length()) {
+            AtomicReferenceArray<T> grown = new AtomicReferenceArray<>(slots.length() * 2);
+            for (int i = 0; i < slots.length(); i++) {
+                T value = slots.get(i);
+                if (value != null) insert(grown, value);
+            }
+            slots = grown;
+        }
+        insert(slots, candidate);
+        size++;
+        return candidate;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void insert(AtomicReferenceArray<T> table, T value) {
+        int mask = table.length() - 1;
+        int i = slot(keyOf.applyAsLong(value), mask);
+        while (table.get(i) != null) {
+            i = (i + 1) & mask;
+        }
+        table.set(i, value);
+    }
+
+    private static int slot(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
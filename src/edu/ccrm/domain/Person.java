@@ -1,23 +1,27 @@
 package edu.ccrm.domain;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Objects;
 
 public abstract class Person {
     protected final String id;
-    protected String fullName;
-    protected String email;
-    protected boolean active;
-    protected LocalDateTime createdAt;
-    protected LocalDateTime updatedAt;
+    protected volatile String fullName;
+    protected volatile String email;
+    protected volatile boolean active;
+    // Epoch millis; the LocalDateTime getters convert on read, which keeps two objects per person off the heap
+    protected long createdAt;
+    protected volatile long updatedAt;
+    private volatile PersonObserver observer;
 
     public Person(String id, String fullName, String email) {
         this.id = Objects.requireNonNull(id, "ID cannot be null");
         this.fullName = Objects.requireNonNull(fullName, "Full name cannot be null");
         this.email = Objects.requireNonNull(email, "Email cannot be null");
         this.active = true;
-        this.createdAt = LocalDateTime.now();
-        this.updatedAt = LocalDateTime.now();
+        this.createdAt = System.currentTimeMillis();
+        this.updatedAt = createdAt;
     }
 
     // Abstract methods for polymorphism
@@ -28,21 +32,75 @@ public abstract class Person {
     public String getId() { return id; }
     public String getFullName() { return fullName; }
     public void setFullName(String fullName) { 
+        checkMutable();
+        String oldName = this.fullName;
         this.fullName = Objects.requireNonNull(fullName);
-        this.updatedAt = LocalDateTime.now();
+        this.updatedAt = System.currentTimeMillis();
+        if (!oldName.equals(fullName)) {
+            notifyObserver();
+        }
     }
     public String getEmail() { return email; }
     public void setEmail(String email) { 
+        checkMutable();
+        String oldEmail = this.email;
         this.email = Objects.requireNonNull(email);
-        this.updatedAt = LocalDateTime.now();
+        if (!oldEmail.equals(email)) {
+            PersonObserver current = observer;
+            if (current != null) {
+                try {
+                    current.emailChanged(this, oldEmail);
+                } catch (RuntimeException e) {
+                    this.email = oldEmail;
+                    throw e;
+                }
+            }
+        }
+        this.updatedAt = System.currentTimeMillis();
+        if (!oldEmail.equals(email)) {
+            notifyObserver();
+        }
     }
     public boolean isActive() { return active; }
     public void setActive(boolean active) { 
+        checkMutable();
+        boolean wasActive = this.active;
         this.active = active;
-        this.updatedAt = LocalDateTime.now();
+        this.updatedAt = System.currentTimeMillis();
+        PersonObserver current = observer;
+        if (wasActive != active && current != null) {
+            current.activeChanged(this);
+        }
+    }
+    public LocalDateTime getCreatedAt() { return toLocal(createdAt); }
+    public LocalDateTime getUpdatedAt() { return toLocal(updatedAt); }
+    public long getCreatedAtMillis() { return createdAt; }
+    public long getUpdatedAtMillis() { return updatedAt; }
+
+    // Used when a person is re-created from stored columns
+    void restoreTimestamps(long createdAt, long updatedAt) {
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    private static LocalDateTime toLocal(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+    // A person is observed by at most one owner (the service that stores it)
+    public void setObserver(PersonObserver observer) {
+        checkMutable();
+        this.observer = observer;
+    }
+
+    // Throws for read-only instances (such as Student snapshot copies) before any field is written
+    void checkMutable() { }
+
+    private void notifyObserver() {
+        PersonObserver current = observer;
+        if (current != null) {
+            current.contactDetailsChanged(this);
+        }
     }
-    public LocalDateTime getCreatedAt() { return createdAt; }
-    public LocalDateTime getUpdatedAt() { return updatedAt; }
 
     @Override
     public String toString() {
@@ -0,0 +1,13 @@
+package edu.ccrm.domain;
+
+// Notified after a person's name or email changes, so services can keep derived indexes current
+public interface PersonObserver {
+    void contactDetailsChanged(Person person);
+
+    // Before contactDetailsChanged when the email changes, so a unique key can be moved to the new
+    // address; throwing rejects the change and the person keeps oldEmail
+    default void emailChanged(Person person, String oldEmail) { }
+
+    // After the person is activated or deactivated
+    default void activeChanged(Person person) { }
+}
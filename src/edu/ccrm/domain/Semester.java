@@ -1,26 +1,81 @@
 package edu.ccrm.domain;
 
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Semesters are canonical: of and valueOf return one shared instance per (name, year), with the
+// name upper-cased, so semesters compare by identity and valueOf does not allocate once a
+// semester is known. Names of up to 9 letters and years below 16384 are pooled by a packed long.
 public class Semester {
+    private static final int YEAR_BITS = 14;
+    private static final int MAX_PACKED_LETTERS = 9;
+    private static final InternPool<Semester> PACKED = new InternPool<>(semester -> semester.packed);
+    private static final Map<String, Semester> UNPACKED = new ConcurrentHashMap<>();
+
     private final String name;
     private final int year;
+    private final long packed;
 
-    public Semester(String name, int year) {
+    private Semester(String name, int year) {
         this.name = name;
         this.year = year;
+        this.packed = pack(name, year);
     }
 
     public String getName() { return name; }
     public int getYear() { return year; }
 
+    public static Semester of(String name, int year) {
+        Semester candidate = new Semester(name.trim().toUpperCase(Locale.ROOT), year);
+        if (candidate.packed >= 0) {
+            Semester existing = PACKED.get(candidate.packed);
+            return existing != null ? existing : PACKED.intern(candidate);
+        }
+        return UNPACKED.computeIfAbsent(candidate.toString(), key -> candidate);
+    }
+
     public static Semester valueOf(String str) {
         // Accept formats like FALL2025, SPRING2026, etc.
-        str = str.trim().toUpperCase();
-        if (str.matches("[A-Z]+\\d{4}")) {
-            String name = str.replaceAll("\\d{4}$", "");
-            int year = Integer.parseInt(str.replaceAll("^[A-Z]+", ""));
-            return new Semester(name, year);
+        int length = str.length();
+        int i = 0;
+        while (i < length && Character.isWhitespace(str.charAt(i))) i++;
+        int nameFrom = i;
+        long letters = 0;
+        for (; i < length; i++) {
+            char c = Character.toUpperCase(str.charAt(i));
+            if (c < 'A' || c > 'Z') break;
+            letters = (letters << 5) | (c - 'A' + 1);
+        }
+        int nameTo = i;
+        int year = 0;
+        for (; i < length && i - nameTo < 4; i++) {
+            char c = str.charAt(i);
+            if (c < '0' || c > '9') break;
+            year = year * 10 + (c - '0');
+        }
+        int yearDigits = i - nameTo;
+        while (i < length && Character.isWhitespace(str.charAt(i))) i++;
+        if (nameTo == nameFrom || yearDigits != 4 || i != length) {
+            throw new IllegalArgumentException("Invalid semester format: " + str.trim().toUpperCase());
+        }
+        if (nameTo - nameFrom <= MAX_PACKED_LETTERS) {
+            Semester existing = PACKED.get((letters << YEAR_BITS) | year);
+            if (existing != null) return existing;
+        }
+        return of(str.substring(nameFrom, nameTo), year);
+    }
+
+    // 5 bits per letter above a 14-bit year, or -1 when the semester does not fit
+    private static long pack(String name, int year) {
+        if (name.isEmpty() || name.length() > MAX_PACKED_LETTERS || year < 0 || year >= (1 << YEAR_BITS)) return -1;
+        long letters = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < 'A' || c > 'Z') return -1;
+            letters = (letters << 5) | (c - 'A' + 1);
         }
-        throw new IllegalArgumentException("Invalid semester format: " + str);
+        return (letters << YEAR_BITS) | year;
     }
 
     @Override
@@ -1,19 +1,30 @@
 package edu.ccrm.domain;
 
 import java.util.*;
+import edu.ccrm.exception.CourseFullException;
 import edu.ccrm.exception.DuplicateEnrollmentException;
 import edu.ccrm.exception.MaxCreditLimitExceededException;
 
 public class Student extends Person {
+    public static final int DEFAULT_MAX_CREDITS = 18;
+
     private final String regNo;
-    private final Map<Course, Enrollment> enrolledCourses;
+    // Copy-on-write: enrolling or dropping replaces the array, so readers and snapshot copies can
+    // hold on to one without locking. Null until the first enrollment.
+    private volatile Enrollment[] enrollments;
     private final Department department;
-    public void setFullName(String fullName) {
-        this.fullName = fullName;
-    }
-    public void setEmail(String email) {
-        this.email = email;
-    }
+    // Running totals over graded enrollments so GPA reads are O(1).
+    // Enrollment state is guarded by this student's monitor, so each student is mutated serially.
+    private double qualityPoints;
+    private int gradedCredits;
+    // Ungraded credits per semester, kept in step with every enrollment and grade change so the
+    // credit cap is checked without walking the enrollment history. Semesters are canonical.
+    // Allocated on first use, like the enrollment array.
+    private Map<Semester, int[]> inProgressCredits;
+    private EnrollmentObserver enrollmentObserver;
+    // Set on the detached copies made by copy(), which are read-only: the grade and credits of
+    // each shared enrollment as of the copy (see EnrollmentMap.pack). Null on live students.
+    private final byte[] frozen;
 
     // Static nested class for Student builder
     public static class Builder {
@@ -52,58 +63,251 @@ public class Student extends Person {
         super(builder.id, builder.fullName, builder.email);
         this.regNo = builder.regNo;
         this.department = builder.department;
-        this.enrolledCourses = new HashMap<>();
+        this.frozen = null;
+    }
+
+    // Called under the source's monitor. The enrollment array is shared with the source; only
+    // the parts of an enrollment that can change later are captured.
+    private Student(Student source) {
+        super(source.id, source.fullName, source.email);
+        this.regNo = source.regNo;
+        this.department = source.department;
+        this.active = source.active;
+        restoreTimestamps(source.createdAt, source.updatedAt);
+        this.qualityPoints = source.qualityPoints;
+        this.gradedCredits = source.gradedCredits;
+        this.enrollments = source.enrollments;
+        this.frozen = EnrollmentMap.pack(enrollments);
+    }
+
+    // Point-in-time copy for snapshot readers: the same values and enrollments (pointing at the
+    // shared courses), but detached from the courses and observers. Its enrollments are read-only
+    // views created on access. Changing a copy in any way fails, since a copy may be shared by
+    // many readers and its enrollments with the live student.
+    public synchronized Student copy() {
+        return frozen != null ? this : new Student(this);
     }
 
+    public boolean isFrozen() { return frozen != null; }
+
     public void enrollInCourse(Course course, Semester semester) 
-        throws DuplicateEnrollmentException, MaxCreditLimitExceededException {
-        
-        if (enrolledCourses.containsKey(course)) {
+        throws DuplicateEnrollmentException, MaxCreditLimitExceededException, CourseFullException {
+        enrollInCourse(course, semester, DEFAULT_MAX_CREDITS);
+    }
+
+    public synchronized void enrollInCourse(Course course, Semester semester, int maxCredits)
+        throws DuplicateEnrollmentException, MaxCreditLimitExceededException, CourseFullException {
+        checkMutable();
+        if (EnrollmentMap.indexOf(enrollments, course) >= 0) {
             throw new DuplicateEnrollmentException(
                 "Student " + regNo + " is already enrolled in course " + course.getCode());
         }
 
-        if (getCurrentSemesterCredits(semester) + course.getCredits() > 18) {
+        if (getInProgressCredits(semester) + course.getCredits() > maxCredits) {
             throw new MaxCreditLimitExceededException(
-                "Credit limit exceeded for semester " + semester);
+                "Credit limit of " + maxCredits + " exceeded for semester " + semester);
+        }
+
+        if (!course.reserveSeat()) {
+            throw new CourseFullException("Course " + course.getCode() + " is full");
         }
 
         Enrollment enrollment = new Enrollment(this, course, semester);
-        enrolledCourses.put(course, enrollment);
+        enrollment.credits = course.getCredits();
+        enrollments = EnrollmentMap.with(enrollments, enrollment);
+        addInProgress(semester, enrollment.credits);
+        course.attach(enrollment, true);
+        // A credit change that missed the enrollment while it was being attached
+        reconcileCredits(enrollment);
+        if (enrollmentObserver != null) {
+            enrollmentObserver.enrollmentAdded(enrollment);
+        }
     }
 
-    public void unenrollFromCourse(Course course) {
-        enrolledCourses.remove(course);
+    // Re-creates a persisted enrollment without the duplicate, credit-limit and capacity checks
+    public synchronized void restoreEnrollment(Course course, Semester semester, Grade grade) {
+        checkMutable();
+        unenrollFromCourse(course);
+        Enrollment enrollment = new Enrollment(this, course, semester);
+        enrollment.credits = course.getCredits();
+        enrollments = EnrollmentMap.with(enrollments, enrollment);
+        addInProgress(semester, enrollment.credits);
+        course.attach(enrollment, false);
+        reconcileCredits(enrollment);
+        if (enrollmentObserver != null) {
+            enrollmentObserver.enrollmentAdded(enrollment);
+        }
+        if (grade != null) {
+            enrollment.recordGrade(grade);
+        }
     }
 
-    public void recordGrade(Course course, Grade grade) {
-        Enrollment enrollment = enrolledCourses.get(course);
-        if (enrollment != null) {
-            enrollment.recordGrade(grade);
+    public synchronized void unenrollFromCourse(Course course) {
+        checkMutable();
+        Enrollment[] current = enrollments;
+        int index = EnrollmentMap.indexOf(current, course);
+        if (index >= 0) {
+            Enrollment enrollment = current[index];
+            enrollments = EnrollmentMap.without(current, index);
+            course.detach(enrollment);
+            if (enrollment.getGrade() != null) {
+                applyGrade(enrollment.getGrade(), enrollment.credits, -1);
+            } else {
+                addInProgress(enrollment.getSemester(), -enrollment.credits);
+            }
+            if (enrollmentObserver != null) {
+                enrollmentObserver.enrollmentRemoved(enrollment);
+            }
         }
     }
 
+    // Takes over what belongs to the record this student replaces under the same id: its creation
+    // time and its enrollments. Each enrollment is detached from its course, which frees the seat,
+    // and re-created here with its grade, so seats and class lists follow the replacement. A course
+    // this student is already enrolled in keeps this student's enrollment.
+    public synchronized void takeOver(Student previous) {
+        checkMutable();
+        if (previous == this) return;
+        synchronized (previous) {
+            restoreTimestamps(previous.createdAt, updatedAt);
+            for (Enrollment enrollment : new ArrayList<>(previous.getEnrolledCourses().values())) {
+                Course course = enrollment.getCourse();
+                previous.unenrollFromCourse(course);
+                if (!getEnrolledCourses().containsKey(course)) {
+                    restoreEnrollment(course, enrollment.getSemester(), enrollment.getGrade());
+                }
+            }
+        }
+    }
+
+    // Hands the current enrollments over from the previous observer to the new one, so an
+    // observer attached after enrollments were restored still sees all of them
+    public synchronized void setEnrollmentObserver(EnrollmentObserver observer) {
+        checkMutable();
+        if (enrollmentObserver != null) {
+            enrollmentObserver.detached(getEnrolledCourses().values());
+        }
+        enrollmentObserver = observer;
+        if (observer != null) {
+            observer.attached(getEnrolledCourses().values());
+        }
+    }
+
+    public synchronized void recordGrade(Course course, Grade grade) {
+        checkMutable();
+        Enrollment[] current = enrollments;
+        int index = EnrollmentMap.indexOf(current, course);
+        if (index >= 0) {
+            current[index].recordGrade(grade);
+        }
+    }
+
+    // Copies never change, so reports ranking a snapshot read them without taking the monitor
     public double calculateGPA() {
-        if (enrolledCourses.isEmpty()) return 0.0;
+        if (frozen != null) {
+            return gradedCredits > 0 ? qualityPoints / gradedCredits : 0.0;
+        }
+        synchronized (this) {
+            return gradedCredits > 0 ? qualityPoints / gradedCredits : 0.0;
+        }
+    }
 
-        double totalPoints = 0.0;
-        int totalCredits = 0;
+    public int getGradedCredits() {
+        if (frozen != null) return gradedCredits;
+        synchronized (this) {
+            return gradedCredits;
+        }
+    }
 
-        for (Enrollment enrollment : enrolledCourses.values()) {
-            if (enrollment.getGrade() != null) {
-                totalPoints += enrollment.getGrade().getPoints() * enrollment.getCourse().getCredits();
-                totalCredits += enrollment.getCourse().getCredits();
-            }
+    // Called by Enrollment, under this student's monitor, whenever its grade is replaced. An
+    // enrollment the student no longer holds (e.g. one kept after dropping the course) no longer
+    // counts towards the totals.
+    void gradeChanged(Enrollment enrollment, Grade oldGrade) {
+        if (!holds(enrollment)) return;
+        int credits = enrollment.credits;
+        if (oldGrade != null) {
+            applyGrade(oldGrade, credits, -1);
+        } else {
+            addInProgress(enrollment.getSemester(), -credits);
+        }
+        if (enrollment.getGrade() != null) {
+            applyGrade(enrollment.getGrade(), credits, 1);
+        } else {
+            addInProgress(enrollment.getSemester(), credits);
+        }
+        if (enrollmentObserver != null) {
+            enrollmentObserver.gradeRecorded(enrollment, oldGrade);
+        }
+    }
+
+    // Called by Course when the credits of an enrolled course change. The observer hears about it
+    // after the monitor is released, so it can take its own locks (e.g. to republish the student).
+    void creditsChanged(Enrollment enrollment) {
+        EnrollmentObserver observer;
+        synchronized (this) {
+            if (!reconcileCredits(enrollment)) return;
+            observer = enrollmentObserver;
+        }
+        if (observer != null) {
+            observer.creditsChanged(enrollment);
+        }
+    }
+
+    // Moves the enrollment's share of the totals to the course's current credits. Returns false,
+    // changing nothing, when they already match or the enrollment has been dropped.
+    private boolean reconcileCredits(Enrollment enrollment) {
+        int credits = enrollment.getCourse().getCredits();
+        if (frozen != null || credits == enrollment.credits || !holds(enrollment)) return false;
+        Grade grade = enrollment.getGrade();
+        if (grade != null) {
+            applyGrade(grade, enrollment.credits, -1);
+            applyGrade(grade, credits, 1);
+        } else {
+            addInProgress(enrollment.getSemester(), credits - enrollment.credits);
         }
+        enrollment.credits = credits;
+        return true;
+    }
+
+    private boolean holds(Enrollment enrollment) {
+        Enrollment[] current = enrollments;
+        int index = EnrollmentMap.indexOf(current, enrollment.getCourse());
+        return index >= 0 && current[index] == enrollment;
+    }
 
-        return totalCredits > 0 ? totalPoints / totalCredits : 0.0;
+    @Override
+    void checkMutable() {
+        if (frozen != null) {
+            throw new UnsupportedOperationException("Student " + regNo + " is a read-only snapshot copy");
+        }
     }
 
-    private int getCurrentSemesterCredits(Semester semester) {
-        return enrolledCourses.values().stream()
-            .filter(e -> e.getSemester() == semester && e.getGrade() == null)
-            .mapToInt(e -> e.getCourse().getCredits())
-            .sum();
+    private void applyGrade(Grade grade, int credits, int sign) {
+        qualityPoints += sign * grade.getPoints() * credits;
+        gradedCredits += sign * credits;
+    }
+
+    private void addInProgress(Semester semester, int credits) {
+        if (inProgressCredits == null) {
+            inProgressCredits = new IdentityHashMap<>(4);
+        }
+        int[] total = inProgressCredits.computeIfAbsent(semester, key -> new int[1]);
+        total[0] += credits;
+        if (total[0] == 0) {
+            inProgressCredits.remove(semester);
+        }
+    }
+
+    // Credits of the ungraded enrollments in the semester, which is what the credit cap limits
+    public int getInProgressCredits(Semester semester) {
+        if (frozen != null) {
+            // Copies keep no running totals; they are summed from what the copy captured
+            return EnrollmentMap.inProgressCredits(enrollments, frozen, semester);
+        }
+        synchronized (this) {
+            int[] total = inProgressCredits == null ? null : inProgressCredits.get(semester);
+            return total == null ? 0 : total[0];
+        }
     }
 
     @Override
@@ -123,8 +327,10 @@ public class Student extends Person {
     // Getters
     public String getRegNo() { return regNo; }
     public Department getDepartment() { return department; }
+    // Read-only view of the enrollments at the time of the call, keyed by course identity
     public Map<Course, Enrollment> getEnrolledCourses() { 
-        return Collections.unmodifiableMap(enrolledCourses); 
+        Enrollment[] current = enrollments;
+        return current == null ? Collections.emptyMap() : new EnrollmentMap(this, current, frozen);
     }
 
     @Override
@@ -1,6 +1,8 @@
 package edu.ccrm.exception;
 
 public class MaxCreditLimitExceededException extends Exception {
+	private static final long serialVersionUID = 1L;
+
 	public MaxCreditLimitExceededException(String message) {
 		super(message);
 	}
@@ -0,0 +1,630 @@
+package edu.ccrm.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.CourseCode;
+import edu.ccrm.domain.Department;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exception.CourseFullException;
+import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.io.ImportReport;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.service.CourseFields;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.Criteria;
+import edu.ccrm.service.StudentFields;
+import edu.ccrm.service.StudentService;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Embedded HTTP/JSON API over the services, for portals and scripts, on the JDK's built-in
+// server. All routes are under /api:
+//   GET    /students?q=<term>&offset=&limit=     students matching every term, streamed
+//   GET    /students/count?q=<term>
+//   GET    /students/{regNo}                     one student with its enrollments
+//   POST   /students                             {id, regNo, fullName, email, department}
+//   PUT    /students/{regNo}                     {fullName, email}, either may be omitted
+//   DELETE /students/{regNo}                     deactivates the student
+//   GET    /courses?q=<term>, GET /courses/{code}, POST /courses {code, title, credits, capacity, department}
+//   GET    /courses/{code}/roster?semester=
+//   POST   /enrollments                          {regNo, course, semester}; enrolls or waitlists
+//   DELETE /enrollments/{regNo}/{course}
+//   PUT    /grades                               {regNo, course, grade}
+//   POST   /import/students, /import/enrollments[?atomic=true] with a CSV body
+//   GET    /export/students|courses|enrollments  CSV
+//   GET    /metrics, GET /health
+// Terms use the batch syntax, e.g. q=department%3DCOMPUTER_SCIENCE&q=gpa%3E%3D3.0.
+//
+// Requests run on virtual threads when the runtime has them (JDK 21+) and on a bounded pool
+// otherwise. Backpressure is per request: once maxInFlight requests are queued or running, new
+// ones are answered 503 with Retry-After by the dispatcher at once instead of queueing without bound.
+public class ApiServer {
+    public static final int MAX_JSON_BODY = 1 << 20;
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final int WRITE_BUFFER = 1 << 16;
+    // Set while the dispatcher thread runs a request it is rejecting
+    private static final ThreadLocal<Boolean> SHEDDING = new ThreadLocal<>();
+
+    static {
+        // Chunked responses end in small writes that Nagle holds back for the client's delayed ACK,
+        // adding ~40ms to every request; the JDK server reads this once, when it is first created
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    // Maps to an HTTP status other than 400 and 500
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface JsonBody {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final ImportExportService ioService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Metrics metrics = Metrics.getInstance();
+
+    public ApiServer(StudentService studentService, CourseService courseService, ImportExportService ioService,
+                     InetSocketAddress address, int threads, int maxInFlight) throws IOException {
+        this.studentService = studentService;
+        this.courseService = courseService;
+        this.ioService = ioService;
+        this.maxInFlight = maxInFlight;
+        this.executor = requestExecutor(threads);
+        this.server = HttpServer.create(address, maxInFlight);
+        server.createContext("/api/", this::handle);
+        server.setExecutor(task -> {
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                // Over the limit: answer 503 right here on the dispatcher thread, which is cheap,
+                // rather than queueing behind the requests being served
+                inFlight.decrementAndGet();
+                SHEDDING.set(Boolean.TRUE);
+                try {
+                    task.run();
+                } finally {
+                    SHEDDING.remove();
+                }
+                return;
+            }
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        });
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // Stops accepting connections and gives running requests up to delaySeconds to finish
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    // One virtual thread per request when the runtime has them, else a fixed pool of daemon threads
+    static ExecutorService requestExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory factory = task -> {
+                Thread thread = new Thread(task, "ccrm-http-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newFixedThreadPool(threads, factory);
+        }
+    }
+
+    private void handle(HttpExchange exchange) {
+        long start = System.nanoTime();
+        try {
+            if (SHEDDING.get() != null) {
+                metrics.increment(Metrics.Counter.HTTP_REJECTED);
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                throw new ApiException(503, "Server busy, retry later");
+            }
+            route(exchange);
+        } catch (ApiException e) {
+            error(exchange, e.status, e.getMessage());
+        } catch (DuplicateEnrollmentException | CourseFullException e) {
+            error(exchange, 409, e.getMessage());
+        } catch (MaxCreditLimitExceededException e) {
+            error(exchange, 422, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            error(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            error(exchange, 500, e.toString());
+        } finally {
+            exchange.close();
+            metrics.record(Metrics.Operation.HTTP, start);
+        }
+    }
+
+    private void route(HttpExchange exchange) throws Exception {
+        String method = exchange.getRequestMethod();
+        List<String> path = segments(exchange);
+        Map<String, List<String>> query = query(exchange);
+        String resource = path.isEmpty() ? "" : path.get(0);
+        switch (resource) {
+            case "students" :
+                students(exchange, method, path, query);
+                break;
+            case "courses" :
+                courses(exchange, method, path, query);
+                break;
+            case "enrollments" :
+                enrollments(exchange, method, path);
+                break;
+            case "grades" :
+                allow(method, "PUT");
+                grade(exchange);
+                break;
+            case "import" :
+                allow(method, "POST");
+                importCsv(exchange, path, query);
+                break;
+            case "export" :
+                allow(method, "GET");
+                exportCsv(exchange, path);
+                break;
+            case "metrics" :
+                allow(method, "GET");
+                metrics(exchange);
+                break;
+            case "health" :
+                allow(method, "GET");
+                json(exchange, 200, json -> json.beginObject().field("status", "ok").endObject());
+                break;
+            default :
+                throw new ApiException(404, "No such resource: " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    private void students(HttpExchange exchange, String method, List<String> path, Map<String, List<String>> query)
+        throws IOException {
+        if (path.size() == 1) {
+            if (method.equals("POST")) {
+                addStudent(exchange);
+                return;
+            }
+            allow(method, "GET");
+            List<Student> students = query.containsKey("q")
+                ? studentService.search(Criteria.parse(StudentFields.ALL, query.get("q")))
+                : studentService.findAll();
+            list(exchange, query, students, (json, student) -> writeStudent(json, student, false));
+            return;
+        }
+        if (path.size() == 2 && path.get(1).equals("count")) {
+            allow(method, "GET");
+            long count = query.containsKey("q")
+                ? studentService.count(Criteria.parse(StudentFields.ALL, query.get("q")))
+                : studentService.findAll().size();
+            json(exchange, 200, json -> json.beginObject().field("count", count).endObject());
+            return;
+        }
+        if (path.size() != 2) {
+            throw new ApiException(404, "No such resource: " + exchange.getRequestURI().getPath());
+        }
+        Student student = student(path.get(1));
+        switch (method) {
+            case "GET" :
+                json(exchange, 200, json -> writeStudent(json, student, true));
+                break;
+            case "PUT" :
+                Map<String, Object> body = body(exchange);
+                studentService.updateStudent(student, optional(body, "fullName"), optional(body, "email"));
+                json(exchange, 200, json -> writeStudent(json, student, false));
+                break;
+            case "DELETE" :
+                studentService.deactivateStudent(student.getId());
+                json(exchange, 200, json -> writeStudent(json, student, false));
+                break;
+            default :
+                throw new ApiException(405, "Method not allowed: " + method);
+        }
+    }
+
+    private void addStudent(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = body(exchange);
+        Student student = new Student.Builder(required(body, "id"), required(body, "regNo"))
+            .fullName(required(body, "fullName"))
+            .email(required(body, "email"))
+            .department(Department.valueOf(required(body, "department").trim().toUpperCase()))
+            .build();
+        studentService.addStudent(student);
+        json(exchange, 201, json -> writeStudent(json, student, false));
+    }
+
+    private void courses(HttpExchange exchange, String method, List<String> path, Map<String, List<String>> query)
+        throws IOException {
+        if (path.size() == 1) {
+            if (method.equals("POST")) {
+                addCourse(exchange);
+                return;
+            }
+            allow(method, "GET");
+            List<Course> courses = query.containsKey("q")
+                ? courseService.search(Criteria.parse(CourseFields.ALL, query.get("q")))
+                : courseService.findAll();
+            list(exchange, query, courses, this::writeCourse);
+            return;
+        }
+        allow(method, "GET");
+        Course course = course(path.get(1));
+        if (path.size() == 2) {
+            json(exchange, 200, json -> writeCourse(json, course));
+        } else if (path.size() == 3 && path.get(2).equals("roster")) {
+            Semester semester = Semester.valueOf(required(query, "semester"));
+            List<Enrollment> roster = studentService.getClassList(course, semester);
+            list(exchange, query, roster, (json, enrollment) -> json.beginObject()
+                .field("regNo", enrollment.getStudent().getRegNo())
+                .field("fullName", enrollment.getStudent().getFullName())
+                .field("grade", enrollment.getGrade())
+                .endObject());
+        } else {
+            throw new ApiException(404, "No such resource: " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    private void addCourse(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = body(exchange);
+        Course.Builder builder = new Course.Builder(CourseCode.parse(required(body, "code")))
+            .title(required(body, "title"))
+            .credits(number(body, "credits"))
+            .department(Department.valueOf(required(body, "department").trim().toUpperCase()));
+        if (body.get("capacity") != null) {
+            builder.capacity(number(body, "capacity"));
+        }
+        Course course = builder.build();
+        courseService.addCourse(course);
+        // An existing code is updated in place, so the response shows the catalog's course
+        Course stored = courseService.findByCode(course.getCode());
+        json(exchange, 201, json -> writeCourse(json, stored));
+    }
+
+    private void enrollments(HttpExchange exchange, String method, List<String> path) throws Exception {
+        if (path.size() == 1) {
+            allow(method, "POST");
+            Map<String, Object> body = body(exchange);
+            Student student = student(required(body, "regNo"));
+            Course course = course(required(body, "course"));
+            int position = studentService.enrollOrWaitlist(student.getId(), course,
+                Semester.valueOf(required(body, "semester")));
+            json(exchange, position == 0 ? 201 : 202, json -> {
+                json.beginObject().field("status", position == 0 ? "enrolled" : "waitlisted");
+                if (position > 0) json.field("position", position);
+                json.endObject();
+            });
+        } else if (path.size() == 3) {
+            allow(method, "DELETE");
+            Student student = student(path.get(1));
+            Course course = course(path.get(2));
+            if (!student.getEnrolledCourses().containsKey(course)) {
+                throw new ApiException(404, student.getRegNo() + " is not enrolled in " + course.getCode());
+            }
+            studentService.unenrollStudent(student.getId(), course);
+            json(exchange, 200, json -> json.beginObject().field("status", "unenrolled").endObject());
+        } else {
+            throw new ApiException(404, "No such resource: " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    private void grade(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = body(exchange);
+        Student student = student(required(body, "regNo"));
+        Course course = course(required(body, "course"));
+        Grade grade = Grade.valueOf(required(body, "grade").trim().toUpperCase());
+        if (!student.getEnrolledCourses().containsKey(course)) {
+            throw new ApiException(404, student.getRegNo() + " is not enrolled in " + course.getCode());
+        }
+        studentService.recordGrade(student.getId(), course, grade);
+        json(exchange, 200, json -> writeStudent(json, student, true));
+    }
+
+    // The CSV body is spooled to a temp file, which the streaming importers read in chunks
+    private void importCsv(HttpExchange exchange, List<String> path, Map<String, List<String>> query) throws Exception {
+        String kind = path.size() == 2 ? path.get(1) : "";
+        if (!kind.equals("students") && !kind.equals("enrollments")) {
+            throw new ApiException(404, "No such import: " + kind);
+        }
+        Path upload = Files.createTempFile("ccrm-import", ".csv");
+        try {
+            try (InputStream in = exchange.getRequestBody()) {
+                Files.copy(in, upload, StandardCopyOption.REPLACE_EXISTING);
+            }
+            ImportReport report = kind.equals("students")
+                ? ioService.importStudents(upload, studentService)
+                : ioService.importEnrollments(upload, studentService, courseService,
+                    "true".equalsIgnoreCase(optional(query, "atomic")));
+            json(exchange, 200, json -> {
+                json.beginObject()
+                    .field("rows", report.getRowsRead())
+                    .field("imported", report.getImported())
+                    .field("rejected", report.getRejected())
+                    .name("rejects").beginArray();
+                for (ImportReport.Reject reject : report.getRejects()) {
+                    json.beginObject()
+                        .field("line", reject.getLine())
+                        .field("field", reject.getField())
+                        .field("reason", reject.getReason())
+                        .endObject();
+                }
+                json.endArray().endObject();
+            });
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    private void exportCsv(HttpExchange exchange, List<String> path) throws IOException {
+        String kind = path.size() == 2 ? path.get(1) : "";
+        Path file = Files.createTempFile("ccrm-export", ".csv");
+        try {
+            switch (kind) {
+                case "students" : ioService.exportStudents(studentService.snapshot().stream(), file); break;
+                case "courses" : ioService.exportCourses(courseService.snapshot().stream(), file); break;
+                case "enrollments" : ioService.exportEnrollments(studentService.snapshot().stream(), file); break;
+                default : throw new ApiException(404, "No such export: " + kind);
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/csv; charset=utf-8");
+            exchange.sendResponseHeaders(200, Files.size(file));
+            try (OutputStream out = exchange.getResponseBody()) {
+                Files.copy(file, out);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        json(exchange, 200, json -> {
+            json.beginObject().name("operations").beginArray();
+            for (Metrics.OperationStats stats : metrics.getOperations()) {
+                json.beginObject()
+                    .field("name", stats.getName())
+                    .field("count", stats.getCount())
+                    .field("timedCount", stats.getTimedCount())
+                    .field("meanNanos", stats.getMeanNanos())
+                    .field("p50Nanos", stats.getP50Nanos())
+                    .field("p90Nanos", stats.getP90Nanos())
+                    .field("p99Nanos", stats.getP99Nanos())
+                    .field("p999Nanos", stats.getP999Nanos())
+                    .field("maxNanos", stats.getMaxNanos())
+                    .endObject();
+            }
+            json.endArray().name("counters").beginObject();
+            for (Map.Entry<String, Long> counter : metrics.getCounters().entrySet()) {
+                json.field(counter.getKey(), (long) counter.getValue());
+            }
+            json.endObject().endObject();
+        });
+    }
+
+    private interface ItemWriter<T> {
+        void write(JsonWriter json, T item) throws IOException;
+    }
+
+    // Writes the slice of items given by offset and limit as a JSON array, item by item
+    private <T> void list(HttpExchange exchange, Map<String, List<String>> query, List<T> items, ItemWriter<T> item)
+        throws IOException {
+        int offset = Math.max(0, intParam(query, "offset", 0));
+        int limit = Math.max(0, intParam(query, "limit", Integer.MAX_VALUE));
+        int end = (int) Math.min(items.size(), (long) offset + limit);
+        exchange.getResponseHeaders().set("X-Total-Count", Integer.toString(items.size()));
+        json(exchange, 200, json -> {
+            json.beginArray();
+            for (int i = offset; i < end; i++) {
+                item.write(json, items.get(i));
+            }
+            json.endArray();
+        });
+    }
+
+    private void writeStudent(JsonWriter json, Student student, boolean withEnrollments) throws IOException {
+        json.beginObject()
+            .field("id", student.getId())
+            .field("regNo", student.getRegNo())
+            .field("fullName", student.getFullName())
+            .field("email", student.getEmail())
+            .field("department", student.getDepartment())
+            .field("active", student.isActive())
+            .field("gpa", student.calculateGPA())
+            .field("gradedCredits", student.getGradedCredits());
+        if (withEnrollments) {
+            json.name("enrollments").beginArray();
+            for (Enrollment enrollment : student.getEnrolledCourses().values()) {
+                json.beginObject()
+                    .field("course", enrollment.getCourse().getCode())
+                    .field("semester", enrollment.getSemester())
+                    .field("grade", enrollment.getGrade())
+                    .endObject();
+            }
+            json.endArray();
+        }
+        json.endObject();
+    }
+
+    private void writeCourse(JsonWriter json, Course course) throws IOException {
+        json.beginObject()
+            .field("code", course.getCode())
+            .field("title", course.getTitle())
+            .field("credits", course.getCredits())
+            .field("department", course.getDepartment())
+            .field("instructor", course.getInstructor() == null ? null : course.getInstructor().getFullName())
+            .field("capacity", course.getCapacity())
+            .field("seatsTaken", course.getSeatsTaken())
+            .field("availableSeats", course.getAvailableSeats())
+            .field("waitlist", course.getWaitlistSize())
+            .field("active", course.isActive())
+            .endObject();
+    }
+
+    // Sends the status and streams the body through a buffered writer; the body is chunked, so
+    // nothing is held in memory beyond the write buffer
+    private void json(HttpExchange exchange, int status, JsonBody body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, 0);
+        BufferedWriter out = new BufferedWriter(
+            new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), WRITE_BUFFER);
+        JsonWriter json = new JsonWriter(out);
+        body.write(json);
+        json.flush();
+    }
+
+    private void error(HttpExchange exchange, int status, String message) {
+        // Once a streamed response has started its status can no longer change; the truncated
+        // body is all the client will see
+        if (exchange.getResponseCode() != -1) return;
+        try {
+            json(exchange, status, json -> json.beginObject().field("error", message).endObject());
+        } catch (IOException e) {
+            // The client has gone away
+        }
+    }
+
+    private Student student(String regNo) {
+        Student student = studentService.findByRegNo(regNo);
+        if (student == null) {
+            throw new ApiException(404, "Student not found: " + regNo);
+        }
+        return student;
+    }
+
+    private Course course(String code) {
+        Course course = courseService.findByCode(code);
+        if (course == null) {
+            throw new ApiException(404, "Course not found: " + code);
+        }
+        return course;
+    }
+
+    private static void allow(String method, String allowed) {
+        if (!method.equals(allowed)) {
+            throw new ApiException(405, "Method not allowed: " + method);
+        }
+    }
+
+    private static Map<String, Object> body(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                if (bytes.size() + read > MAX_JSON_BODY) {
+                    throw new ApiException(413, "Request body exceeds " + MAX_JSON_BODY + " bytes");
+                }
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return JsonReader.parseObject(bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    private static String required(Map<String, ?> values, String name) {
+        String value = optional(values, name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return value;
+    }
+
+    // Query parameters arrive as lists; the first value is used
+    private static String optional(Map<String, ?> values, String name) {
+        Object value = values.get(name);
+        if (value instanceof List) {
+            value = ((List<?>) value).isEmpty() ? null : ((List<?>) value).get(0);
+        }
+        return value == null ? null : value.toString();
+    }
+
+    private static int number(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (value instanceof Long) {
+            return Math.toIntExact((Long) value);
+        }
+        return Integer.parseInt(required(body, name));
+    }
+
+    private static int intParam(Map<String, List<String>> query, String name, int defaultValue) {
+        String value = optional(query, name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static List<String> segments(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath().substring("/api".length());
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) segments.add(segment);
+        }
+        return segments;
+    }
+
+    private static Map<String, List<String>> query(HttpExchange exchange) {
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) return Collections.emptyMap();
+        Map<String, List<String>> query = new LinkedHashMap<>();
+        for (String pair : raw.split("&")) {
+            if (pair.isEmpty()) continue;
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            query.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+        return query;
+    }
+}
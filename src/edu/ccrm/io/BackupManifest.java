@@ -0,0 +1,115 @@
+package edu.ccrm.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Describes one incremental backup: the files it contains, the chunks each file is made of,
+// and cached size totals so the backup size never requires walking the chunk store.
+public class BackupManifest {
+    public static final String FILE_NAME = "manifest.txt";
+    private static final String HEADER = "# ccrm backup manifest v1";
+
+    public static final class FileEntry {
+        private final String path;
+        private final long size;
+        private final List<String> chunks;
+
+        public FileEntry(String path, long size, List<String> chunks) {
+            this.path = path;
+            this.size = size;
+            this.chunks = Collections.unmodifiableList(new ArrayList<>(chunks));
+        }
+
+        public String getPath() { return path; }
+        public long getSize() { return size; }
+        public List<String> getChunks() { return chunks; }
+    }
+
+    private final String id;
+    private final LocalDateTime created;
+    private final List<FileEntry> files;
+    private final long totalBytes;
+    private final long newBytes;
+
+    public BackupManifest(String id, LocalDateTime created, List<FileEntry> files, long newBytes) {
+        this.id = id;
+        this.created = created;
+        this.files = Collections.unmodifiableList(new ArrayList<>(files));
+        this.totalBytes = files.stream().mapToLong(FileEntry::getSize).sum();
+        this.newBytes = newBytes;
+    }
+
+    public String getId() { return id; }
+    public LocalDateTime getCreated() { return created; }
+    public List<FileEntry> getFiles() { return files; }
+    // Logical size of the backed-up files
+    public long getTotalBytes() { return totalBytes; }
+    // Bytes of chunks this backup added to the store
+    public long getNewBytes() { return newBytes; }
+
+    public void write(Path directory) throws IOException {
+        Path temp = directory.resolve(FILE_NAME + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write(HEADER + "\n");
+            out.write("created=" + created + "\n");
+            out.write("totalBytes=" + totalBytes + "\n");
+            out.write("newBytes=" + newBytes + "\n");
+            for (FileEntry file : files) {
+                out.write("file\t" + file.getPath() + "\t" + file.getSize() + "\t"
+                    + String.join(",", file.getChunks()) + "\n");
+            }
+        }
+        Files.move(temp, directory.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static boolean exists(Path directory) {
+        return Files.isRegularFile(directory.resolve(FILE_NAME));
+    }
+
+    public static BackupManifest read(Path directory) throws IOException {
+        LocalDateTime created = null;
+        long newBytes = 0;
+        List<FileEntry> files = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(directory.resolve(FILE_NAME), StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(in.readLine())) {
+                throw new IOException("Unsupported backup manifest: " + directory);
+            }
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                if (line.startsWith("created=")) {
+                    created = LocalDateTime.parse(line.substring("created=".length()));
+                } else if (line.startsWith("newBytes=")) {
+                    newBytes = Long.parseLong(line.substring("newBytes=".length()));
+                } else if (line.startsWith("file\t")) {
+                    String[] fields = line.split("\t", -1);
+                    List<String> chunks = fields[3].isEmpty()
+                        ? Collections.emptyList()
+                        : Arrays.asList(fields[3].split(","));
+                    files.add(new FileEntry(fields[1], Long.parseLong(fields[2]), chunks));
+                }
+            }
+        }
+        return new BackupManifest(directory.getFileName().toString(), created, files, newBytes);
+    }
+
+    // Cached total from the manifest header, without parsing the file list
+    public static long readTotalBytes(Path directory) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(directory.resolve(FILE_NAME), StandardCharsets.UTF_8)) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                if (line.startsWith("totalBytes=")) {
+                    return Long.parseLong(line.substring("totalBytes=".length()));
+                }
+            }
+        }
+        throw new IOException("Backup manifest has no size: " + directory);
+    }
+}
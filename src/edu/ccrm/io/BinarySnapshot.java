@@ -0,0 +1,268 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Versioned binary image of the Student/Course/Enrollment graph, loaded with one read into a
+// heap buffer. It is not memory-mapped: a mapping outlives the channel until it is garbage
+// collected, and on Windows the checkpoint could not replace a file that is still mapped.
+//
+// Layout (big-endian):
+//   header    magic "CCRS", short version, long first WAL segment to replay
+//   strings   int count, then [int byteLength][UTF-8 bytes]; every string is stored once
+//   semesters int count, then [int name][short year]
+//   courses   int count, then [int packed code | -1 int prefix int number][int title][byte credits]
+//             [byte department][int instructor id | -1, int name, int department][byte active]
+//             [int capacity] (version 3+)
+//   students  int count, then [int id][int regNo][int name][int email][byte department][byte active]
+//             [int enrollments] x [int course][int semester][byte grade]
+//   trailer   long CRC32 of everything above
+// String fields hold string-table indexes; enums are stored as ordinals with -1 for null.
+public final class BinarySnapshot {
+    public static final int MAGIC = 0x43435253;
+    public static final short VERSION = 3;
+
+    private BinarySnapshot() { }
+
+    public static void write(Path file, long firstSegment, Collection<Course> courses,
+                             Collection<Student> students) throws IOException {
+        Map<String, Integer> strings = new HashMap<>();
+        List<String> stringTable = new ArrayList<>();
+        Map<Semester, Integer> semesterIndex = new IdentityHashMap<>();
+        List<Semester> semesters = new ArrayList<>();
+        Map<Course, Integer> courseIndex = new IdentityHashMap<>();
+
+        for (Course course : courses) {
+            courseIndex.put(course, courseIndex.size());
+            intern(strings, stringTable, course.getTitle());
+            if (course.getCode().pack() < 0) {
+                intern(strings, stringTable, course.getCode().getDepartmentCode());
+            }
+            Instructor instructor = course.getInstructor();
+            if (instructor != null) {
+                intern(strings, stringTable, instructor.getId());
+                intern(strings, stringTable, instructor.getFullName());
+                intern(strings, stringTable, instructor.getDepartment());
+            }
+        }
+        for (Student student : students) {
+            intern(strings, stringTable, student.getId());
+            intern(strings, stringTable, student.getRegNo());
+            intern(strings, stringTable, student.getFullName());
+            intern(strings, stringTable, student.getEmail());
+            for (Enrollment enrollment : student.getEnrolledCourses().values()) {
+                Semester semester = enrollment.getSemester();
+                if (semesterIndex.putIfAbsent(semester, semesters.size()) == null) {
+                    semesters.add(semester);
+                    intern(strings, stringTable, semester.getName());
+                }
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            BufferedOutputStream buffered = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(buffered, crc));
+
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(firstSegment);
+
+            out.writeInt(stringTable.size());
+            for (String value : stringTable) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(semesters.size());
+            for (Semester semester : semesters) {
+                out.writeInt(strings.get(semester.getName()));
+                out.writeShort(semester.getYear());
+            }
+
+            out.writeInt(courses.size());
+            for (Course course : courses) {
+                CourseCode code = course.getCode();
+                int packed = code.pack();
+                out.writeInt(packed);
+                if (packed < 0) {
+                    out.writeInt(strings.get(code.getDepartmentCode()));
+                    out.writeInt(code.getCourseNumber());
+                }
+                out.writeInt(strings.get(course.getTitle()));
+                out.writeByte(course.getCredits());
+                out.writeByte(ordinal(course.getDepartment()));
+                Instructor instructor = course.getInstructor();
+                if (instructor == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(strings.get(instructor.getId()));
+                    out.writeInt(strings.get(instructor.getFullName()));
+                    out.writeInt(strings.get(instructor.getDepartment()));
+                }
+                out.writeBoolean(course.isActive());
+                out.writeInt(course.getCapacity());
+            }
+
+            out.writeInt(students.size());
+            for (Student student : students) {
+                out.writeInt(strings.get(student.getId()));
+                out.writeInt(strings.get(student.getRegNo()));
+                out.writeInt(strings.get(student.getFullName()));
+                out.writeInt(strings.get(student.getEmail()));
+                out.writeByte(ordinal(student.getDepartment()));
+                out.writeBoolean(student.isActive());
+                // Enrollments in courses that were deleted from the catalog are not kept
+                List<Enrollment> enrollments = new ArrayList<>(student.getEnrolledCourses().values());
+                enrollments.removeIf(enrollment -> !courseIndex.containsKey(enrollment.getCourse()));
+                out.writeInt(enrollments.size());
+                for (Enrollment enrollment : enrollments) {
+                    out.writeInt(courseIndex.get(enrollment.getCourse()));
+                    out.writeInt(semesterIndex.get(enrollment.getSemester()));
+                    out.writeByte(ordinal(enrollment.getGrade()));
+                }
+            }
+
+            out.flush();
+            new DataOutputStream(buffered).writeLong(crc.getValue());
+            buffered.flush();
+            channel.force(true);
+        }
+    }
+
+    // Loads the snapshot into the (empty) services and returns the first WAL segment to replay
+    public static long load(Path file, StudentService studentService, CourseService courseService)
+        throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 22 || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid snapshot size " + size + ": " + file);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Snapshot truncated while reading: " + file);
+                }
+            }
+            buffer.flip();
+
+            ByteBuffer body = buffer.duplicate();
+            body.limit((int) size - 8);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if (crc.getValue() != buffer.getLong((int) size - 8)) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Unsupported snapshot format: " + file);
+            }
+            short version = buffer.getShort();
+            if (version < 2 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+            long firstSegment = buffer.getLong();
+
+            String[] strings = new String[buffer.getInt()];
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < strings.length; i++) {
+                int length = buffer.getInt();
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                buffer.get(scratch, 0, length);
+                strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+
+            Semester[] semesters = new Semester[buffer.getInt()];
+            for (int i = 0; i < semesters.length; i++) {
+                semesters[i] = Semester.of(strings[buffer.getInt()], buffer.getShort());
+            }
+
+            Department[] departments = Department.values();
+            Course[] courses = new Course[buffer.getInt()];
+            for (int i = 0; i < courses.length; i++) {
+                int packed = buffer.getInt();
+                CourseCode code = packed >= 0
+                    ? CourseCode.unpack(packed)
+                    : CourseCode.of(strings[buffer.getInt()], buffer.getInt());
+                String title = strings[buffer.getInt()];
+                int credits = buffer.get();
+                Department department = enumAt(departments, buffer.get());
+                int instructorId = buffer.getInt();
+                Instructor instructor = instructorId < 0 ? null
+                    : new Instructor(strings[instructorId], strings[buffer.getInt()], strings[buffer.getInt()]);
+                Course course = new Course.Builder(code)
+                    .title(title)
+                    .credits(credits)
+                    .department(department)
+                    .instructor(instructor)
+                    .build();
+                course.setActive(buffer.get() != 0);
+                if (version >= 3) {
+                    course.setCapacity(buffer.getInt());
+                }
+                courseService.addCourse(course);
+                courses[i] = course;
+            }
+
+            Grade[] grades = Grade.values();
+            int studentCount = buffer.getInt();
+            List<Student> students = new ArrayList<>(studentCount);
+            for (int i = 0; i < studentCount; i++) {
+                Student student = new Student.Builder(strings[buffer.getInt()], strings[buffer.getInt()])
+                    .fullName(strings[buffer.getInt()])
+                    .email(strings[buffer.getInt()])
+                    .department(enumAt(departments, buffer.get()))
+                    .build();
+                boolean active = buffer.get() != 0;
+                for (int e = buffer.getInt(); e > 0; e--) {
+                    Course course = courses[buffer.getInt()];
+                    Semester semester = semesters[buffer.getInt()];
+                    student.restoreEnrollment(course, semester, enumAt(grades, buffer.get()));
+                }
+                if (!active) {
+                    student.setActive(false);
+                }
+                students.add(student);
+            }
+            studentService.addStudents(students);
+            return firstSegment;
+        }
+    }
+
+    private static void intern(Map<String, Integer> strings, List<String> table, String value) {
+        if (strings.putIfAbsent(value, table.size()) == null) {
+            table.add(value);
+        }
+    }
+
+    private static int ordinal(Enum<?> value) {
+        return value == null ? -1 : value.ordinal();
+    }
+
+    private static <E> E enumAt(E[] values, byte ordinal) {
+        return ordinal < 0 ? null : values[ordinal];
+    }
+}
@@ -0,0 +1,111 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Set;
+
+// Content-addressed store of backup chunks: each chunk is saved once as chunks/<aa>/<sha-256>
+// and shared by every backup that contains the same bytes.
+public class ChunkStore {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path root;
+
+    public ChunkStore(Path root) {
+        this.root = root;
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static String hash(MessageDigest digest, byte[] data, int length) {
+        digest.reset();
+        digest.update(data, 0, length);
+        byte[] bytes = digest.digest();
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    // Stores the chunk unless it is already present; returns true when new bytes were written
+    public boolean put(String hash, byte[] data, int length) throws IOException {
+        Path file = pathOf(hash);
+        if (Files.exists(file)) return false;
+
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), hash, ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                out.write(data, 0, length);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                // Without REPLACE_EXISTING a concurrently stored chunk still fails the move below
+                Files.move(temp, file);
+            }
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            // Another backup stored the same chunk concurrently
+            return false;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Reads a chunk and verifies it against its hash
+    public byte[] get(String hash, MessageDigest digest) throws IOException {
+        byte[] data = Files.readAllBytes(pathOf(hash));
+        if (!hash.equals(hash(digest, data, data.length))) {
+            throw new IOException("Corrupt backup chunk: " + hash);
+        }
+        return data;
+    }
+
+    public Set<String> listAll() throws IOException {
+        Set<String> hashes = new HashSet<>();
+        if (!Files.isDirectory(root)) return hashes;
+        try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path prefix : prefixes) {
+                try (DirectoryStream<Path> chunks = Files.newDirectoryStream(prefix)) {
+                    for (Path chunk : chunks) {
+                        String name = chunk.getFileName().toString();
+                        if (!name.endsWith(".tmp")) {
+                            hashes.add(name);
+                        }
+                    }
+                }
+            }
+        }
+        return hashes;
+    }
+
+    public long size(String hash) throws IOException {
+        return Files.size(pathOf(hash));
+    }
+
+    public void delete(String hash) throws IOException {
+        Files.deleteIfExists(pathOf(hash));
+    }
+
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+}
@@ -0,0 +1,212 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+// Reads a CSV file as memory-mapped, record-aligned chunks that are parsed in parallel
+// and handed to a sink in file order, so large extracts never sit fully in memory.
+public class CsvChunkReader {
+    public static final long DEFAULT_CHUNK_BYTES = 4L << 20;
+    private static final long SCAN_WINDOW = 64L << 20;
+
+    public interface RowParser<R> {
+        // Returns the parsed row, or null after recording a reject on the report
+        R parse(CsvTokenizer row, int line, ImportReport report);
+    }
+
+    // Rows parsed from one chunk, with their source line numbers and rejects
+    public static final class Rows<R> {
+        private final List<R> items = new ArrayList<>();
+        private int[] lines = new int[64];
+        private final ImportReport report = new ImportReport();
+
+        void add(R item, int line) {
+            if (items.size() == lines.length) {
+                lines = Arrays.copyOf(lines, lines.length * 2);
+            }
+            lines[items.size()] = line;
+            items.add(item);
+        }
+
+        public List<R> items() { return Collections.unmodifiableList(items); }
+        public int lineAt(int index) { return lines[index]; }
+        public ImportReport report() { return report; }
+    }
+
+    private static final class Chunk {
+        final long start;
+        final long end;
+        final int firstLine;
+
+        Chunk(long start, long end, int firstLine) {
+            this.start = start;
+            this.end = end;
+            this.firstLine = firstLine;
+        }
+    }
+
+    private final Path file;
+    private final long chunkBytes;
+    private final ForkJoinPool pool;
+    private List<Chunk> chunks;
+    private String[] header;
+
+    public CsvChunkReader(Path file) {
+        this(file, DEFAULT_CHUNK_BYTES, ForkJoinPool.commonPool());
+    }
+
+    public CsvChunkReader(Path file, long chunkBytes, ForkJoinPool pool) {
+        this.file = file;
+        this.chunkBytes = chunkBytes;
+        this.pool = pool;
+    }
+
+    public String[] getHeader() throws IOException {
+        if (header == null) {
+            scan();
+        }
+        return header.clone();
+    }
+
+    public <R> void read(int maxFields, RowParser<R> parser, Consumer<Rows<R>> sink) throws IOException {
+        if (header == null) {
+            scan();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+            ArrayDeque<CompletableFuture<Rows<R>>> pending = new ArrayDeque<>();
+            for (Chunk chunk : chunks) {
+                if (pending.size() >= maxInFlight) {
+                    sink.accept(await(pending.poll()));
+                }
+                pending.add(CompletableFuture.supplyAsync(
+                    () -> parseChunk(channel, chunk, maxFields, parser), pool));
+            }
+            while (!pending.isEmpty()) {
+                sink.accept(await(pending.poll()));
+            }
+        }
+    }
+
+    private <R> Rows<R> parseChunk(FileChannel channel, Chunk chunk, int maxFields, RowParser<R> parser) {
+        Rows<R> rows = new Rows<>();
+        CsvTokenizer tokenizer = new CsvTokenizer(maxFields);
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int limit = buffer.limit();
+        int pos = 0;
+        int line = chunk.firstLine;
+        while (pos < limit) {
+            pos = tokenizer.next(buffer, pos, limit);
+            int recordLine = line;
+            line += 1 + tokenizer.lineBreaks();
+            if (tokenizer.isBlank()) continue;
+
+            rows.report.rowRead();
+            if (tokenizer.error() != null) {
+                rows.report.reject(recordLine, null, tokenizer.error());
+                continue;
+            }
+            R item = parser.parse(tokenizer, recordLine, rows.report);
+            if (item != null) {
+                rows.add(item, recordLine);
+            }
+        }
+        return rows;
+    }
+
+    // One sequential quote-aware pass that finds the header and record-aligned chunk boundaries
+    private void scan() throws IOException {
+        List<Chunk> found = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                throw new IOException("CSV file is empty: " + file);
+            }
+
+            boolean inQuotes = false;
+            int line = 1;
+            long headerEnd = -1;
+            long chunkStart = -1;
+            int chunkLine = 0;
+            for (long pos = 0; pos < size; pos += SCAN_WINDOW) {
+                long windowLength = Math.min(SCAN_WINDOW, size - pos);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, windowLength);
+                for (int i = 0; i < windowLength; i++) {
+                    byte b = buffer.get(i);
+                    if (b == '"') {
+                        inQuotes = !inQuotes;
+                    } else if (b == '\n') {
+                        line++;
+                        if (inQuotes) continue;
+                        long recordEnd = pos + i + 1;
+                        if (headerEnd < 0) {
+                            headerEnd = recordEnd;
+                            chunkStart = recordEnd;
+                            chunkLine = line;
+                        } else if (recordEnd - chunkStart >= chunkBytes) {
+                            found.add(new Chunk(chunkStart, recordEnd, chunkLine));
+                            chunkStart = recordEnd;
+                            chunkLine = line;
+                        }
+                    }
+                }
+            }
+            if (headerEnd < 0) {
+                headerEnd = size;
+            } else if (chunkStart < size) {
+                found.add(new Chunk(chunkStart, size, chunkLine));
+            }
+
+            CsvTokenizer tokenizer = new CsvTokenizer(256);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerEnd);
+            tokenizer.next(buffer, 0, buffer.limit());
+            String[] columns = new String[Math.min(tokenizer.fieldCount(), 256)];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = tokenizer.field(i).trim();
+            }
+            if (columns.length > 0 && columns[0].startsWith("\uFEFF")) {
+                columns[0] = columns[0].substring(1);
+            }
+            this.header = columns;
+        }
+        this.chunks = found;
+    }
+
+    private static <R> Rows<R> await(CompletableFuture<Rows<R>> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Index of a header column, matched case-insensitively, or -1
+    public static int columnIndex(String[] header, String name) {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].equalsIgnoreCase(name)) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,237 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Streaming CSV writer: rows are encoded into one large byte buffer and written through a file
+// channel (optionally gzipped) to a temp file that is atomically renamed on commit().
+// Each writer produces a single table, so call exactly one of the write methods.
+public class CsvExportWriter implements Closeable {
+    public static final int BUFFER_SIZE = 1 << 20;
+
+    private final Path target;
+    private final Path tempFile;
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private long rowCount;
+    private boolean committed;
+
+    private CsvExportWriter(Path target, boolean gzip) throws IOException {
+        this.target = target.toAbsolutePath();
+        Path directory = this.target.getParent();
+        Files.createDirectories(directory);
+        this.tempFile = Files.createTempFile(directory, "." + this.target.getFileName(), ".tmp");
+        FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStream raw = Channels.newOutputStream(channel);
+        this.out = gzip ? new GZIPOutputStream(raw, BUFFER_SIZE) : raw;
+    }
+
+    // Gzip is chosen from a ".gz" file name
+    public static CsvExportWriter open(Path target) throws IOException {
+        return open(target, target.getFileName().toString().endsWith(".gz"));
+    }
+
+    public static CsvExportWriter open(Path target, boolean gzip) throws IOException {
+        return new CsvExportWriter(target, gzip);
+    }
+
+    public long writeStudents(Stream<Student> students) throws IOException {
+        return writeStudents(students.iterator());
+    }
+
+    public long writeStudents(Iterator<Student> students) throws IOException {
+        header("ID,RegNo,FullName,Email,Department,GPA");
+        while (students.hasNext()) {
+            Student s = students.next();
+            field(s.getId()).comma().field(s.getRegNo()).comma().field(s.getFullName()).comma()
+                .field(s.getEmail()).comma().field(s.getDepartment()).comma()
+                .fixed2(s.calculateGPA()).endRow();
+        }
+        return rowCount;
+    }
+
+    public long writeCourses(Stream<Course> courses) throws IOException {
+        return writeCourses(courses.iterator());
+    }
+
+    public long writeCourses(Iterator<Course> courses) throws IOException {
+        header("Code,Title,Credits,Department");
+        while (courses.hasNext()) {
+            Course c = courses.next();
+            field(c.getCode()).comma().field(c.getTitle()).comma()
+                .number(c.getCredits()).comma().field(c.getDepartment()).endRow();
+        }
+        return rowCount;
+    }
+
+    // One row per enrollment of every given student; Semester is written as e.g. FALL2025
+    public long writeEnrollments(Stream<Student> students) throws IOException {
+        return writeEnrollments(students.iterator());
+    }
+
+    public long writeEnrollments(Iterator<Student> students) throws IOException {
+        header("RegNo,CourseCode,Semester,Grade");
+        while (students.hasNext()) {
+            Student student = students.next();
+            for (Enrollment e : student.getEnrolledCourses().values()) {
+                field(student.getRegNo()).comma().field(e.getCourse().getCode()).comma()
+                    .field(e.getSemester().getName()).number(e.getSemester().getYear()).comma()
+                    .field(e.getGrade()).endRow();
+            }
+        }
+        return rowCount;
+    }
+
+    // Flushes everything and atomically replaces the target file
+    public void commit() throws IOException {
+        flushBuffer();
+        out.close();
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+    }
+
+    // Without a commit the partial temp file is discarded
+    @Override
+    public void close() throws IOException {
+        if (committed) return;
+        try {
+            out.close();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    public long getRowCount() { return rowCount; }
+
+    private void header(String columns) throws IOException {
+        rowCount = 0;
+        raw(columns);
+        put((byte) '\n');
+    }
+
+    private CsvExportWriter comma() throws IOException {
+        put((byte) ',');
+        return this;
+    }
+
+    private void endRow() throws IOException {
+        put((byte) '\n');
+        rowCount++;
+    }
+
+    private CsvExportWriter field(Object value) throws IOException {
+        if (value == null) return this;
+        String text = value.toString();
+        if (needsQuotes(text)) {
+            put((byte) '"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') put((byte) '"');
+                i = putChar(text, i);
+            }
+            put((byte) '"');
+        } else {
+            raw(text);
+        }
+        return this;
+    }
+
+    private CsvExportWriter number(long value) throws IOException {
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        if (value >= 10) {
+            number(value / 10);
+        }
+        put((byte) ('0' + (int) (value % 10)));
+        return this;
+    }
+
+    // Two-decimal rendering without String.format, e.g. 9.428 -> "9.43"
+    private CsvExportWriter fixed2(double value) throws IOException {
+        long scaled = Math.round(value * 100);
+        if (scaled < 0) {
+            put((byte) '-');
+            scaled = -scaled;
+        }
+        number(scaled / 100);
+        put((byte) '.');
+        int cents = (int) (scaled % 100);
+        put((byte) ('0' + cents / 10));
+        put((byte) ('0' + cents % 10));
+        return this;
+    }
+
+    private void raw(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            i = putChar(text, i);
+        }
+    }
+
+    // Encodes the char at index as UTF-8 and returns the index of the last char consumed
+    private int putChar(String text, int index) throws IOException {
+        char c = text.charAt(index);
+        if (c < 0x80) {
+            put((byte) c);
+        } else if (c < 0x800) {
+            put((byte) (0xC0 | (c >> 6)));
+            put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c) && index + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(index + 1))) {
+            int cp = Character.toCodePoint(c, text.charAt(index + 1));
+            put((byte) (0xF0 | (cp >> 18)));
+            put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+            put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+            put((byte) (0x80 | (cp & 0x3F)));
+            return index + 1;
+        } else {
+            put((byte) (0xE0 | (c >> 12)));
+            put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            put((byte) (0x80 | (c & 0x3F)));
+        }
+        return index;
+    }
+
+    private void put(byte b) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = b;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private static boolean needsQuotes(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
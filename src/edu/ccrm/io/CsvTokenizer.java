@@ -0,0 +1,113 @@
+package edu.ccrm.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Quote-aware CSV record parser that works directly on (mapped) byte buffers.
+// One instance is reused for every record of a chunk; only the field strings are allocated.
+public class CsvTokenizer {
+    private final String[] fields;
+    private int fieldCount;
+    private byte[] scratch;
+    private int length;
+    private int lineBreaks;
+    private String error;
+
+    public CsvTokenizer(int maxFields) {
+        this.fields = new String[maxFields];
+        this.scratch = new byte[256];
+    }
+
+    // Parses the record starting at pos and returns the offset just past its line terminator
+    public int next(ByteBuffer buffer, int pos, int limit) {
+        fieldCount = 0;
+        length = 0;
+        lineBreaks = 0;
+        error = null;
+
+        boolean quoted = false;
+        boolean fieldStart = true;
+        boolean afterQuote = false;
+        int i = pos;
+        while (i < limit) {
+            byte b = buffer.get(i++);
+            if (quoted) {
+                if (b == '"') {
+                    if (i < limit && buffer.get(i) == '"') {
+                        append(b);
+                        i++;
+                    } else {
+                        quoted = false;
+                        afterQuote = true;
+                    }
+                } else {
+                    if (b == '\n') lineBreaks++;
+                    append(b);
+                }
+                continue;
+            }
+            if (b == ',') {
+                endField();
+                fieldStart = true;
+                afterQuote = false;
+                continue;
+            }
+            if (b == '\n') {
+                endField();
+                return i;
+            }
+            if (b == '\r' && (i == limit || buffer.get(i) == '\n')) {
+                continue;
+            }
+            if (b == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+                continue;
+            }
+            if (afterQuote && error == null) {
+                error = "Unexpected character after closing quote";
+            }
+            fieldStart = false;
+            append(b);
+        }
+        if (quoted) {
+            error = "Unterminated quoted field";
+        }
+        endField();
+        return i;
+    }
+
+    public int fieldCount() { return fieldCount; }
+
+    // Returns the field at index, or null when the record has fewer fields
+    public String field(int index) {
+        return index < Math.min(fieldCount, fields.length) ? fields[index] : null;
+    }
+
+    public boolean isBlank() {
+        return fieldCount == 1 && fields[0].isEmpty();
+    }
+
+    // Line breaks embedded in quoted fields of the last record
+    public int lineBreaks() { return lineBreaks; }
+
+    // Non-null when the last record was malformed
+    public String error() { return error; }
+
+    private void append(byte b) {
+        if (length == scratch.length) {
+            byte[] grown = new byte[scratch.length * 2];
+            System.arraycopy(scratch, 0, grown, 0, length);
+            scratch = grown;
+        }
+        scratch[length++] = b;
+    }
+
+    private void endField() {
+        if (fieldCount < fields.length) {
+            fields[fieldCount] = length == 0 ? "" : new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        fieldCount++;
+        length = 0;
+    }
+}
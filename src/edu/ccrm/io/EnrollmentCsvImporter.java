@@ -0,0 +1,141 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentBatch;
+import edu.ccrm.service.StudentService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Enrollment and grade import in the format written by the enrollment export:
+// RegNo,CourseCode,Semester,Grade with an optional Grade column. Rows without a grade enroll the
+// student; rows with one enroll if needed and record the grade. Chunks are parsed in parallel and
+// applied through the batch enrollment API, each chunk as one batch with per-row results, or the
+// whole file as a single all-or-nothing batch.
+public class EnrollmentCsvImporter {
+    private static final String[] COLUMNS = {"RegNo", "CourseCode", "Semester", "Grade"};
+
+    private final StudentService studentService;
+    private final CourseService courseService;
+
+    public EnrollmentCsvImporter(StudentService studentService, CourseService courseService) {
+        this.studentService = studentService;
+        this.courseService = courseService;
+    }
+
+    // In atomic mode nothing is applied unless every row of the file parses and validates
+    public ImportReport importInto(Path filePath, boolean atomic) throws IOException {
+        ImportReport report = new ImportReport();
+        List<EnrollmentBatch.Request> pending = new ArrayList<>();
+        List<Integer> pendingLines = new ArrayList<>();
+        read(filePath, rows -> {
+            report.merge(rows.report());
+            if (atomic) {
+                pending.addAll(rows.items());
+                for (int i = 0; i < rows.items().size(); i++) {
+                    pendingLines.add(rows.lineAt(i));
+                }
+            } else {
+                List<Integer> lines = new ArrayList<>(rows.items().size());
+                for (int i = 0; i < rows.items().size(); i++) {
+                    lines.add(rows.lineAt(i));
+                }
+                apply(rows.items(), lines, false, report);
+            }
+        });
+        if (atomic) {
+            if (report.getRejected() > 0) {
+                // A row that did not parse fails the whole file
+                for (int line : pendingLines) {
+                    report.reject(line, null, "Not applied: another row of the file was rejected");
+                }
+            } else {
+                apply(pending, pendingLines, true, report);
+            }
+        }
+        return report;
+    }
+
+    private void apply(List<EnrollmentBatch.Request> requests, List<Integer> lines, boolean atomic, ImportReport report) {
+        if (requests.isEmpty()) return;
+        EnrollmentBatch.Result result = studentService.enrollAll(requests, atomic);
+        for (int row = 0; row < result.size(); row++) {
+            if (result.getStatus(row).isSuccess()) {
+                report.imported(1);
+            } else {
+                report.reject(lines.get(row), fieldOf(result.getStatus(row)), result.getMessage(row));
+            }
+        }
+    }
+
+    private static String fieldOf(EnrollmentBatch.Status status) {
+        switch (status) {
+            case STUDENT_NOT_FOUND : return COLUMNS[0];
+            case DUPLICATE :
+            case COURSE_FULL : return COLUMNS[1];
+            case CREDIT_LIMIT : return COLUMNS[2];
+            default : return null;
+        }
+    }
+
+    private void read(Path filePath, Consumer<CsvChunkReader.Rows<EnrollmentBatch.Request>> sink)
+        throws IOException {
+        CsvChunkReader reader = new CsvChunkReader(filePath);
+        String[] header = reader.getHeader();
+        int[] columns = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            columns[i] = CsvChunkReader.columnIndex(header, COLUMNS[i]);
+            if (columns[i] < 0 && i < 3) {
+                throw new IOException("Missing required column: " + COLUMNS[i]);
+            }
+        }
+        reader.read(header.length, (row, line, report) -> parse(row, line, report, columns), sink);
+    }
+
+    private EnrollmentBatch.Request parse(CsvTokenizer row, int line, ImportReport report, int[] columns) {
+        String[] values = new String[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            String value = columns[i] < 0 ? null : row.field(columns[i]);
+            values[i] = value == null ? null : value.trim();
+            if (i < 3 && (values[i] == null || values[i].isEmpty())) {
+                report.reject(line, COLUMNS[i], "Value is required");
+                return null;
+            }
+        }
+
+        Student student = studentService.findByRegNo(values[0]);
+        if (student == null) {
+            report.reject(line, COLUMNS[0], "Unknown student: " + values[0]);
+            return null;
+        }
+        Course course = courseService.findByCode(values[1]);
+        if (course == null) {
+            report.reject(line, COLUMNS[1], "Unknown course: " + values[1]);
+            return null;
+        }
+        Semester semester;
+        try {
+            semester = Semester.valueOf(values[2]);
+        } catch (IllegalArgumentException e) {
+            report.reject(line, COLUMNS[2], e.getMessage());
+            return null;
+        }
+        Grade grade = null;
+        if (values[3] != null && !values[3].isEmpty()) {
+            try {
+                grade = Grade.valueOf(values[3].toUpperCase());
+            } catch (IllegalArgumentException e) {
+                report.reject(line, COLUMNS[3], "Unknown grade: " + values[3]);
+                return null;
+            }
+        }
+        return new EnrollmentBatch.Request(student.getId(), course, semester, grade);
+    }
+}
@@ -2,84 +2,154 @@ package edu.ccrm.io;
 
 import edu.ccrm.domain.*;
 import edu.ccrm.config.AppConfig;
+import edu.ccrm.metrics.IoEvent;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
 
+import java.io.IOException;
 import java.nio.file.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.ToLongFunction;
 import java.util.stream.Stream;
 
 public class ImportExportService {
     private final AppConfig config;
+    private final Metrics metrics = Metrics.getInstance();
+    private PersistenceEngine persistence;
+
+    private interface Task<T, E extends Exception> {
+        T run() throws E;
+    }
 
     public ImportExportService() {
         this.config = AppConfig.getInstance();
     }
 
     public List<Student> importStudentsFromCSV(Path filePath) throws Exception {
-        try (Stream<String> lines = Files.lines(filePath)) {
-            return lines.skip(1) // Skip header
-                .map(this::parseStudentFromCSV)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-        }
+        return measure(Metrics.Operation.IMPORT, filePath,
+            () -> new StudentCsvImporter().readAll(filePath, new ImportReport()), List::size);
     }
 
-    private Student parseStudentFromCSV(String line) {
-        try {
-            String[] fields = line.split(",");
-            if (fields.length >= 4) {
-                return new Student.Builder(fields[0], fields[1])
-                    .fullName(fields[2])
-                    .email(fields[3])
-                    .department(Department.valueOf(fields[4]))
-                    .build();
-            }
-        } catch (Exception e) {
-            System.err.println("Error parsing student: " + e.getMessage());
-        }
-        return null;
+    // Streams the file straight into the service and reports every rejected row
+    public ImportReport importStudents(Path filePath, StudentService studentService) throws Exception {
+        return imported(measure(Metrics.Operation.IMPORT, filePath,
+            () -> new StudentCsvImporter().importInto(filePath, studentService), ImportReport::getImported));
+    }
+
+    // Enrollments and grades, per-row or all-or-nothing; see EnrollmentCsvImporter for the format
+    public ImportReport importEnrollments(Path filePath, StudentService studentService, CourseService courseService,
+                                          boolean atomic) throws IOException {
+        return imported(measure(Metrics.Operation.IMPORT, filePath,
+            () -> new EnrollmentCsvImporter(studentService, courseService).importInto(filePath, atomic),
+            ImportReport::getImported));
     }
 
     public void exportStudentsToCSV(List<Student> students, Path filePath) throws Exception {
-        List<String> lines = new ArrayList<>();
-        lines.add("ID,RegNo,FullName,Email,Department,GPA");
-        
-        lines.addAll(students.stream()
-            .map(s -> String.format("%s,%s,%s,%s,%s,%.2f", 
-                s.getId(), s.getRegNo(), s.getFullName(), s.getEmail(), 
-                s.getDepartment(), s.calculateGPA()))
-            .collect(Collectors.toList()));
+        exportStudents(students.stream(), filePath);
+    }
 
-        Files.write(filePath, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    public long exportStudents(Stream<Student> students, Path filePath) throws IOException {
+        return exported(filePath, () -> {
+            try (CsvExportWriter writer = CsvExportWriter.open(filePath)) {
+                long rows = writer.writeStudents(students);
+                writer.commit();
+                return rows;
+            }
+        });
+    }
+
+    public long exportCourses(Stream<Course> courses, Path filePath) throws IOException {
+        return exported(filePath, () -> {
+            try (CsvExportWriter writer = CsvExportWriter.open(filePath)) {
+                long rows = writer.writeCourses(courses);
+                writer.commit();
+                return rows;
+            }
+        });
+    }
+
+    public long exportEnrollments(Stream<Student> students, Path filePath) throws IOException {
+        return exported(filePath, () -> {
+            try (CsvExportWriter writer = CsvExportWriter.open(filePath)) {
+                long rows = writer.writeEnrollments(students);
+                writer.commit();
+                return rows;
+            }
+        });
+    }
+
+    // The engine that writes the data directory; backups then copy it as of one moment
+    public void setPersistence(PersistenceEngine persistence) {
+        this.persistence = persistence;
     }
 
     public Path createBackup() throws Exception {
+        return measure(Metrics.Operation.BACKUP, config.getDataDirectory(),
+            () -> backup(this::copyDataDirectory), this::countFiles);
+    }
+
+    // Fails as a whole if any file cannot be copied, since restoring a backup that lacks a log
+    // segment would silently lose its records
+    private Path copyDataDirectory(Path directory, List<Path> files) throws IOException {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
         Path backupDir = config.getBackupDirectory().resolve(timestamp);
+        for (int i = 1; Files.exists(backupDir); i++) {
+            backupDir = config.getBackupDirectory().resolve(timestamp + "_" + i);
+        }
         Files.createDirectories(backupDir);
 
-        // Copy all data files to backup directory
-        try (Stream<Path> files = Files.list(config.getDataDirectory())) {
-            files.forEach(file -> {
-                try {
-                    Files.copy(file, backupDir.resolve(file.getFileName()));
-                } catch (Exception e) {
-                    System.err.println("Failed to backup: " + file.getFileName());
-                }
-            });
+        try {
+            for (Path file : files) {
+                Path target = backupDir.resolve(directory.relativize(file).toString());
+                Files.createDirectories(target.getParent());
+                Files.copy(file, target);
+            }
+        } catch (IOException e) {
+            deleteTree(backupDir, e);
+            throw e;
         }
-
         return backupDir;
     }
 
+    // Deduplicated backup of the data directory, followed by the configured retention policy
+    public BackupManifest createIncrementalBackup() throws IOException {
+        IncrementalBackupService backups = new IncrementalBackupService(config.getBackupDirectory());
+        BackupManifest manifest = measure(Metrics.Operation.BACKUP, config.getDataDirectory(),
+            () -> backup(backups::createBackup), backup -> backup.getFiles().size());
+        metrics.add(Metrics.Counter.BACKUP_BYTES, manifest.getNewBytes());
+        backups.prune(config.getBackupRetention());
+        return manifest;
+    }
+
+    public List<BackupManifest> listIncrementalBackups() throws IOException {
+        return new IncrementalBackupService(config.getBackupDirectory()).listBackups();
+    }
+
+    public void restoreBackup(String backupId, Path targetDirectory) throws IOException {
+        measure(Metrics.Operation.RESTORE, targetDirectory, () -> {
+            new IncrementalBackupService(config.getBackupDirectory()).restore(backupId, targetDirectory);
+            return null;
+        }, none -> 0);
+    }
+
+    public long pruneBackups(int keepLast) throws IOException {
+        return new IncrementalBackupService(config.getBackupDirectory()).prune(keepLast);
+    }
+
     // Recursive method to calculate backup directory size
     public long calculateBackupSize(Path directory) throws Exception {
         assert directory != null : "Directory cannot be null";
         
         if (!Files.exists(directory)) return 0;
 
+        // Incremental backups cache their size in the manifest
+        if (BackupManifest.exists(directory)) {
+            return BackupManifest.readTotalBytes(directory);
+        }
+
         try (Stream<Path> paths = Files.walk(directory)) {
             return paths.filter(Files::isRegularFile)
                 .mapToLong(this::getFileSize)
@@ -87,6 +157,63 @@ public class ImportExportService {
         }
     }
 
+    // Times the task into the operation's histogram and, when a recording wants it, a JFR event
+    private <T, E extends Exception> T measure(Metrics.Operation operation, Path path, Task<T, E> task,
+                                               ToLongFunction<T> records) throws E {
+        long start = System.nanoTime();
+        IoEvent event = IoEvent.start();
+        T result = null;
+        boolean completed = false;
+        try {
+            result = task.run();
+            completed = true;
+            return result;
+        } finally {
+            metrics.record(operation, start);
+            if (event != null) event.finish(operation, path, completed ? records.applyAsLong(result) : 0);
+        }
+    }
+
+    private ImportReport imported(ImportReport report) {
+        metrics.add(Metrics.Counter.ROWS_IMPORTED, report.getImported());
+        metrics.add(Metrics.Counter.ROWS_REJECTED, report.getRejected());
+        return report;
+    }
+
+    private long exported(Path filePath, Task<Long, IOException> export) throws IOException {
+        long rows = measure(Metrics.Operation.EXPORT, filePath, export, Long::longValue);
+        metrics.add(Metrics.Counter.ROWS_EXPORTED, rows);
+        return rows;
+    }
+
+    // Without an engine nothing writes the directory, so all of its data files are taken as they are
+    private <T> T backup(PersistenceEngine.Backup<T> backup) throws IOException {
+        PersistenceEngine engine = persistence;
+        if (engine != null) {
+            return engine.backup(backup);
+        }
+        Path directory = config.getDataDirectory();
+        return backup.copy(directory, PersistenceEngine.dataFiles(directory, Long.MAX_VALUE));
+    }
+
+    private static void deleteTree(Path directory, IOException failure) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private long countFiles(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
     private long getFileSize(Path file) {
         try {
             return Files.size(file);
@@ -0,0 +1,73 @@
+package edu.ccrm.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of a CSV import: counters plus the rejected rows with the reason they were skipped
+public class ImportReport {
+    // Only the first rejects are kept in memory; the rest are just counted
+    public static final int MAX_STORED_REJECTS = 1_000;
+
+    public static final class Reject {
+        private final int line;
+        private final String field;
+        private final String reason;
+
+        public Reject(int line, String field, String reason) {
+            this.line = line;
+            this.field = field;
+            this.reason = reason;
+        }
+
+        public int getLine() { return line; }
+        public String getField() { return field; }
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return "line " + line + (field != null ? " [" + field + "]" : "") + ": " + reason;
+        }
+    }
+
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    private final List<Reject> rejects = new ArrayList<>();
+
+    public void rowRead() {
+        rowsRead++;
+    }
+
+    public void imported(long count) {
+        imported += count;
+    }
+
+    public void reject(int line, String field, String reason) {
+        rejected++;
+        if (rejects.size() < MAX_STORED_REJECTS) {
+            rejects.add(new Reject(line, field, reason));
+        }
+    }
+
+    // Appends a partial report (e.g. from one parsed chunk) in file order
+    public void merge(ImportReport other) {
+        rowsRead += other.rowsRead;
+        imported += other.imported;
+        rejected += other.rejected;
+        for (Reject reject : other.rejects) {
+            if (rejects.size() >= MAX_STORED_REJECTS) break;
+            rejects.add(reject);
+        }
+    }
+
+    public long getRowsRead() { return rowsRead; }
+    public long getImported() { return imported; }
+    public long getRejected() { return rejected; }
+    public List<Reject> getRejects() { return Collections.unmodifiableList(rejects); }
+
+    @Override
+    public String toString() {
+        return String.format("ImportReport{rows=%d, imported=%d, rejected=%d}", rowsRead, imported, rejected);
+    }
+}
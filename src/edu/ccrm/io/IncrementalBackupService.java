@@ -0,0 +1,182 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Deduplicated backups: files are split into fixed-size chunks stored once in a shared
+// ChunkStore, and each backup is just a directory holding a BackupManifest.
+public class IncrementalBackupService {
+    public static final int CHUNK_SIZE = 1 << 20;
+    private static final String CHUNK_DIRECTORY = "chunks";
+    private static final DateTimeFormatter ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final Path backupRoot;
+    private final ChunkStore chunkStore;
+
+    public IncrementalBackupService(Path backupRoot) {
+        this.backupRoot = backupRoot;
+        this.chunkStore = new ChunkStore(backupRoot.resolve(CHUNK_DIRECTORY));
+    }
+
+    // Backs up every data file of a directory nothing is writing to
+    public BackupManifest createBackup(Path sourceDirectory) throws IOException {
+        return createBackup(sourceDirectory, PersistenceEngine.dataFiles(sourceDirectory, Long.MAX_VALUE));
+    }
+
+    // Files are chunked and hashed in parallel; only chunks missing from the store are written.
+    // A file that cannot be read fails the whole backup rather than leaving it out.
+    public BackupManifest createBackup(Path sourceDirectory, List<Path> files) throws IOException {
+        LocalDateTime created = LocalDateTime.now();
+        Path backupDir = newBackupDirectory(created);
+        try {
+            AtomicLong newBytes = new AtomicLong();
+            List<BackupManifest.FileEntry> entries;
+            try {
+                entries = files.parallelStream()
+                    .map(file -> backupFile(sourceDirectory, file, newBytes))
+                    .collect(Collectors.toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            BackupManifest manifest = new BackupManifest(backupDir.getFileName().toString(), created, entries, newBytes.get());
+            manifest.write(backupDir);
+            return manifest;
+        } catch (IOException | RuntimeException e) {
+            // No manifest, no backup. Chunks already stored are reused by the next backup or
+            // swept by prune.
+            try {
+                Files.deleteIfExists(backupDir.resolve(BackupManifest.FILE_NAME + ".tmp"));
+                Files.deleteIfExists(backupDir);
+            } catch (IOException failure) {
+                e.addSuppressed(failure);
+            }
+            throw e;
+        }
+    }
+
+    public List<BackupManifest> listBackups() throws IOException {
+        List<BackupManifest> manifests = new ArrayList<>();
+        if (!Files.isDirectory(backupRoot)) return manifests;
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(backupRoot, BackupManifest::exists)) {
+            for (Path dir : dirs) {
+                manifests.add(BackupManifest.read(dir));
+            }
+        }
+        manifests.sort(Comparator.comparing(BackupManifest::getId));
+        return manifests;
+    }
+
+    // Rebuilds the files of a backup under targetDirectory, verifying every chunk
+    public void restore(String backupId, Path targetDirectory) throws IOException {
+        Path backupDir = backupRoot.resolve(backupId);
+        if (!BackupManifest.exists(backupDir)) {
+            throw new IllegalArgumentException("Backup not found: " + backupId);
+        }
+        BackupManifest manifest = BackupManifest.read(backupDir);
+        Path target = targetDirectory.toAbsolutePath().normalize();
+        try {
+            manifest.getFiles().parallelStream().forEach(entry -> restoreFile(entry, target));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Keeps the newest keepLast backups, deletes the rest and sweeps chunks no backup references.
+    // Returns the number of chunk bytes reclaimed. Must not run while a backup is being created.
+    public long prune(int keepLast) throws IOException {
+        List<BackupManifest> backups = listBackups();
+        int removeCount = Math.max(0, backups.size() - Math.max(1, keepLast));
+        for (BackupManifest old : backups.subList(0, removeCount)) {
+            Path dir = backupRoot.resolve(old.getId());
+            Files.deleteIfExists(dir.resolve(BackupManifest.FILE_NAME));
+            Files.deleteIfExists(dir);
+        }
+
+        Set<String> referenced = new HashSet<>();
+        for (BackupManifest kept : backups.subList(removeCount, backups.size())) {
+            for (BackupManifest.FileEntry entry : kept.getFiles()) {
+                referenced.addAll(entry.getChunks());
+            }
+        }
+        long reclaimed = 0;
+        for (String hash : chunkStore.listAll()) {
+            if (!referenced.contains(hash)) {
+                reclaimed += chunkStore.size(hash);
+                chunkStore.delete(hash);
+            }
+        }
+        return reclaimed;
+    }
+
+    private BackupManifest.FileEntry backupFile(Path sourceDirectory, Path file, AtomicLong newBytes) {
+        MessageDigest digest = ChunkStore.newDigest();
+        byte[] buffer = new byte[CHUNK_SIZE];
+        List<String> chunks = new ArrayList<>();
+        long size = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            int length;
+            while ((length = in.readNBytes(buffer, 0, CHUNK_SIZE)) > 0) {
+                String hash = ChunkStore.hash(digest, buffer, length);
+                if (chunkStore.put(hash, buffer, length)) {
+                    newBytes.addAndGet(length);
+                }
+                chunks.add(hash);
+                size += length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String relative = sourceDirectory.relativize(file).toString().replace('\\', '/');
+        return new BackupManifest.FileEntry(relative, size, chunks);
+    }
+
+    private void restoreFile(BackupManifest.FileEntry entry, Path target) {
+        Path file = target.resolve(entry.getPath()).normalize();
+        if (!file.startsWith(target)) {
+            throw new UncheckedIOException(new IOException("Backup entry escapes the target: " + entry.getPath()));
+        }
+        MessageDigest digest = ChunkStore.newDigest();
+        try {
+            Files.createDirectories(file.getParent());
+            long written = 0;
+            try (OutputStream out = Files.newOutputStream(file)) {
+                for (String hash : entry.getChunks()) {
+                    byte[] chunk = chunkStore.get(hash, digest);
+                    out.write(chunk);
+                    written += chunk.length;
+                }
+            }
+            if (written != entry.getSize()) {
+                throw new IOException("Restored size mismatch for " + entry.getPath());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path newBackupDirectory(LocalDateTime created) throws IOException {
+        String base = created.format(ID_FORMAT);
+        Path dir = backupRoot.resolve(base);
+        for (int i = 1; Files.exists(dir); i++) {
+            dir = backupRoot.resolve(base + "_" + i);
+        }
+        Files.createDirectories(dir);
+        return dir;
+    }
+}
@@ -0,0 +1,518 @@
+package edu.ccrm.io;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.*;
+import edu.ccrm.service.ChangeJournal;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Keeps the services durable in the data directory: every mutation is appended to the
+// write-ahead log, and every checkpointInterval records the state is compacted into a
+// BinarySnapshot.
+// On open the snapshot is loaded and the log segments written after it are replayed.
+// An open engine holds a lock on the directory, so only one process uses it at a time.
+public class PersistenceEngine implements ChangeJournal, Closeable {
+    static final byte STUDENT_PUT = 1;
+    static final byte COURSE_PUT = 2;
+    static final byte COURSE_DELETE = 3;
+    static final byte ENROLL = 4;
+    static final byte UNENROLL = 5;
+    static final byte GRADE = 6;
+
+    static final String SNAPSHOT_FILE = "ccrm.snapshot";
+    static final String LOCK_FILE = ".lock";
+
+    private final Path directory;
+    private final int checkpointInterval;
+    private final AtomicLong sinceCheckpoint = new AtomicLong();
+    // Checkpoints run off the writer threads so a mutation never waits for a snapshot
+    private final ExecutorService checkpointer = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "ccrm-checkpoint");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Records direct = new Immediate();
+    private StudentService studentService;
+    private CourseService courseService;
+    private WriteAheadLog wal;
+    private FileLock lock;
+
+    // Copies the files handed to it; see backup()
+    public interface Backup<T> {
+        T copy(Path directory, List<Path> files) throws IOException;
+    }
+
+    public PersistenceEngine(Path directory) {
+        this(directory, AppConfig.getInstance().getCheckpointInterval());
+    }
+
+    public PersistenceEngine(Path directory, int checkpointInterval) {
+        this.directory = directory;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    // Restores the persisted state into the (empty) services and starts journaling their mutations
+    public void open(StudentService studentService, CourseService courseService) throws IOException {
+        this.studentService = studentService;
+        this.courseService = courseService;
+
+        lock = lockDirectory(directory);
+        try {
+            restore();
+        } catch (IOException | RuntimeException e) {
+            release(e);
+            throw e;
+        }
+
+        studentService.setJournal(this);
+        courseService.setJournal(this);
+    }
+
+    private void restore() throws IOException {
+        long firstSegment = loadSnapshot();
+        AtomicLong replayed = new AtomicLong();
+        boolean complete = WriteAheadLog.replay(directory, firstSegment, record -> {
+            apply(record.readByte(), record);
+            replayed.incrementAndGet();
+        });
+        // Replay changes students directly, so their snapshot copies are brought up to date once
+        if (replayed.get() > 0) {
+            studentService.refreshSnapshot();
+        }
+        wal = new WriteAheadLog(directory, Math.max(firstSegment, WriteAheadLog.lastSegment(directory) + 1));
+        wal.deleteSegmentsBefore(firstSegment);
+        // Records after a damaged one were not applied; the snapshot replaces the damaged
+        // segments, so new records are not written behind them
+        if (!complete) {
+            checkpoint();
+        }
+    }
+
+    // Two engines on one directory would each rotate into the other's segments and checkpoint
+    // away the other's records, so a second one (in this process or another) is turned away
+    private static FileLock lockDirectory(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(LOCK_FILE);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = null;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another engine in this JVM
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException("Data directory " + directory + " is in use by another CCRM instance ("
+                + file + " is locked); stop it before starting this one");
+        }
+        return lock;
+    }
+
+    // Gives up the log and the directory after a failed open; closing the channel releases the lock
+    private void release(Exception failure) {
+        try {
+            if (wal != null) wal.close();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+        wal = null;
+        try {
+            lock.channel().close();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+        lock = null;
+    }
+
+    // Compacts the current state into a new snapshot and drops the log segments it covers
+    public synchronized void checkpoint() throws IOException {
+        long nextSegment = wal.rotate();
+        sinceCheckpoint.set(0);
+        writeSnapshot(nextSegment);
+        wal.deleteSegmentsBefore(nextSegment);
+    }
+
+    // Hands a backup the files that hold the state as of now. The log is rotated first, so every
+    // segment handed over is complete, and checkpoints wait until the copy returns, so the
+    // snapshot is not replaced, nor the segments it needs deleted, while they are copied.
+    // Writers carry on in the new segment, which the backup leaves out.
+    public synchronized <T> T backup(Backup<T> backup) throws IOException {
+        if (wal == null) {
+            throw new IllegalStateException("Persistence engine is not open");
+        }
+        long active = wal.rotate();
+        return backup.copy(directory, dataFiles(directory, active));
+    }
+
+    // The files of a data directory that a backup takes: all but the lock file, temporary files
+    // and the log segments numbered firstExcluded and above
+    static List<Path> dataFiles(Path directory, long firstExcluded) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                .filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+                .filter(file -> !file.getFileName().toString().equals(LOCK_FILE))
+                .filter(file -> WriteAheadLog.segmentNumber(file) < firstExcluded)
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (wal == null) return;
+        studentService.setJournal(null);
+        courseService.setJournal(null);
+        checkpointer.shutdown();
+        try {
+            checkpointer.awaitTermination(1, TimeUnit.MINUTES);
+            checkpoint();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a checkpoint", e);
+        } finally {
+            try {
+                wal.close();
+            } finally {
+                wal = null;
+                lock.channel().close();
+                lock = null;
+            }
+        }
+    }
+
+    @Override
+    public void studentSaved(Student student) {
+        direct.studentSaved(student);
+    }
+
+    @Override
+    public void courseSaved(Course course) {
+        direct.courseSaved(course);
+    }
+
+    @Override
+    public void courseDeleted(CourseCode code) {
+        direct.courseDeleted(code);
+    }
+
+    @Override
+    public void enrolled(Student student, Course course, Semester semester) {
+        direct.enrolled(student, course, semester);
+    }
+
+    @Override
+    public void unenrolled(Student student, Course course) {
+        direct.unenrolled(student, course);
+    }
+
+    @Override
+    public void gradeRecorded(Student student, Course course, Grade grade) {
+        direct.gradeRecorded(student, course, grade);
+    }
+
+    // The records of a group are appended together at commit, which waits for one fsync
+    @Override
+    public ChangeJournal.Group group() {
+        return new GroupCommit();
+    }
+
+    private interface RecordWriter {
+        void write(DataOutput out) throws IOException;
+    }
+
+    // Encodes each kind of change as a record; subclasses decide when it is written
+    private abstract class Records implements ChangeJournal {
+        abstract void add(byte type, RecordWriter writer);
+
+        @Override
+        public void studentSaved(Student student) {
+            add(STUDENT_PUT, out -> writeStudent(out, student));
+        }
+
+        @Override
+        public void courseSaved(Course course) {
+            add(COURSE_PUT, out -> writeCourse(out, course));
+        }
+
+        @Override
+        public void courseDeleted(CourseCode code) {
+            add(COURSE_DELETE, out -> writeCode(out, code));
+        }
+
+        @Override
+        public void enrolled(Student student, Course course, Semester semester) {
+            add(ENROLL, out -> {
+                out.writeUTF(student.getId());
+                writeCode(out, course.getCode());
+                out.writeUTF(semester.getName());
+                out.writeInt(semester.getYear());
+            });
+        }
+
+        @Override
+        public void unenrolled(Student student, Course course) {
+            add(UNENROLL, out -> {
+                out.writeUTF(student.getId());
+                writeCode(out, course.getCode());
+            });
+        }
+
+        @Override
+        public void gradeRecorded(Student student, Course course, Grade grade) {
+            add(GRADE, out -> {
+                out.writeUTF(student.getId());
+                writeCode(out, course.getCode());
+                out.writeByte(grade == null ? -1 : grade.ordinal());
+            });
+        }
+    }
+
+    // Blocks until the record is durable; concurrent callers share one fsync
+    private final class Immediate extends Records {
+        @Override
+        void add(byte type, RecordWriter writer) {
+            await(wal.append(encode(type, writer)), 1);
+        }
+    }
+
+    // Rows may be added from several threads, e.g. by a parallel batch
+    private final class GroupCommit extends Records implements ChangeJournal.Group {
+        private final List<byte[]> records = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        void add(byte type, RecordWriter writer) {
+            records.add(encode(type, writer));
+        }
+
+        @Override
+        public void commit() {
+            List<byte[]> pending;
+            synchronized (records) {
+                pending = new ArrayList<>(records);
+                records.clear();
+            }
+            if (!pending.isEmpty()) {
+                await(wal.append(pending), pending.size());
+            }
+        }
+    }
+
+    private static byte[] encode(byte type, RecordWriter writer) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            writer.write(out);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void await(CompletableFuture<Void> written, int records) {
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        // Only the caller that crosses the threshold schedules the checkpoint
+        long count = sinceCheckpoint.addAndGet(records);
+        if (count >= checkpointInterval && count - records < checkpointInterval) {
+            checkpointer.execute(this::backgroundCheckpoint);
+        }
+    }
+
+    private void backgroundCheckpoint() {
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            // The log still holds every record, so a failed checkpoint is retried by the next one
+            System.err.println("Checkpoint failed: " + e.getMessage());
+            sinceCheckpoint.set(0);
+        }
+    }
+
+    private void apply(byte type, DataInputStream in) throws IOException {
+        switch (type) {
+            case STUDENT_PUT : applyStudent(in);
+            break;
+            case COURSE_PUT : applyCourse(in);
+            break;
+            case COURSE_DELETE : {
+                Course course = courseService.findByCode(readCode(in));
+                if (course != null) {
+                    courseService.deleteCourse(course.getCode().toString());
+                }
+            }
+            break;
+            case ENROLL : {
+                Student student = studentService.findById(in.readUTF());
+                Course course = courseService.findByCode(readCode(in));
+                Semester semester = Semester.of(in.readUTF(), in.readInt());
+                if (student != null && course != null) {
+                    student.restoreEnrollment(course, semester, null);
+                }
+            }
+            break;
+            case UNENROLL : {
+                Student student = studentService.findById(in.readUTF());
+                Course course = courseService.findByCode(readCode(in));
+                if (student != null && course != null) {
+                    student.unenrollFromCourse(course);
+                }
+            }
+            break;
+            case GRADE : {
+                Student student = studentService.findById(in.readUTF());
+                Course course = courseService.findByCode(readCode(in));
+                int ordinal = in.readByte();
+                if (student != null && course != null) {
+                    student.recordGrade(course, ordinal < 0 ? null : Grade.values()[ordinal]);
+                }
+            }
+            break;
+            default : throw new IOException("Unknown record type: " + type);
+        }
+    }
+
+    private void applyStudent(DataInput in) throws IOException {
+        String id = in.readUTF();
+        String regNo = in.readUTF();
+        String fullName = in.readUTF();
+        String email = in.readUTF();
+        Department department = readDepartment(in);
+        boolean active = in.readBoolean();
+
+        // The same operation as the live save: a student already stored under the id is replaced
+        // and hands its enrollments over, whichever service call wrote the record
+        Student student = new Student.Builder(id, regNo)
+            .fullName(fullName)
+            .email(email)
+            .department(department)
+            .build();
+        student.setActive(active);
+        studentService.addStudent(student);
+    }
+
+    private void applyCourse(DataInputStream in) throws IOException {
+        CourseCode code = readCode(in);
+        String title = in.readUTF();
+        int credits = in.readByte();
+        Department department = readDepartment(in);
+        Instructor instructor = in.readBoolean()
+            ? new Instructor(in.readUTF(), in.readUTF(), in.readUTF())
+            : null;
+        boolean active = in.readBoolean();
+        // Records written before seat limits existed end here
+        int capacity = in.available() >= 4 ? in.readInt() : 0;
+
+        // addCourse updates a course already in the catalog in place, as it does live
+        Course course = new Course.Builder(code)
+            .title(title)
+            .credits(credits)
+            .department(department)
+            .instructor(instructor)
+            .capacity(capacity)
+            .build();
+        course.setActive(active);
+        courseService.addCourse(course);
+    }
+
+    private static void writeStudent(DataOutput out, Student student) throws IOException {
+        out.writeUTF(student.getId());
+        out.writeUTF(student.getRegNo());
+        out.writeUTF(student.getFullName());
+        out.writeUTF(student.getEmail());
+        writeDepartment(out, student.getDepartment());
+        out.writeBoolean(student.isActive());
+    }
+
+    private static void writeCourse(DataOutput out, Course course) throws IOException {
+        writeCode(out, course.getCode());
+        out.writeUTF(course.getTitle());
+        out.writeByte(course.getCredits());
+        writeDepartment(out, course.getDepartment());
+        Instructor instructor = course.getInstructor();
+        out.writeBoolean(instructor != null);
+        if (instructor != null) {
+            out.writeUTF(instructor.getId());
+            out.writeUTF(instructor.getFullName());
+            out.writeUTF(instructor.getDepartment());
+        }
+        out.writeBoolean(course.isActive());
+        out.writeInt(course.getCapacity());
+    }
+
+    private static void writeCode(DataOutput out, CourseCode code) throws IOException {
+        out.writeUTF(code.getDepartmentCode());
+        out.writeInt(code.getCourseNumber());
+    }
+
+    private static CourseCode readCode(DataInput in) throws IOException {
+        return CourseCode.of(in.readUTF(), in.readInt());
+    }
+
+    private static void writeDepartment(DataOutput out, Department department) throws IOException {
+        out.writeByte(department == null ? -1 : department.ordinal());
+    }
+
+    private static Department readDepartment(DataInput in) throws IOException {
+        int ordinal = in.readByte();
+        return ordinal < 0 ? null : Department.values()[ordinal];
+    }
+
+    // Returns the first log segment that still has to be replayed on top of the snapshot
+    private long loadSnapshot() throws IOException {
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) return 1;
+        return BinarySnapshot.load(file, studentService, courseService);
+    }
+
+    private void writeSnapshot(long firstSegment) throws IOException {
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        // Point-in-time views: writers carry on while the file is written, and it never holds a
+        // half-applied change. Courses first: a course missing from that view was added after the
+        // log rotated, so enrollments in it are dropped here but replayed from the newer segment.
+        Collection<Course> courses = courseService.snapshot();
+        Collection<Student> students = studentService.snapshot();
+        BinarySnapshot.write(temp, firstSegment, courses, students);
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Department;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.StudentService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Streaming student import: chunks are parsed in parallel and inserted in batches as they arrive
+public class StudentCsvImporter {
+    public static final int BATCH_SIZE = 1_000;
+    private static final String[] COLUMNS = {"ID", "RegNo", "FullName", "Email", "Department"};
+
+    public ImportReport importInto(Path filePath, StudentService studentService) throws IOException {
+        ImportReport report = new ImportReport();
+        read(filePath, rows -> {
+            report.merge(rows.report());
+            insert(rows, studentService, report);
+        });
+        return report;
+    }
+
+    public List<Student> readAll(Path filePath, ImportReport report) throws IOException {
+        List<Student> students = new ArrayList<>();
+        read(filePath, rows -> {
+            report.merge(rows.report());
+            students.addAll(rows.items());
+        });
+        return students;
+    }
+
+    private void read(Path filePath, Consumer<CsvChunkReader.Rows<Student>> sink)
+        throws IOException {
+        CsvChunkReader reader = new CsvChunkReader(filePath);
+        String[] header = reader.getHeader();
+        int[] columns = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            columns[i] = CsvChunkReader.columnIndex(header, COLUMNS[i]);
+            if (columns[i] < 0 && i < 4) {
+                throw new IOException("Missing required column: " + COLUMNS[i]);
+            }
+        }
+        reader.read(header.length, (row, line, report) -> parse(row, line, report, columns), sink);
+    }
+
+    private Student parse(CsvTokenizer row, int line, ImportReport report, int[] columns) {
+        String[] values = new String[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            String value = columns[i] < 0 ? null : row.field(columns[i]);
+            values[i] = value == null ? null : value.trim();
+            if (i < 4 && (values[i] == null || values[i].isEmpty())) {
+                report.reject(line, COLUMNS[i], "Value is required");
+                return null;
+            }
+        }
+
+        Department department = null;
+        if (values[4] != null && !values[4].isEmpty()) {
+            try {
+                department = Department.valueOf(values[4].toUpperCase());
+            } catch (IllegalArgumentException e) {
+                report.reject(line, COLUMNS[4], "Unknown department: " + values[4]);
+                return null;
+            }
+        }
+
+        return new Student.Builder(values[0], values[1])
+            .fullName(values[2])
+            .email(values[3])
+            .department(department)
+            .build();
+    }
+
+    private void insert(CsvChunkReader.Rows<Student> rows, StudentService studentService, ImportReport report) {
+        List<Student> items = rows.items();
+        for (int from = 0; from < items.size(); from += BATCH_SIZE) {
+            int to = Math.min(items.size(), from + BATCH_SIZE);
+            try {
+                studentService.addStudents(items.subList(from, to));
+                report.imported(to - from);
+            } catch (IllegalArgumentException batchFailure) {
+                // Fall back to row-by-row inserts so only the conflicting rows are rejected
+                for (int i = from; i < to; i++) {
+                    Student student = items.get(i);
+                    try {
+                        studentService.addStudent(student);
+                        report.imported(1);
+                    } catch (IllegalArgumentException e) {
+                        report.reject(rows.lineAt(i), conflictingField(student, studentService), e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private String conflictingField(Student student, StudentService studentService) {
+        Student owner = studentService.findByRegNo(student.getRegNo());
+        return owner != null && !owner.equals(student) ? COLUMNS[1] : COLUMNS[3];
+    }
+}
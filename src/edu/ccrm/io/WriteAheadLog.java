@@ -0,0 +1,281 @@
+package edu.ccrm.io;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+// Append-only log split into numbered segments (wal-<n>.log). Each record is framed as
+// [length][crc32][payload]. A single writer thread drains everything queued since its last
+// write, writes it in one go and fsyncs once, so concurrent appenders share the fsync cost.
+public class WriteAheadLog implements Closeable {
+    private static final int MAX_RECORD_SIZE = 1 << 24;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d+)\\.log");
+
+    public interface RecordHandler {
+        void handle(DataInputStream record) throws IOException;
+    }
+
+    private static final class Pending {
+        final byte[] payload;
+        final CompletableFuture<Void> done;
+
+        Pending(byte[] payload, CompletableFuture<Void> done) {
+            this.payload = payload;
+            this.done = done;
+        }
+    }
+
+    private final Path directory;
+    private final Object lock = new Object();
+    private final Thread writer;
+    private List<Pending> queue = new ArrayList<>();
+    private FileChannel channel;
+    private long segment;
+    private boolean writing;
+    private boolean closed;
+
+    public WriteAheadLog(Path directory, long segment) throws IOException {
+        this.directory = directory;
+        this.segment = segment;
+        this.channel = openSegment(segment);
+        this.writer = new Thread(this::writeLoop, "ccrm-wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Queues a record; the future completes once it has been written and fsynced
+    public CompletableFuture<Void> append(byte[] payload) {
+        Pending pending = new Pending(payload, new CompletableFuture<>());
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Write-ahead log is closed");
+            }
+            queue.add(pending);
+            lock.notifyAll();
+        }
+        return pending.done;
+    }
+
+    // Queues the records together, so they are written and fsynced in the same batch and either
+    // all become durable or none do; the future completes once they are
+    public CompletableFuture<Void> append(List<byte[]> payloads) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Write-ahead log is closed");
+            }
+            for (byte[] payload : payloads) {
+                queue.add(new Pending(payload, done));
+            }
+            lock.notifyAll();
+        }
+        if (payloads.isEmpty()) {
+            done.complete(null);
+        }
+        return done;
+    }
+
+    // Switches appends to a new segment and returns its number. Records still queued go to
+    // the new segment, so a snapshot taken after rotating covers all older segments.
+    public long rotate() throws IOException {
+        synchronized (lock) {
+            try {
+                while (writing) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while rotating the log", e);
+            }
+            channel.close();
+            segment++;
+            channel = openSegment(segment);
+            return segment;
+        }
+    }
+
+    public long getSegment() {
+        synchronized (lock) {
+            return segment;
+        }
+    }
+
+    public void deleteSegmentsBefore(long firstKept) throws IOException {
+        for (long number : listSegments(directory)) {
+            if (number < firstKept) {
+                Files.deleteIfExists(segmentPath(directory, number));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void writeLoop() {
+        while (true) {
+            List<Pending> batch;
+            synchronized (lock) {
+                while (queue.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (queue.isEmpty()) {
+                    return;
+                }
+                batch = queue;
+                queue = new ArrayList<>();
+                writing = true;
+            }
+            try {
+                write(batch);
+                batch.forEach(p -> p.done.complete(null));
+            } catch (IOException e) {
+                batch.forEach(p -> p.done.completeExceptionally(new UncheckedIOException(e)));
+            } finally {
+                synchronized (lock) {
+                    writing = false;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) throws IOException {
+        int size = 0;
+        for (Pending pending : batch) {
+            size += 8 + pending.payload.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        CRC32 crc = new CRC32();
+        for (Pending pending : batch) {
+            crc.reset();
+            crc.update(pending.payload);
+            buffer.putInt(pending.payload.length);
+            buffer.putInt((int) crc.getValue());
+            buffer.put(pending.payload);
+        }
+        buffer.flip();
+        long end = channel.size();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // The batch is reported as lost, so none of it may be left for replay to find, and
+            // later batches must not land behind a partial record
+            try {
+                channel.truncate(end);
+            } catch (IOException failure) {
+                e.addSuppressed(failure);
+            }
+            throw e;
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        Files.createDirectories(directory);
+        return FileChannel.open(segmentPath(directory, number),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Replays the records of the segments numbered fromSegment and above, oldest first. Replay
+    // stops for good at the first torn or corrupt record: what follows it may depend on the
+    // change that was lost. Returns false if it stopped early; the caller must then drop the
+    // damaged segments (e.g. by checkpointing) before appending, or the next replay stops there too.
+    public static boolean replay(Path directory, long fromSegment, RecordHandler handler) throws IOException {
+        for (long number : listSegments(directory)) {
+            if (number >= fromSegment && !replaySegment(segmentPath(directory, number), handler)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The number of a wal-<n>.log file, or -1 for any other file
+    static long segmentNumber(Path file) {
+        Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    // The highest segment number in the directory, or -1 when there is none
+    public static long lastSegment(Path directory) throws IOException {
+        List<Long> numbers = listSegments(directory);
+        return numbers.isEmpty() ? -1 : numbers.get(numbers.size() - 1);
+    }
+
+    // Returns true if the segment ended cleanly after its last record
+    private static boolean replaySegment(Path file, RecordHandler handler) throws IOException {
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (true) {
+                byte[] payload;
+                try {
+                    int head = in.read();
+                    if (head < 0) return true;
+                    int length = head << 24 | in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8 | in.readUnsignedByte();
+                    int checksum = in.readInt();
+                    if (length < 0 || length > MAX_RECORD_SIZE) return false;
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) return false;
+                } catch (EOFException e) {
+                    // A torn record, e.g. at the tail after a crash mid-write
+                    return false;
+                }
+                handler.handle(new DataInputStream(new ByteArrayInputStream(payload)));
+            }
+        }
+    }
+
+    static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return numbers;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "wal-*.log")) {
+            for (Path file : files) {
+                long number = segmentNumber(file);
+                if (number >= 0) {
+                    numbers.add(number);
+                }
+            }
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private static Path segmentPath(Path directory, long number) {
+        return directory.resolve("wal-" + number + ".log");
+    }
+}
@@ -0,0 +1,51 @@
+package edu.ccrm.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JFR event for one enrollment attempt, e.g. recorded with
+//   java -XX:StartFlightRecording:filename=ccrm.jfr,settings=profile ...
+// start returns null unless a recording has the event enabled, so the disabled path allocates nothing.
+@Name("edu.ccrm.Enrollment")
+@Label("Enrollment")
+@Category({"CCRM", "Service"})
+@Description("An enrollment attempt and its outcome")
+@StackTrace(false)
+public final class EnrollmentEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(EnrollmentEvent.class);
+
+    @Label("Student Id")
+    String studentId;
+
+    @Label("Course")
+    String course;
+
+    @Label("Semester")
+    String semester;
+
+    @Label("Outcome")
+    String outcome;
+
+    public static EnrollmentEvent start() {
+        if (!TYPE.isEnabled()) return null;
+        EnrollmentEvent event = new EnrollmentEvent();
+        event.begin();
+        return event;
+    }
+
+    public void finish(String studentId, Object course, Object semester, Metrics.Counter outcome) {
+        end();
+        if (shouldCommit()) {
+            this.studentId = studentId;
+            this.course = String.valueOf(course);
+            this.semester = String.valueOf(semester);
+            this.outcome = outcome.getLabel();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package edu.ccrm.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for an import, export, backup or restore; like EnrollmentEvent, start returns null
+// unless a recording has the event enabled
+@Name("edu.ccrm.Io")
+@Label("CCRM I/O")
+@Category({"CCRM", "I/O"})
+@Description("A CSV import or export, a backup or a restore")
+public final class IoEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(IoEvent.class);
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    @Label("Records")
+    @Description("Rows imported or exported, or files backed up; 0 when the operation failed")
+    long records;
+
+    public static IoEvent start() {
+        if (!TYPE.isEnabled()) return null;
+        IoEvent event = new IoEvent();
+        event.begin();
+        return event;
+    }
+
+    public void finish(Metrics.Operation operation, Object path, long records) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation.getLabel();
+            this.path = String.valueOf(path);
+            this.records = records;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package edu.ccrm.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Process-wide latency histograms and counters for the service and I/O hot paths. Callers take
+// System.nanoTime() before the operation and hand it to record afterwards; both record and add
+// work on preallocated arrays indexed by enum ordinal, so instrumentation allocates nothing.
+// Exposed to JMX as edu.ccrm:type=Metrics once registerMBean has been called.
+//
+// A clock read costs tens of nanoseconds, as much as a whole index lookup, so lookups use
+// startSampled and recordSampled: every call is counted, but only one in SAMPLING is timed.
+public final class Metrics implements MetricsMXBean {
+    public static final String OBJECT_NAME = "edu.ccrm:type=Metrics";
+    public static final int SAMPLING = 16;
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+    private static final Metrics INSTANCE = new Metrics();
+
+    public enum Operation {
+        ENROLL("enroll"),
+        FIND_BY_REG_NO("findByRegNo"),
+        FIND_BY_CODE("findByCode"),
+        GPA_RANKING("gpaRanking"),
+        IMPORT("import"),
+        EXPORT("export"),
+        BACKUP("backup"),
+        RESTORE("restore"),
+        HTTP("http");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() { return label; }
+    }
+
+    public enum Counter {
+        ENROLLED("enroll.ok"),
+        ENROLL_DUPLICATE("enroll.duplicate"),
+        ENROLL_COURSE_FULL("enroll.courseFull"),
+        ENROLL_CREDIT_LIMIT("enroll.creditLimit"),
+        ENROLL_NO_STUDENT("enroll.noStudent"),
+        ENROLL_FAILED("enroll.failed"),
+        ROWS_IMPORTED("import.rows"),
+        ROWS_REJECTED("import.rejected"),
+        ROWS_EXPORTED("export.rows"),
+        BACKUP_BYTES("backup.newBytes"),
+        HTTP_REJECTED("http.rejected");
+
+        private final String label;
+
+        Counter(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() { return label; }
+    }
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Operation.values().length];
+    // Calls per operation that were not timed; the timed ones are counted by the histogram
+    private final LongAdder[] calls = new LongAdder[Operation.values().length];
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+    private boolean registered;
+
+    private Metrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+            calls[i] = new LongAdder();
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    // Records the time since startNanos, a System.nanoTime() reading
+    public void record(Operation operation, long startNanos) {
+        histograms[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    // Start time for recordSampled; the clock is only read for the calls that are timed
+    public long startSampled() {
+        return (ThreadLocalRandom.current().nextInt() & (SAMPLING - 1)) == 0 ? System.nanoTime() : NOT_SAMPLED;
+    }
+
+    public void recordSampled(Operation operation, long start) {
+        if (start == NOT_SAMPLED) {
+            calls[operation.ordinal()].increment();
+        } else {
+            record(operation, start);
+        }
+    }
+
+    public void increment(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    public void add(Counter counter, long amount) {
+        counters[counter.ordinal()].add(amount);
+    }
+
+    public LatencyHistogram.Snapshot snapshot(Operation operation) {
+        return histograms[operation.ordinal()].snapshot();
+    }
+
+    public long get(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    @Override
+    public List<OperationStats> getOperations() {
+        List<OperationStats> stats = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram.Snapshot snapshot = snapshot(operation);
+            stats.add(new OperationStats(operation.getLabel(), snapshot.getCount() + calls[operation.ordinal()].sum(),
+                snapshot));
+        }
+        return stats;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Counter counter : Counter.values()) {
+            values.put(counter.getLabel(), get(counter));
+        }
+        return values;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i].reset();
+            calls[i].reset();
+        }
+        for (LongAdder counter : counters) {
+            counter.reset();
+        }
+    }
+
+    // Latency table followed by the non-zero counters, as printed by the CLI and the batch runner
+    public String format() {
+        StringBuilder table = new StringBuilder(OperationStats.HEADER).append(System.lineSeparator());
+        for (OperationStats stats : getOperations()) {
+            table.append(stats).append(System.lineSeparator());
+        }
+        getCounters().forEach((name, value) -> {
+            if (value != 0) {
+                table.append(String.format("%-20s %12d", name, value)).append(System.lineSeparator());
+            }
+        });
+        return table.toString();
+    }
+
+    // Registers the MXBean with the platform MBean server; later calls do nothing
+    public synchronized void registerMBean() throws JMException {
+        if (registered) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Registered by another class loader's copy; keep that one
+        }
+        registered = true;
+    }
+
+    // One row of the metrics table; also the composite type JMX clients see
+    public static final class OperationStats {
+        public static final String HEADER = String.format("%-12s %10s %9s %9s %9s %9s %9s %9s",
+            "Operation", "Count", "Mean", "p50", "p90", "p99", "p99.9", "Max");
+
+        private final String name;
+        private final long count;
+        private final long timedCount;
+        private final long meanNanos;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maxNanos;
+
+        OperationStats(String name, long count, LatencyHistogram.Snapshot snapshot) {
+            this.name = name;
+            this.count = count;
+            this.timedCount = snapshot.getCount();
+            this.meanNanos = snapshot.getMeanNanos();
+            this.p50Nanos = snapshot.getValueAtPercentile(50);
+            this.p90Nanos = snapshot.getValueAtPercentile(90);
+            this.p99Nanos = snapshot.getValueAtPercentile(99);
+            this.p999Nanos = snapshot.getValueAtPercentile(99.9);
+            this.maxNanos = snapshot.getMaxNanos();
+        }
+
+        public String getName() { return name; }
+        public long getCount() { return count; }
+        public long getTimedCount() { return timedCount; }
+        public long getMeanNanos() { return meanNanos; }
+        public long getP50Nanos() { return p50Nanos; }
+        public long getP90Nanos() { return p90Nanos; }
+        public long getP99Nanos() { return p99Nanos; }
+        public long getP999Nanos() { return p999Nanos; }
+        public long getMaxNanos() { return maxNanos; }
+
+        @Override
+        public String toString() {
+            return String.format("%-12s %10d %9s %9s %9s %9s %9s %9s", name, count, format(meanNanos),
+                format(p50Nanos), format(p90Nanos), format(p99Nanos), format(p999Nanos), format(maxNanos));
+        }
+
+        private String format(long nanos) {
+            return timedCount == 0 ? "-" : LatencyHistogram.format(nanos);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package edu.ccrm.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+// JMX view of Metrics: latency percentiles per operation (in nanoseconds) and the counters.
+// For sampled operations the percentiles come from the timedCount calls out of count.
+public interface MetricsMXBean {
+    List<Metrics.OperationStats> getOperations();
+
+    Map<String, Long> getCounters();
+
+    void reset();
+}
@@ -0,0 +1,262 @@
+package edu.ccrm.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// Bitmap equality indexes over a few low-cardinality fields. Every item gets a dense int
+// surrogate id when it is first added (an item re-added under the same id keeps it), and every
+// value of an indexed field keeps the CompressedBitmap of the ids that have it. Criteria made
+// only of equalities on these fields, joined by and/or/negate, are evaluated with bitwise
+// operations and counted by popcount, without reading the items.
+//
+// The owner keeps the bitmaps current: update re-reads one field of an item, and set records that
+// an item gained or lost one value of a multi-valued field, which spares reading all its values.
+// Field values are read before the index lock is taken, so getters may lock the item but must not
+// use the index.
+final class BitmapIndex<T> {
+    private final Function<T, String> idExtractor;
+    private final Map<String, Field<T, ?>> fields = new LinkedHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private final Map<String, Integer> slots = new HashMap<>();
+    private Object[] items = new Object[1024];
+    private final CompressedBitmap live = new CompressedBitmap();
+    private final Map<String, Map<Object, CompressedBitmap>> bitmaps = new HashMap<>();
+
+    BitmapIndex(Function<T, String> idExtractor, List<Field<T, ?>> indexed) {
+        this.idExtractor = idExtractor;
+        for (Field<T, ?> field : indexed) {
+            fields.put(field.getName(), field);
+            bitmaps.put(field.getName(), new HashMap<>());
+        }
+    }
+
+    void add(T item) {
+        Map<String, Collection<?>> values = read(item);
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            String id = idExtractor.apply(item);
+            Integer existing = slots.get(id);
+            int slot = existing != null ? existing : slots.size();
+            if (existing == null) {
+                slots.put(id, slot);
+                if (slot == items.length) {
+                    items = Arrays.copyOf(items, items.length * 2);
+                }
+            }
+            items[slot] = item;
+            live.add(slot);
+            apply(slot, values, existing != null);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    // Drops the item if it is still the one indexed under its id; the id keeps its slot
+    void remove(T item) {
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            Integer slot = slots.get(idExtractor.apply(item));
+            if (slot == null || items[slot] != item) return;
+            items[slot] = null;
+            live.remove(slot);
+            for (Map<Object, CompressedBitmap> byValue : bitmaps.values()) {
+                byValue.values().forEach(bitmap -> bitmap.remove(slot));
+            }
+        } finally {
+            write.unlock();
+        }
+    }
+
+    // Re-reads one indexed field of an item that is in the index
+    void update(T item, Field<T, ?> field) {
+        Map<Object, CompressedBitmap> byValue = bitmaps.get(field.getName());
+        if (byValue == null) {
+            throw new IllegalArgumentException("Field is not indexed: " + field);
+        }
+        Collection<?> current = field.getAll(item);
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            Integer slot = slots.get(idExtractor.apply(item));
+            if (slot != null && items[slot] == item) {
+                apply(slot, byValue, current, true);
+            }
+        } finally {
+            write.unlock();
+        }
+    }
+
+    // Adds the item to, or removes it from, the bitmap of one value of the field
+    void set(T item, Field<T, ?> field, Object value, boolean present) {
+        Map<Object, CompressedBitmap> byValue = bitmaps.get(field.getName());
+        if (byValue == null) {
+            throw new IllegalArgumentException("Field is not indexed: " + field);
+        }
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            Integer slot = slots.get(idExtractor.apply(item));
+            if (slot == null || items[slot] != item) return;
+            CompressedBitmap bitmap = byValue.get(value);
+            if (present) {
+                if (bitmap == null) {
+                    bitmap = new CompressedBitmap();
+                    byValue.put(value, bitmap);
+                }
+                bitmap.add(slot);
+            } else if (bitmap != null) {
+                bitmap.remove(slot);
+            }
+        } finally {
+            write.unlock();
+        }
+    }
+
+    int size() {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            return live.cardinality();
+        } finally {
+            read.unlock();
+        }
+    }
+
+    // Whether evaluate can answer the criteria without looking at the items
+    boolean canEvaluate(Criteria<T> criteria) {
+        if (criteria instanceof Criteria.Compare) {
+            Criteria.Compare<T, ?> compare = (Criteria.Compare<T, ?>) criteria;
+            return compare.isEquality() && compare.low != null && fields.containsKey(compare.field.getName());
+        }
+        if (criteria instanceof Criteria.Not) {
+            return canEvaluate(((Criteria.Not<T>) criteria).inner);
+        }
+        if (criteria instanceof Criteria.Junction) {
+            for (Criteria<T> part : ((Criteria.Junction<T>) criteria).parts) {
+                if (!canEvaluate(part)) return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // The ids of the matching items, as a bitmap of its own; the criteria must pass canEvaluate
+    CompressedBitmap evaluate(Criteria<T> criteria) {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            CompressedBitmap result = bitmapOf(criteria);
+            // A bare equality yields the stored bitmap itself
+            return criteria instanceof Criteria.Compare ? result.copy() : result;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    // Items for the ids, in id order; ids removed since the bitmap was evaluated are skipped
+    @SuppressWarnings("unchecked")
+    List<T> decode(CompressedBitmap ids) {
+        List<T> result = new ArrayList<>(ids.cardinality());
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            Object[] current = items;
+            ids.forEach(slot -> {
+                Object item = current[slot];
+                if (item != null) result.add((T) item);
+            });
+        } finally {
+            read.unlock();
+        }
+        return result;
+    }
+
+    long sizeInBytes() {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            long bytes = live.sizeInBytes();
+            for (Map<Object, CompressedBitmap> byValue : bitmaps.values()) {
+                for (CompressedBitmap bitmap : byValue.values()) {
+                    bytes += bitmap.sizeInBytes();
+                }
+            }
+            return bytes;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    private Map<String, Collection<?>> read(T item) {
+        Map<String, Collection<?>> values = new HashMap<>();
+        fields.forEach((name, field) -> values.put(name, field.getAll(item)));
+        return values;
+    }
+
+    private void apply(int slot, Map<String, Collection<?>> values, boolean clear) {
+        values.forEach((name, current) -> apply(slot, bitmaps.get(name), current, clear));
+    }
+
+    // Sets the slot in the bitmaps of the field's current values and, unless the slot is new,
+    // clears it in the field's other bitmaps
+    private void apply(int slot, Map<Object, CompressedBitmap> byValue, Collection<?> current, boolean clear) {
+        if (clear) {
+            for (Map.Entry<Object, CompressedBitmap> entry : byValue.entrySet()) {
+                if (!current.contains(entry.getKey())) entry.getValue().remove(slot);
+            }
+        }
+        for (Object value : current) {
+            CompressedBitmap bitmap = byValue.get(value);
+            if (bitmap == null) {
+                bitmap = new CompressedBitmap();
+                byValue.put(value, bitmap);
+            }
+            bitmap.add(slot);
+        }
+    }
+
+    // Stored bitmaps are returned as they are; every other result is newly built
+    private CompressedBitmap bitmapOf(Criteria<T> criteria) {
+        if (criteria instanceof Criteria.Compare) {
+            Criteria.Compare<T, ?> compare = (Criteria.Compare<T, ?>) criteria;
+            CompressedBitmap bitmap = bitmaps.get(compare.field.getName()).get(compare.low);
+            return bitmap == null ? new CompressedBitmap() : bitmap;
+        }
+        if (criteria instanceof Criteria.Not) {
+            return live.andNot(bitmapOf(((Criteria.Not<T>) criteria).inner));
+        }
+        List<CompressedBitmap> parts = new ArrayList<>();
+        for (Criteria<T> part : ((Criteria.Junction<T>) criteria).parts) {
+            parts.add(bitmapOf(part));
+        }
+        if (parts.size() == 1) {
+            return parts.get(0).copy();
+        }
+        if (criteria instanceof Criteria.And) {
+            // Smallest first, so every intermediate result is as small as it can be
+            parts.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+            CompressedBitmap result = parts.get(0).and(parts.get(1));
+            for (int i = 2; i < parts.size() && !result.isEmpty(); i++) {
+                result = result.and(parts.get(i));
+            }
+            return result;
+        }
+        CompressedBitmap result = parts.get(0).or(parts.get(1));
+        for (int i = 2; i < parts.size(); i++) {
+            result = result.or(parts.get(i));
+        }
+        return result;
+    }
+}
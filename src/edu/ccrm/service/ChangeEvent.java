@@ -0,0 +1,99 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.CourseCode;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+
+// One domain mutation as published on the EventBus. Fields that do not apply to the type are null,
+// e.g. only enrollment events carry a semester and only grade events carry grades.
+public final class ChangeEvent {
+    public enum Type {
+        STUDENT_ADDED, STUDENT_UPDATED,
+        COURSE_ADDED, COURSE_UPDATED, COURSE_DELETED,
+        ENROLLED, UNENROLLED, GRADE_RECORDED
+    }
+
+    private final Type type;
+    private final long timestamp;
+    private final Student student;
+    private final Course course;
+    private final CourseCode courseCode;
+    private final Semester semester;
+    private final Grade grade;
+    private final Grade previousGrade;
+    // Position in the bus, assigned when the event is accepted
+    long sequence = -1;
+
+    private ChangeEvent(Type type, Student student, Course course, CourseCode courseCode,
+                        Semester semester, Grade grade, Grade previousGrade) {
+        this.type = type;
+        this.timestamp = System.currentTimeMillis();
+        this.student = student;
+        this.course = course;
+        this.courseCode = courseCode;
+        this.semester = semester;
+        this.grade = grade;
+        this.previousGrade = previousGrade;
+    }
+
+    public static ChangeEvent studentAdded(Student student) {
+        return new ChangeEvent(Type.STUDENT_ADDED, student, null, null, null, null, null);
+    }
+
+    public static ChangeEvent studentUpdated(Student student) {
+        return new ChangeEvent(Type.STUDENT_UPDATED, student, null, null, null, null, null);
+    }
+
+    public static ChangeEvent courseAdded(Course course) {
+        return new ChangeEvent(Type.COURSE_ADDED, null, course, course.getCode(), null, null, null);
+    }
+
+    public static ChangeEvent courseUpdated(Course course) {
+        return new ChangeEvent(Type.COURSE_UPDATED, null, course, course.getCode(), null, null, null);
+    }
+
+    public static ChangeEvent courseDeleted(Course course) {
+        return new ChangeEvent(Type.COURSE_DELETED, null, course, course.getCode(), null, null, null);
+    }
+
+    public static ChangeEvent enrolled(Enrollment enrollment) {
+        return enrollmentEvent(Type.ENROLLED, enrollment, null, null);
+    }
+
+    public static ChangeEvent unenrolled(Enrollment enrollment) {
+        return enrollmentEvent(Type.UNENROLLED, enrollment, null, null);
+    }
+
+    public static ChangeEvent gradeRecorded(Enrollment enrollment, Grade previousGrade) {
+        return enrollmentEvent(Type.GRADE_RECORDED, enrollment, enrollment.getGrade(), previousGrade);
+    }
+
+    private static ChangeEvent enrollmentEvent(Type type, Enrollment enrollment, Grade grade, Grade previousGrade) {
+        Course course = enrollment.getCourse();
+        return new ChangeEvent(type, enrollment.getStudent(), course, course.getCode(),
+            enrollment.getSemester(), grade, previousGrade);
+    }
+
+    public Type getType() { return type; }
+    public long getSequence() { return sequence; }
+    public long getTimestamp() { return timestamp; }
+    public Student getStudent() { return student; }
+    public Course getCourse() { return course; }
+    public CourseCode getCourseCode() { return courseCode; }
+    public Semester getSemester() { return semester; }
+    public Grade getGrade() { return grade; }
+    public Grade getPreviousGrade() { return previousGrade; }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("#").append(sequence).append(' ').append(type);
+        if (student != null) text.append(" student=").append(student.getRegNo());
+        if (courseCode != null) text.append(" course=").append(courseCode);
+        if (semester != null) text.append(" semester=").append(semester);
+        if (type == Type.GRADE_RECORDED) text.append(" grade=").append(previousGrade).append("->").append(grade);
+        return text.toString();
+    }
+}
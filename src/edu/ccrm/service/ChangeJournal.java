@@ -0,0 +1,47 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.CourseCode;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+
+// Receives every successful mutation made through the services, e.g. to persist it
+public interface ChangeJournal {
+    void studentSaved(Student student);
+    void courseSaved(Course course);
+    void courseDeleted(CourseCode code);
+    void enrolled(Student student, Course course, Semester semester);
+    void unenrolled(Student student, Course course);
+    void gradeRecorded(Student student, Course course, Grade grade);
+
+    // Collects the changes of one multi-row operation, so the journal can make them durable
+    // together rather than waiting once per row. Nothing recorded through a group is
+    // guaranteed durable until commit() returns; commit() throws if the changes were lost.
+    interface Group extends ChangeJournal {
+        void commit();
+    }
+
+    // Journals that record each change as it is reported need no grouping of their own
+    default Group group() {
+        ChangeJournal journal = this;
+        return new Group() {
+            @Override public void studentSaved(Student student) { journal.studentSaved(student); }
+            @Override public void courseSaved(Course course) { journal.courseSaved(course); }
+            @Override public void courseDeleted(CourseCode code) { journal.courseDeleted(code); }
+            @Override public void enrolled(Student student, Course course, Semester semester) { journal.enrolled(student, course, semester); }
+            @Override public void unenrolled(Student student, Course course) { journal.unenrolled(student, course); }
+            @Override public void gradeRecorded(Student student, Course course, Grade grade) { journal.gradeRecorded(student, course, grade); }
+            @Override public void commit() { }
+        };
+    }
+
+    ChangeJournal NONE = new ChangeJournal() {
+        @Override public void studentSaved(Student student) { }
+        @Override public void courseSaved(Course course) { }
+        @Override public void courseDeleted(CourseCode code) { }
+        @Override public void enrolled(Student student, Course course, Semester semester) { }
+        @Override public void unenrolled(Student student, Course course) { }
+        @Override public void gradeRecorded(Student student, Course course, Grade grade) { }
+    };
+}
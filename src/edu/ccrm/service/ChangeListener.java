@@ -0,0 +1,9 @@
+package edu.ccrm.service;
+
+import java.util.List;
+
+// Subscriber of the EventBus. Batches arrive on the bus's dispatch thread in publish order;
+// the list is only valid for the duration of the call.
+public interface ChangeListener {
+    void onEvents(List<ChangeEvent> batch);
+}
@@ -0,0 +1,28 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.CourseCode;
+import edu.ccrm.domain.Department;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Queryable course attributes; the code is answered from CourseService's catalog map
+public final class CourseFields {
+    public static final Field<Course, CourseCode> CODE = Field.of(CourseService.CODE_INDEX, CourseCode.class, Course::getCode);
+    public static final Field<Course, String> TITLE = Field.of("title", String.class, Course::getTitle);
+    public static final Field<Course, Integer> CREDITS = Field.of("credits", Integer.class, Course::getCredits);
+    public static final Field<Course, Department> DEPARTMENT = Field.of("department", Department.class, Course::getDepartment);
+    public static final Field<Course, Boolean> ACTIVE = Field.of("active", Boolean.class, Course::isActive);
+    public static final Field<Course, Integer> CAPACITY = Field.of("capacity", Integer.class, Course::getCapacity);
+    public static final Field<Course, Integer> AVAILABLE_SEATS =
+        Field.computed("availableSeats", Integer.class, Course::getAvailableSeats, 2);
+    public static final Field<Course, Integer> WAITLIST =
+        Field.computed("waitlist", Integer.class, Course::getWaitlistSize, 2);
+
+    public static final List<Field<Course, ?>> ALL = Collections.unmodifiableList(Arrays.asList(
+        CODE, TITLE, CREDITS, DEPARTMENT, ACTIVE, CAPACITY, AVAILABLE_SEATS, WAITLIST));
+
+    private CourseFields() { }
+}
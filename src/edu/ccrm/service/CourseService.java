@@ -1,52 +1,277 @@
 package edu.ccrm.service;
 
 import edu.ccrm.domain.Course;
+import edu.ccrm.domain.CourseCode;
+import edu.ccrm.metrics.Metrics;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
-public class CourseService {
-    private final Map<String, Course> courses;
+public class CourseService implements Searchable<Course> {
+    public static final String CODE_INDEX = "code";
+
+    // Keyed by the canonical CourseCode, so a lookup from user input is a parse plus one map probe
+    private final Map<CourseCode, Course> courses;
+    // The catalog as of the last add or delete, behind one root that snapshot() reads
+    private final AtomicReference<PersistentMap<CourseCode, Course>> versions =
+        new AtomicReference<>(PersistentMap.empty());
+    // Replaced wholesale on registration, as in StudentService
+    private volatile Map<String, UniqueIndex<Course>> indexes = new LinkedHashMap<>();
+    private volatile ChangeJournal journal = ChangeJournal.NONE;
+    private volatile EventBus events;
+    private final Metrics metrics = Metrics.getInstance();
+    // The catalog map itself, seen by the query planner as the index on the code field
+    private final FieldIndex<Course> codeIndex = new FieldIndex<Course>() {
+        @Override
+        public String getName() { return CODE_INDEX; }
+
+        @Override
+        public Collection<Course> lookup(Object value) {
+            Course course = value instanceof CourseCode ? courses.get(value) : null;
+            return course == null ? Collections.emptyList() : Collections.singletonList(course);
+        }
+
+        @Override
+        public int count(Object value) {
+            return value instanceof CourseCode && courses.containsKey(value) ? 1 : 0;
+        }
+
+        @Override
+        public boolean isExact() {
+            return true;
+        }
+    };
 
     public CourseService() {
-        this.courses = new HashMap<>();
+        this.courses = new ConcurrentHashMap<>();
     }
 
-    public void addCourse(Course course) {
+    // A code already in the catalog is updated in place: students' enrollments, seat counts and
+    // waitlists refer to the existing object, and courses are compared by identity
+    public synchronized void addCourse(Course course) {
         if (course == null || course.getCode() == null) {
             throw new IllegalArgumentException("Course or CourseCode cannot be null");
         }
-        courses.put(course.getCode().toString(), course);
+        Course existing = courses.get(course.getCode());
+        if (existing != null) {
+            update(existing, course);
+            return;
+        }
+        claimKeys(course);
+        courses.put(course.getCode(), course);
+        publishVersion(course.getCode());
+        record(() -> journal.courseSaved(course), () -> {
+            courses.remove(course.getCode());
+            releaseKeys(course);
+            publishVersion(course.getCode());
+        });
+        publish(ChangeEvent.courseAdded(course));
     }
 
+    @Override
     public List<Course> findAll() {
         return new ArrayList<>(courses.values());
     }
 
+    // Point-in-time catalog, taken in O(1): which courses existed at the moment of the call.
+    // The courses are the live objects, which snapshot students' enrollments also point at, so
+    // their capacity and seat counts are current rather than versioned.
+    public Collection<Course> snapshot() {
+        return versions.get().values();
+    }
+
+    // Same as findByCode
+    @Override
+    public Course findById(String id) {
+        return findByCode(id);
+    }
+
+    // Accepts "CS101", "cs0101" and similar; codes that were never created cannot match a course
     public Course findByCode(String code) {
-        String searchCode = code.toUpperCase();
-        if (searchCode.matches("[A-Z]+\\d+")) {
-            String prefix = searchCode.replaceAll("\\d+$", "");
-            int number = Integer.parseInt(searchCode.substring(prefix.length()));
-            searchCode = String.format("%s%04d", prefix, number);
+        long start = metrics.startSampled();
+        CourseCode courseCode = CourseCode.lookup(code);
+        Course course = courseCode == null ? null : courses.get(courseCode);
+        metrics.recordSampled(Metrics.Operation.FIND_BY_CODE, start);
+        return course;
+    }
+
+    public Course findByCode(CourseCode code) {
+        long start = metrics.startSampled();
+        Course course = courses.get(code);
+        metrics.recordSampled(Metrics.Operation.FIND_BY_CODE, start);
+        return course;
+    }
+
+    @Override
+    public List<Course> search(Predicate<Course> predicate) {
+        return courses.values().stream()
+            .filter(predicate)
+            .collect(Collectors.toList());
+    }
+
+    // Equalities on the code, and on registered unique indexes, are answered without a scan
+    @Override
+    public QueryPlan<Course> plan(Criteria<Course> criteria) {
+        Map<String, FieldIndex<Course>> available = new LinkedHashMap<>(indexes);
+        available.put(CODE_INDEX, codeIndex);
+        return QueryPlanner.plan(criteria, courses.values(), available, null);
+    }
+
+    @Override
+    public UniqueIndex<Course> getIndex(String name) {
+        return indexes.get(name);
+    }
+
+    // Builds the index over the current catalog; fails if two courses share a key
+    @Override
+    public synchronized void registerIndex(UniqueIndex<Course> index) {
+        if (CODE_INDEX.equals(index.getName()) || indexes.containsKey(index.getName())) {
+            throw new IllegalArgumentException("Index already registered: " + index.getName());
         }
-        return courses.get(searchCode);
+        index.clear();
+        courses.values().forEach(index::add);
+        Map<String, UniqueIndex<Course>> updated = new LinkedHashMap<>(indexes);
+        updated.put(index.getName(), index);
+        indexes = updated;
     }
 
-    public void updateCourse(String code, Course updatedCourse) {
-        if (courses.containsKey(code)) {
-            courses.put(code, updatedCourse);
-        } else {
+    // Copies the settings of updatedCourse onto the catalog's course; its code is not changed
+    public synchronized void updateCourse(String code, Course updatedCourse) {
+        CourseCode courseCode = CourseCode.lookup(code);
+        Course course = courseCode == null ? null : courses.get(courseCode);
+        if (course == null) {
+            throw new IllegalArgumentException("Course not found: " + code);
+        }
+        update(course, updatedCourse);
+    }
+
+    // Waitlisted students are not promoted here; StudentService.promoteWaitlisted fills new seats
+    public synchronized void updateCapacity(String code, int capacity) {
+        Course course = findByCode(code);
+        if (course == null) {
             throw new IllegalArgumentException("Course not found: " + code);
         }
+        int previous = course.getCapacity();
+        course.setCapacity(capacity);
+        record(() -> journal.courseSaved(course), () -> course.setCapacity(previous));
+        publish(ChangeEvent.courseUpdated(course));
     }
 
-    public void deleteCourse(String code) {
-        if (courses.containsKey(code)) {
-            courses.remove(code);
+    public synchronized void deleteCourse(String code) {
+        CourseCode courseCode = CourseCode.lookup(code);
+        Course removed = courseCode == null ? null : courses.remove(courseCode);
+        if (removed != null) {
+            releaseKeys(removed);
+            publishVersion(courseCode);
+            record(() -> journal.courseDeleted(removed.getCode()), () -> {
+                claimKeys(removed);
+                courses.put(courseCode, removed);
+                publishVersion(courseCode);
+            });
+            publish(ChangeEvent.courseDeleted(removed));
         } else {
             throw new IllegalArgumentException("Course not found: " + code);
         }
     }
-}
\ No newline at end of file
+
+    public void setJournal(ChangeJournal journal) {
+        this.journal = journal == null ? ChangeJournal.NONE : journal;
+    }
+
+    public void setEventBus(EventBus events) {
+        this.events = events;
+    }
+
+    // Copies the code's current entry into the versions. The live map is read inside the update,
+    // which is retried on contention, so concurrent writers of one code converge on its last value.
+    private void publishVersion(CourseCode code) {
+        versions.updateAndGet(map -> {
+            Course course = courses.get(code);
+            return course == null ? map.remove(code) : map.put(code, course);
+        });
+    }
+
+    private void publish(ChangeEvent event) {
+        EventBus bus = events;
+        if (bus != null) bus.publish(event);
+    }
+
+    // Applies the settings of values to the catalog's course. Catalog writes are serialized on the
+    // service, so a key checked free here is still free when it is claimed.
+    private void update(Course course, Course values) {
+        if (values == course) {
+            journal.courseSaved(course);
+        } else {
+            for (UniqueIndex<Course> index : indexes.values()) {
+                String key = index.keyOf(values);
+                Course owner = index.get(key);
+                if (owner != null && owner != course) {
+                    throw new IllegalArgumentException("Duplicate " + index.getName() + ": " + key);
+                }
+            }
+            Course previous = new Course.Builder(course.getCode())
+                .title(course.getTitle())
+                .credits(course.getCredits())
+                .capacity(course.getCapacity())
+                .department(course.getDepartment())
+                .instructor(course.getInstructor())
+                .build();
+            previous.setActive(course.isActive());
+            copySettings(course, values);
+            record(() -> journal.courseSaved(course), () -> copySettings(course, previous));
+        }
+        publish(ChangeEvent.courseUpdated(course));
+    }
+
+    // Re-keys the course in the unique indexes around the change
+    private void copySettings(Course course, Course values) {
+        releaseKeys(course);
+        course.setTitle(values.getTitle());
+        course.setCredits(values.getCredits());
+        course.setCapacity(values.getCapacity());
+        course.setDepartment(values.getDepartment());
+        course.setInstructor(values.getInstructor());
+        course.setActive(values.isActive());
+        claimKeys(course);
+    }
+
+    // Journals a catalog change that has already been applied; if the journal throws, the change
+    // is undone before the exception reaches the caller
+    private void record(Runnable entry, Runnable undo) {
+        try {
+            entry.run();
+        } catch (RuntimeException e) {
+            try {
+                undo.run();
+            } catch (RuntimeException failure) {
+                e.addSuppressed(failure);
+            }
+            throw e;
+        }
+    }
+
+    // Claims the course's unique keys, undoing partial claims when one is taken
+    private void claimKeys(Course course) {
+        List<UniqueIndex<Course>> claimed = new ArrayList<>();
+        for (UniqueIndex<Course> index : indexes.values()) {
+            if (!index.tryAdd(course)) {
+                claimed.forEach(done -> done.remove(course));
+                throw new IllegalArgumentException("Duplicate " + index.getName() + ": " + index.keyOf(course));
+            }
+            claimed.add(index);
+        }
+    }
+
+    private void releaseKeys(Course course) {
+        for (UniqueIndex<Course> index : indexes.values()) {
+            index.remove(course);
+        }
+    }
+}
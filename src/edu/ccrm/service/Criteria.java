@@ -0,0 +1,252 @@
+package edu.ccrm.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Structured, inspectable query condition: comparisons and prefix matches on Fields, combined
+// with and/or/not. Unlike an opaque Predicate, a Searchable can look inside it and answer from
+// an index. Criteria are immutable; the combinators return new instances.
+public abstract class Criteria<T> {
+    private static final Pattern TERM = Pattern.compile("(\\w+)(>=|<=|\\^=|=|>|<)(.*)");
+
+    Criteria() { }
+
+    public abstract boolean test(T item);
+
+    public Criteria<T> and(Criteria<T> other) {
+        return allOf(Arrays.asList(this, other));
+    }
+
+    public Criteria<T> or(Criteria<T> other) {
+        return anyOf(Arrays.asList(this, other));
+    }
+
+    public Criteria<T> negate() {
+        return new Not<>(this);
+    }
+
+    // The varargs forms copy element by element so the array never escapes, as @SafeVarargs requires
+    @SafeVarargs
+    public static <T> Criteria<T> allOf(Criteria<T>... criteria) {
+        List<Criteria<T>> list = new ArrayList<>(criteria.length);
+        for (Criteria<T> item : criteria) {
+            list.add(item);
+        }
+        return allOf(list);
+    }
+
+    @SafeVarargs
+    public static <T> Criteria<T> anyOf(Criteria<T>... criteria) {
+        List<Criteria<T>> list = new ArrayList<>(criteria.length);
+        for (Criteria<T> item : criteria) {
+            list.add(item);
+        }
+        return anyOf(list);
+    }
+
+    public static <T> Criteria<T> allOf(List<Criteria<T>> criteria) {
+        return new And<>(flatten(criteria, And.class));
+    }
+
+    public static <T> Criteria<T> anyOf(List<Criteria<T>> criteria) {
+        return new Or<>(flatten(criteria, Or.class));
+    }
+
+    // ANDs terms of the form field=value, field>=value, field>value, field<=value, field<value
+    // and field^=prefix, as typed in batch scripts and API queries; field names are matched
+    // ignoring case and values are converted with Field.parse
+    public static <T> Criteria<T> parse(List<Field<T, ?>> fields, List<String> terms) {
+        List<Criteria<T>> parsed = new ArrayList<>();
+        for (String text : terms) {
+            Matcher term = TERM.matcher(text);
+            if (!term.matches()) {
+                throw new IllegalArgumentException("Invalid term: " + text);
+            }
+            Field<T, ?> field = fields.stream()
+                .filter(candidate -> candidate.getName().equalsIgnoreCase(term.group(1)))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown field: " + term.group(1)));
+            parsed.add(term(field, term.group(2), term.group(3)));
+        }
+        return allOf(parsed);
+    }
+
+    private static <T, V> Criteria<T> term(Field<T, V> field, String operator, String text) {
+        if (operator.equals("^=")) {
+            return field.startsWith(text);
+        }
+        V value = field.parse(text);
+        switch (operator) {
+            case ">=" : return field.atLeast(value);
+            case ">" : return field.greaterThan(value);
+            case "<=" : return field.atMost(value);
+            case "<" : return field.lessThan(value);
+            default : return field.eq(value);
+        }
+    }
+
+    // Nested ands (or ors) are merged into one list, so the planner sees every conjunct
+    @SuppressWarnings("unchecked")
+    private static <T> List<Criteria<T>> flatten(List<Criteria<T>> criteria, Class<?> kind) {
+        if (criteria.isEmpty()) {
+            throw new IllegalArgumentException("At least one criterion is required");
+        }
+        List<Criteria<T>> flat = new ArrayList<>();
+        for (Criteria<T> criterion : criteria) {
+            Objects.requireNonNull(criterion, "Criteria cannot be null");
+            if (kind.isInstance(criterion)) {
+                flat.addAll(((Junction<T>) criterion).parts);
+            } else {
+                flat.add(criterion);
+            }
+        }
+        return Collections.unmodifiableList(flat);
+    }
+
+    // Equality when both bounds are the same inclusive value, otherwise a range; a null bound is open
+    static final class Compare<T, V> extends Criteria<T> {
+        final Field<T, V> field;
+        final V low;
+        final boolean lowInclusive;
+        final V high;
+        final boolean highInclusive;
+
+        Compare(Field<T, V> field, V low, boolean lowInclusive, V high, boolean highInclusive) {
+            this.field = field;
+            this.low = low;
+            this.lowInclusive = lowInclusive;
+            this.high = high;
+            this.highInclusive = highInclusive;
+        }
+
+        boolean isEquality() {
+            return lowInclusive && highInclusive && low == high;
+        }
+
+        @Override
+        public boolean test(T item) {
+            return field.anyMatch(item, this::matches);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private boolean matches(V value) {
+            if (isEquality()) {
+                return Objects.equals(value, low);
+            }
+            if (value == null) return false;
+            if (low != null) {
+                int order = ((Comparable) value).compareTo(low);
+                if (order < 0 || (order == 0 && !lowInclusive)) return false;
+            }
+            if (high != null) {
+                int order = ((Comparable) value).compareTo(high);
+                if (order > 0 || (order == 0 && !highInclusive)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            if (isEquality()) return field + " = " + low;
+            if (low != null && high != null) return field + " between " + low + " and " + high;
+            if (low != null) return field + (lowInclusive ? " >= " : " > ") + low;
+            return field + (highInclusive ? " <= " : " < ") + high;
+        }
+    }
+
+    static final class Prefix<T> extends Criteria<T> {
+        final Field<T, String> field;
+        final String prefix;
+
+        Prefix(Field<T, String> field, String prefix) {
+            this.field = field;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public boolean test(T item) {
+            return field.anyMatch(item, value -> value != null && value.startsWith(prefix));
+        }
+
+        @Override
+        public String toString() {
+            return field + " starts with '" + prefix + "'";
+        }
+    }
+
+    abstract static class Junction<T> extends Criteria<T> {
+        final List<Criteria<T>> parts;
+
+        Junction(List<Criteria<T>> parts) {
+            this.parts = parts;
+        }
+
+        String join(String operator) {
+            return parts.stream()
+                .map(part -> part instanceof Junction ? "(" + part + ")" : part.toString())
+                .collect(Collectors.joining(operator));
+        }
+    }
+
+    static final class And<T> extends Junction<T> {
+        And(List<Criteria<T>> parts) {
+            super(parts);
+        }
+
+        @Override
+        public boolean test(T item) {
+            for (Criteria<T> part : parts) {
+                if (!part.test(item)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return join(" AND ");
+        }
+    }
+
+    static final class Or<T> extends Junction<T> {
+        Or(List<Criteria<T>> parts) {
+            super(parts);
+        }
+
+        @Override
+        public boolean test(T item) {
+            for (Criteria<T> part : parts) {
+                if (part.test(item)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return join(" OR ");
+        }
+    }
+
+    static final class Not<T> extends Criteria<T> {
+        final Criteria<T> inner;
+
+        Not(Criteria<T> inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public boolean test(T item) {
+            return !inner.test(item);
+        }
+
+        @Override
+        public String toString() {
+            return "NOT (" + inner + ")";
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exception.CourseFullException;
+import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.exception.MaxCreditLimitExceededException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Bulk enrollment: the whole batch is validated up front (duplicates, then credit caps per student,
+// then seats per course in row order) and applied in one pass with every involved student locked.
+// Students are independent of each other, so large batches apply them in parallel. In atomic mode
+// one failing row leaves the batch unapplied; otherwise every row gets its own status.
+public class EnrollmentBatch {
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    public enum Status {
+        ENROLLED, GRADED, STUDENT_NOT_FOUND, DUPLICATE, CREDIT_LIMIT, COURSE_FULL,
+        // Valid, but not applied because another row of an atomic batch failed
+        SKIPPED;
+
+        public boolean isSuccess() { return this == ENROLLED || this == GRADED; }
+    }
+
+    // Enrolls the student unless already enrolled, then records the grade when one is given.
+    // A graded row for an existing enrollment in the same semester only records the grade.
+    public static final class Request {
+        private final String studentId;
+        private final Course course;
+        private final Semester semester;
+        private final Grade grade;
+
+        public Request(String studentId, Course course, Semester semester, Grade grade) {
+            this.studentId = studentId;
+            this.course = course;
+            this.semester = semester;
+            this.grade = grade;
+        }
+
+        public String getStudentId() { return studentId; }
+        public Course getCourse() { return course; }
+        public Semester getSemester() { return semester; }
+        public Grade getGrade() { return grade; }
+    }
+
+    public static final class Result {
+        private final Status[] statuses;
+        private final String[] messages;
+
+        Result(int size) {
+            this.statuses = new Status[size];
+            this.messages = new String[size];
+        }
+
+        public int size() { return statuses.length; }
+        public Status getStatus(int row) { return statuses[row]; }
+        // Why the row was rejected, or null for applied rows
+        public String getMessage(int row) { return messages[row]; }
+
+        public int getApplied() {
+            return (int) Arrays.stream(statuses).filter(Status::isSuccess).count();
+        }
+
+        public int getRejected() {
+            return size() - getApplied();
+        }
+
+        void fail(int row, Status status, String message) {
+            statuses[row] = status;
+            messages[row] = message;
+        }
+
+        boolean isOpen(int row) {
+            return statuses[row] == null;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("EnrollmentBatch.Result{rows=%d, applied=%d, rejected=%d}", size(), getApplied(), getRejected());
+        }
+    }
+
+    // One student's rows in batch order, plus what was applied so it can be journaled or undone
+    private static final class StudentRows {
+        final Student student;
+        final List<Integer> rows = new ArrayList<>();
+        final List<Integer> applied = new ArrayList<>();
+        final Map<Integer, Grade> previousGrades = new HashMap<>();
+
+        StudentRows(Student student) {
+            this.student = student;
+        }
+    }
+
+    private final List<Request> requests;
+    private final boolean atomic;
+    private final Result result;
+    private final Student[] students;
+
+    EnrollmentBatch(List<Request> requests, boolean atomic) {
+        this.requests = requests;
+        this.atomic = atomic;
+        this.result = new Result(requests.size());
+        this.students = new Student[requests.size()];
+    }
+
+    Result run(StudentService service, StripedLock locks, ChangeJournal journal) {
+        Set<String> ids = requests.stream().map(Request::getStudentId).collect(Collectors.toSet());
+        locks.lockAll(ids);
+        try {
+            List<StudentRows> groups = group(service);
+            checkDuplicates(groups);
+            checkCreditLimits(groups, service);
+            checkSeats();
+            if (atomic && hasFailure()) {
+                skipOpenRows();
+                return result;
+            }
+            forEach(groups, this::apply);
+            if (atomic && hasFailure()) {
+                forEach(groups, this::undo);
+                skipOpenRows();
+            } else {
+                List<Student> changed = groups.stream()
+                    .filter(group -> !group.applied.isEmpty())
+                    .map(group -> group.student)
+                    .collect(Collectors.toList());
+                service.publishVersions(changed);
+                try {
+                    // Every row is handed to the journal first and waited for once
+                    ChangeJournal.Group commit = journal.group();
+                    forEach(groups, group -> journal(group, commit));
+                    commit.commit();
+                } catch (RuntimeException e) {
+                    // A batch the journal could not record is taken back whole, as in atomic mode
+                    forEach(groups, this::undo);
+                    service.publishVersions(changed);
+                    throw e;
+                }
+            }
+        } finally {
+            locks.unlockAll(ids);
+        }
+        // Seats freed by an undone batch go to the waitlists
+        if (atomic && hasFailure()) {
+            Set<Course> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+            requests.forEach(request -> touched.add(request.getCourse()));
+            touched.forEach(service::promoteWaitlisted);
+        }
+        return result;
+    }
+
+    private List<StudentRows> group(StudentService service) {
+        Map<String, StudentRows> groups = new LinkedHashMap<>();
+        for (int row = 0; row < requests.size(); row++) {
+            Request request = requests.get(row);
+            Student student = service.findById(request.getStudentId());
+            if (student == null) {
+                result.fail(row, Status.STUDENT_NOT_FOUND, "Student not found: " + request.getStudentId());
+                continue;
+            }
+            students[row] = student;
+            groups.computeIfAbsent(student.getId(), id -> new StudentRows(student)).rows.add(row);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private void checkDuplicates(List<StudentRows> groups) {
+        for (StudentRows group : groups) {
+            Set<Course> seen = new HashSet<>();
+            for (int row : group.rows) {
+                Request request = requests.get(row);
+                Enrollment existing = group.student.getEnrolledCourses().get(request.getCourse());
+                boolean regrade = existing != null && request.getGrade() != null
+                    && existing.getSemester() == request.getSemester();
+                if (!seen.add(request.getCourse()) || (existing != null && !regrade)) {
+                    result.fail(row, Status.DUPLICATE, "Student " + group.student.getRegNo()
+                        + " is already enrolled in course " + request.getCourse().getCode());
+                }
+            }
+        }
+    }
+
+    // Only ungraded new enrollments count towards the cap, as in Student.enrollInCourse
+    private void checkCreditLimits(List<StudentRows> groups, StudentService service) {
+        for (StudentRows group : groups) {
+            int limit = service.getCreditLimit(group.student);
+            Map<Semester, Integer> planned = new IdentityHashMap<>();
+            for (int row : group.rows) {
+                Request request = requests.get(row);
+                if (!result.isOpen(row) || request.getGrade() != null || isEnrolled(group.student, request)) continue;
+                int credits = planned.getOrDefault(request.getSemester(),
+                    group.student.getInProgressCredits(request.getSemester())) + request.getCourse().getCredits();
+                if (credits > limit) {
+                    result.fail(row, Status.CREDIT_LIMIT,
+                        "Credit limit of " + limit + " exceeded for semester " + request.getSemester());
+                } else {
+                    planned.put(request.getSemester(), credits);
+                }
+            }
+        }
+    }
+
+    // Seats go to rows in batch order; the waitlist is not consulted, since bulk enrollment is an
+    // administrative placement
+    private void checkSeats() {
+        Map<Course, int[]> planned = new IdentityHashMap<>();
+        for (int row = 0; row < requests.size(); row++) {
+            Request request = requests.get(row);
+            if (!result.isOpen(row) || isEnrolled(students[row], request)) continue;
+            int[] seats = planned.computeIfAbsent(request.getCourse(), course -> new int[1]);
+            if (seats[0] >= request.getCourse().getAvailableSeats()) {
+                result.fail(row, Status.COURSE_FULL, "Course " + request.getCourse().getCode() + " is full");
+            } else {
+                seats[0]++;
+            }
+        }
+    }
+
+    private void apply(StudentRows group) {
+        Student student = group.student;
+        for (int row : group.rows) {
+            if (!result.isOpen(row)) continue;
+            Request request = requests.get(row);
+            Enrollment existing = student.getEnrolledCourses().get(request.getCourse());
+            try {
+                if (existing == null) {
+                    // Caps were checked for the whole batch above, with this student locked
+                    student.enrollInCourse(request.getCourse(), request.getSemester(), Integer.MAX_VALUE);
+                } else {
+                    group.previousGrades.put(row, existing.getGrade());
+                }
+                if (request.getGrade() != null) {
+                    student.recordGrade(request.getCourse(), request.getGrade());
+                }
+                group.applied.add(row);
+                result.statuses[row] = existing == null ? Status.ENROLLED : Status.GRADED;
+            } catch (CourseFullException e) {
+                // Another caller took the last seat after the seat check
+                result.fail(row, Status.COURSE_FULL, e.getMessage());
+            } catch (DuplicateEnrollmentException e) {
+                result.fail(row, Status.DUPLICATE, e.getMessage());
+            } catch (MaxCreditLimitExceededException e) {
+                result.fail(row, Status.CREDIT_LIMIT, e.getMessage());
+            }
+        }
+    }
+
+    private void undo(StudentRows group) {
+        for (int i = group.applied.size() - 1; i >= 0; i--) {
+            int row = group.applied.get(i);
+            Request request = requests.get(row);
+            if (result.statuses[row] == Status.ENROLLED) {
+                group.student.unenrollFromCourse(request.getCourse());
+            } else {
+                group.student.recordGrade(request.getCourse(), group.previousGrades.get(row));
+            }
+            result.statuses[row] = null;
+        }
+        group.applied.clear();
+    }
+
+    private void journal(StudentRows group, ChangeJournal journal) {
+        for (int row : group.applied) {
+            Request request = requests.get(row);
+            if (result.statuses[row] == Status.ENROLLED) {
+                journal.enrolled(group.student, request.getCourse(), request.getSemester());
+            }
+            if (request.getGrade() != null) {
+                journal.gradeRecorded(group.student, request.getCourse(), request.getGrade());
+            }
+        }
+    }
+
+    private void forEach(Collection<StudentRows> groups, Consumer<StudentRows> action) {
+        if (groups.size() >= PARALLEL_THRESHOLD) {
+            groups.parallelStream().forEach(action);
+        } else {
+            groups.forEach(action);
+        }
+    }
+
+    private boolean hasFailure() {
+        for (int row = 0; row < result.size(); row++) {
+            if (result.statuses[row] != null && !result.statuses[row].isSuccess()) return true;
+        }
+        return false;
+    }
+
+    private void skipOpenRows() {
+        for (int row = 0; row < result.size(); row++) {
+            if (result.isOpen(row)) {
+                result.fail(row, Status.SKIPPED, "Not applied: another row of the batch was rejected");
+            }
+        }
+    }
+
+    private static boolean isEnrolled(Student student, Request request) {
+        return student != null && student.getEnrolledCourses().containsKey(request.getCourse());
+    }
+}
@@ -0,0 +1,85 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.EnrollmentObserver;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Semester;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Reverse index of enrollments by course, by semester and by (course, semester). Students report
+// their own enrollment changes through the observer, so rosters are direct lookups instead of a
+// scan over every student's enrollment map.
+public class EnrollmentRegistry implements EnrollmentObserver {
+    private final Map<Course, Map<Semester, Set<Enrollment>>> byCourse = new ConcurrentHashMap<>();
+    private final Map<Semester, Set<Enrollment>> bySemester = new ConcurrentHashMap<>();
+
+    @Override
+    public void enrollmentAdded(Enrollment enrollment) {
+        byCourse.computeIfAbsent(enrollment.getCourse(), course -> new ConcurrentHashMap<>())
+            .computeIfAbsent(enrollment.getSemester(), semester -> ConcurrentHashMap.newKeySet())
+            .add(enrollment);
+        bySemester.computeIfAbsent(enrollment.getSemester(), semester -> ConcurrentHashMap.newKeySet())
+            .add(enrollment);
+    }
+
+    @Override
+    public void enrollmentRemoved(Enrollment enrollment) {
+        // Emptied buckets are kept; there is at most one per course and semester
+        Map<Semester, Set<Enrollment>> terms = byCourse.get(enrollment.getCourse());
+        if (terms != null) {
+            Set<Enrollment> section = terms.get(enrollment.getSemester());
+            if (section != null) {
+                section.remove(enrollment);
+            }
+        }
+        Set<Enrollment> term = bySemester.get(enrollment.getSemester());
+        if (term != null) {
+            term.remove(enrollment);
+        }
+    }
+
+    public List<Enrollment> byCourse(Course course) {
+        Map<Semester, Set<Enrollment>> terms = byCourse.get(course);
+        if (terms == null) return new ArrayList<>();
+        List<Enrollment> result = new ArrayList<>();
+        terms.values().forEach(result::addAll);
+        return result;
+    }
+
+    public List<Enrollment> bySemester(Semester semester) {
+        return new ArrayList<>(bySemester.getOrDefault(semester, Collections.emptySet()));
+    }
+
+    public List<Enrollment> byCourseAndSemester(Course course, Semester semester) {
+        return new ArrayList<>(section(course, semester));
+    }
+
+    public int countByCourseAndSemester(Course course, Semester semester) {
+        return section(course, semester).size();
+    }
+
+    // Enrollments in every course the instructor currently teaches, for one semester.
+    // Walks the indexed courses, never the students.
+    public List<Enrollment> byInstructor(Instructor instructor, Semester semester) {
+        List<Enrollment> result = new ArrayList<>();
+        byCourse.forEach((course, terms) -> {
+            if (instructor.equals(course.getInstructor())) {
+                result.addAll(terms.getOrDefault(semester, Collections.emptySet()));
+            }
+        });
+        return result;
+    }
+
+    private Set<Enrollment> section(Course course, Semester semester) {
+        Map<Semester, Set<Enrollment>> terms = byCourse.get(course);
+        if (terms == null) return Collections.emptySet();
+        return terms.getOrDefault(semester, Collections.emptySet());
+    }
+}
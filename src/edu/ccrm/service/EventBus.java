@@ -0,0 +1,154 @@
+package edu.ccrm.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// In-process change stream. Publishers claim a slot of a bounded ring with one CAS and return;
+// a single dispatch thread drains the ring and hands events to subscribers in batches, in publish
+// order. When the ring is full the event is dropped and counted instead of blocking the
+// publisher, so a slow subscriber can never stall enrollment.
+public class EventBus implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final int DEFAULT_MAX_BATCH = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final AtomicReferenceArray<ChangeEvent> ring;
+    private final int mask;
+    private final int maxBatch;
+    // tail: next sequence to claim; head: next sequence to dispatch (written by the dispatcher only)
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long delivered;
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Thread dispatcher;
+    private volatile boolean sleeping;
+    private volatile boolean closed;
+
+    public EventBus() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_BATCH);
+    }
+
+    public EventBus(int minimumCapacity, int maxBatch) {
+        if (minimumCapacity < 1 || maxBatch < 1) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive");
+        }
+        int capacity = Integer.highestOneBit(Math.max(1, minimumCapacity - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.maxBatch = maxBatch;
+        this.dispatcher = new Thread(this::dispatchLoop, "ccrm-events");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    public void subscribe(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Returns false when the event was dropped because the ring is full or the bus is closed
+    public boolean publish(ChangeEvent event) {
+        if (closed) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= ring.length()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        event.sequence = sequence;
+        // The dispatcher spins on a claimed but not yet filled slot, which is only a few instructions away
+        ring.lazySet((int) sequence & mask, event);
+        if (sleeping) {
+            LockSupport.unpark(dispatcher);
+        }
+        return true;
+    }
+
+    public long getPublished() { return tail.get(); }
+    public long getDropped() { return dropped.get(); }
+    public long getDelivered() { return delivered; }
+    public int getCapacity() { return ring.length(); }
+
+    // Waits until every event accepted so far has been delivered; false on timeout
+    public boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+        long target = tail.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (head < target) {
+            if (!dispatcher.isAlive() || System.nanoTime() > deadline) return false;
+            LockSupport.unpark(dispatcher);
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    // Stops accepting events, delivers what is already in the ring and stops the dispatch thread
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatchLoop() {
+        List<ChangeEvent> batch = new ArrayList<>(Math.min(maxBatch, ring.length()));
+        while (true) {
+            long from = head;
+            long available = Math.min(tail.get() - from, maxBatch);
+            if (available == 0) {
+                if (closed) return;
+                sleeping = true;
+                // Re-check after announcing, so a publish racing with the announcement is not missed
+                if (tail.get() == from && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                sleeping = false;
+                continue;
+            }
+            for (long sequence = from; sequence < from + available; sequence++) {
+                int slot = (int) sequence & mask;
+                ChangeEvent event;
+                while ((event = ring.get(slot)) == null) {
+                    Thread.onSpinWait();
+                }
+                ring.lazySet(slot, null);
+                batch.add(event);
+            }
+            head = from + available;
+            deliver(batch);
+            delivered += batch.size();
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<ChangeEvent> batch) {
+        List<ChangeEvent> view = Collections.unmodifiableList(batch);
+        for (ChangeListener listener : listeners) {
+            try {
+                listener.onEvents(view);
+            } catch (RuntimeException e) {
+                // One failing subscriber must not stop delivery to the others
+                System.err.println("Event listener failed: " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.CourseCode;
+import edu.ccrm.domain.Semester;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// A named, typed attribute of T that criteria can compare. The name is also how the query
+// planner matches a field to an index, so a field and the index over it share a name.
+// Cost is the relative price of reading the value (1 for a plain getter); the planner uses it
+// with the estimated selectivity to decide the order filters run in.
+public final class Field<T, V> {
+    private final String name;
+    private final Class<V> type;
+    private final Function<T, V> getter;
+    // Set instead of getter for a field with several values per item (semesters attended, ...)
+    private final Function<T, ? extends Collection<V>> values;
+    private final int cost;
+
+    private Field(String name, Class<V> type, Function<T, V> getter, Function<T, ? extends Collection<V>> values, int cost) {
+        this.name = Objects.requireNonNull(name, "Field name cannot be null");
+        this.type = Objects.requireNonNull(type, "Field type cannot be null");
+        if ((getter == null) == (values == null)) {
+            throw new IllegalArgumentException("Field needs exactly one getter: " + name);
+        }
+        this.getter = getter;
+        this.values = values;
+        if (cost < 1) {
+            throw new IllegalArgumentException("Field cost must be at least 1");
+        }
+        this.cost = cost;
+    }
+
+    public static <T, V> Field<T, V> of(String name, Class<V> type, Function<T, V> getter) {
+        return new Field<>(name, type, Objects.requireNonNull(getter, "Field getter cannot be null"), null, 1);
+    }
+
+    public static <T, V> Field<T, V> computed(String name, Class<V> type, Function<T, V> getter, int cost) {
+        return new Field<>(name, type, Objects.requireNonNull(getter, "Field getter cannot be null"), null, cost);
+    }
+
+    // A criterion on a multi-valued field holds when any one of the item's values satisfies it
+    public static <T, V> Field<T, V> multiValued(String name, Class<V> type, Function<T, ? extends Collection<V>> values, int cost) {
+        return new Field<>(name, type, null, Objects.requireNonNull(values, "Field getter cannot be null"), cost);
+    }
+
+    public String getName() { return name; }
+    public Class<V> getType() { return type; }
+    public int getCost() { return cost; }
+
+    public boolean isMultiValued() { return values != null; }
+
+    public V get(T item) {
+        if (getter == null) {
+            throw new IllegalStateException("Field " + name + " has several values; use getAll");
+        }
+        return getter.apply(item);
+    }
+
+    // The item's values; empty when a single-valued field is null
+    public Collection<V> getAll(T item) {
+        if (values != null) return values.apply(item);
+        V value = getter.apply(item);
+        return value == null ? Collections.emptyList() : Collections.singletonList(value);
+    }
+
+    // Single-valued fields test their value, null included; multi-valued ones each of their values
+    boolean anyMatch(T item, Predicate<? super V> test) {
+        if (getter != null) return test.test(getter.apply(item));
+        for (V value : values.apply(item)) {
+            if (test.test(value)) return true;
+        }
+        return false;
+    }
+
+    public Criteria<T> eq(V value) {
+        return new Criteria.Compare<>(this, value, true, value, true);
+    }
+
+    public Criteria<T> between(V low, V high) {
+        requireComparable();
+        return new Criteria.Compare<>(this, low, true, high, true);
+    }
+
+    public Criteria<T> atLeast(V low) {
+        requireComparable();
+        return new Criteria.Compare<>(this, low, true, null, false);
+    }
+
+    public Criteria<T> greaterThan(V low) {
+        requireComparable();
+        return new Criteria.Compare<>(this, low, false, null, false);
+    }
+
+    public Criteria<T> atMost(V high) {
+        requireComparable();
+        return new Criteria.Compare<>(this, null, false, high, true);
+    }
+
+    public Criteria<T> lessThan(V high) {
+        requireComparable();
+        return new Criteria.Compare<>(this, null, false, high, false);
+    }
+
+    public Criteria<T> startsWith(String prefix) {
+        if (type != String.class) {
+            throw new IllegalArgumentException("Prefix match needs a text field: " + name);
+        }
+        @SuppressWarnings("unchecked")
+        Field<T, String> text = (Field<T, String>) this;
+        return new Criteria.Prefix<>(text, Objects.requireNonNull(prefix, "Prefix cannot be null"));
+    }
+
+    // Converts user input (a batch script or menu entry) to a value of the field's type
+    public V parse(String text) {
+        String value = text.trim();
+        Object parsed;
+        if (type == String.class) {
+            parsed = value;
+        } else if (type == Integer.class) {
+            parsed = Integer.valueOf(value);
+        } else if (type == Long.class) {
+            parsed = Long.valueOf(value);
+        } else if (type == Double.class) {
+            parsed = Double.valueOf(value);
+        } else if (type == Boolean.class) {
+            parsed = Boolean.valueOf(value);
+        } else if (type == CourseCode.class) {
+            parsed = CourseCode.parse(value);
+        } else if (type == Semester.class) {
+            parsed = Semester.valueOf(value.toUpperCase());
+        } else if (type.isEnum()) {
+            parsed = enumConstant(value.toUpperCase());
+        } else {
+            throw new IllegalArgumentException("Cannot parse a value for field " + name);
+        }
+        return type.cast(parsed);
+    }
+
+    // Number of distinct values for enum and boolean fields, 0 when unknown
+    int cardinality() {
+        if (type.isEnum()) return type.getEnumConstants().length;
+        if (type == Boolean.class) return 2;
+        return 0;
+    }
+
+    private Object enumConstant(String constant) {
+        for (V value : type.getEnumConstants()) {
+            if (((Enum<?>) value).name().equals(constant)) return value;
+        }
+        throw new IllegalArgumentException("Unknown " + name + ": " + constant);
+    }
+
+    private void requireComparable() {
+        if (!Comparable.class.isAssignableFrom(type)) {
+            throw new IllegalArgumentException("Range match needs an ordered field: " + name);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
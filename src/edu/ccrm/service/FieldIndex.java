@@ -0,0 +1,18 @@
+package edu.ccrm.service;
+
+import java.util.Collection;
+
+// Equality index the query planner can use for criteria on the field of the same name
+interface FieldIndex<T> {
+    String getName();
+
+    // Candidates for field = value; a superset of the matches unless the index is exact
+    Collection<T> lookup(Object value);
+
+    // Number of candidates lookup would return, without building them
+    int count(Object value);
+
+    // Whether lookup returns exactly the items whose field equals the value, so the planner can
+    // skip re-checking that condition
+    boolean isExact();
+}
@@ -0,0 +1,205 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Department;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+// Top-K GPA leaderboards. Each student's score is computed once and offered to a heap bounded at
+// K entries, so ranking is O(n log K) instead of sorting the roster. Large rosters are split with
+// fork/join; every leaf keeps its own heaps and siblings merge theirs on the way up.
+public class GpaRanking {
+    private static final int LEAF_SIZE = 4096;
+    private static final int PARALLEL_THRESHOLD = 50_000;
+
+    public static final class Entry {
+        private final Student student;
+        private final double gpa;
+
+        Entry(Student student, double gpa) {
+            this.student = student;
+            this.gpa = gpa;
+        }
+
+        public Student getStudent() { return student; }
+        public double getGpa() { return gpa; }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s): GPA = %.2f", student.getFullName(), student.getRegNo(), gpa);
+        }
+    }
+
+    // Best first: higher GPA, then registration number for a stable order between equal GPAs
+    private static final Comparator<Entry> BEST_FIRST = Comparator.comparingDouble(Entry::getGpa).reversed()
+        .thenComparing(entry -> entry.getStudent().getRegNo());
+    private static final Comparator<Entry> WORST_FIRST = BEST_FIRST.reversed();
+
+    private final ForkJoinPool pool;
+
+    public GpaRanking() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public GpaRanking(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public List<Entry> topStudents(Collection<Student> students, int k) {
+        return rank(students, k, 1, student -> student.isActive() ? 0 : -1, Student::calculateGPA).get(0);
+    }
+
+    public Map<Department, List<Entry>> topByDepartment(Collection<Student> students, int k) {
+        Department[] departments = Department.values();
+        List<List<Entry>> ranked = rank(students, k, departments.length,
+            student -> student.isActive() && student.getDepartment() != null ? student.getDepartment().ordinal() : -1,
+            Student::calculateGPA);
+        Map<Department, List<Entry>> leaderboards = new EnumMap<>(Department.class);
+        for (Department department : departments) {
+            leaderboards.put(department, ranked.get(department.ordinal()));
+        }
+        return leaderboards;
+    }
+
+    // Ranks by the GPA earned in one semester; students with no graded course in it are skipped
+    public List<Entry> topForSemester(Collection<Student> students, Semester semester, int k) {
+        return rank(students, k, 1, student -> student.isActive() ? 0 : -1,
+            student -> semesterGpa(student, semester)).get(0);
+    }
+
+    public static double semesterGpa(Student student, Semester semester) {
+        double points = 0;
+        int credits = 0;
+        for (Enrollment enrollment : student.getEnrolledCourses().values()) {
+            // Semesters are canonical, so identity is equality
+            if (enrollment.getGrade() != null && enrollment.getSemester() == semester) {
+                int courseCredits = enrollment.getCredits();
+                points += enrollment.getGrade().getPoints() * courseCredits;
+                credits += courseCredits;
+            }
+        }
+        return credits == 0 ? Double.NaN : points / credits;
+    }
+
+    // groupOf returns -1 to skip a student; a NaN score also skips it
+    private List<List<Entry>> rank(Collection<Student> students, int k, int groups,
+                               ToIntFunction<Student> groupOf, ToDoubleFunction<Student> score) {
+        if (k <= 0) {
+            return toLists(new Heaps(groups, 1));
+        }
+        Student[] roster = students.toArray(new Student[0]);
+        RankTask task = new RankTask(roster, 0, roster.length, k, groups, groupOf, score);
+        Heaps heaps = roster.length < PARALLEL_THRESHOLD ? task.compute() : pool.invoke(task);
+        return toLists(heaps);
+    }
+
+    private static List<List<Entry>> toLists(Heaps heaps) {
+        List<List<Entry>> lists = new ArrayList<>(heaps.queues.length);
+        for (PriorityQueue<Entry> queue : heaps.queues) {
+            Entry[] entries = queue.toArray(new Entry[0]);
+            Arrays.sort(entries, BEST_FIRST);
+            lists.add(new ArrayList<>(Arrays.asList(entries)));
+        }
+        return lists;
+    }
+
+    private static final class Heaps {
+        final PriorityQueue<Entry>[] queues;
+        final int k;
+
+        // A generic array keeps offer() to one array load per student
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Heaps(int groups, int k) {
+            this.k = k;
+            this.queues = new PriorityQueue[groups];
+            for (int g = 0; g < groups; g++) {
+                queues[g] = new PriorityQueue<>(Math.min(k, LEAF_SIZE) + 1, WORST_FIRST);
+            }
+        }
+
+        // Most students lose to the current K-th entry; they are rejected before an Entry is allocated
+        void offer(int group, Student student, double gpa) {
+            PriorityQueue<Entry> queue = queues[group];
+            if (queue.size() >= k && gpa < queue.peek().getGpa()) return;
+            offer(group, new Entry(student, gpa));
+        }
+
+        void offer(int group, Entry entry) {
+            PriorityQueue<Entry> queue = queues[group];
+            if (queue.size() < k) {
+                queue.add(entry);
+            } else if (WORST_FIRST.compare(entry, queue.peek()) > 0) {
+                queue.poll();
+                queue.add(entry);
+            }
+        }
+
+        Heaps merge(Heaps other) {
+            for (int g = 0; g < queues.length; g++) {
+                for (Entry entry : other.queues[g]) {
+                    offer(g, entry);
+                }
+            }
+            return this;
+        }
+    }
+
+    private static final class RankTask extends RecursiveTask<Heaps> {
+        private static final long serialVersionUID = 1L;
+
+        private final Student[] roster;
+        private final int from;
+        private final int to;
+        private final int k;
+        private final int groups;
+        private final ToIntFunction<Student> groupOf;
+        private final ToDoubleFunction<Student> score;
+
+        RankTask(Student[] roster, int from, int to, int k, int groups,
+                 ToIntFunction<Student> groupOf, ToDoubleFunction<Student> score) {
+            this.roster = roster;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+            this.groups = groups;
+            this.groupOf = groupOf;
+            this.score = score;
+        }
+
+        @Override
+        protected Heaps compute() {
+            if (to - from <= LEAF_SIZE || roster.length < PARALLEL_THRESHOLD) {
+                Heaps heaps = new Heaps(groups, k);
+                for (int i = from; i < to; i++) {
+                    Student student = roster[i];
+                    int group = groupOf.applyAsInt(student);
+                    if (group < 0) continue;
+                    double gpa = score.applyAsDouble(student);
+                    if (!Double.isNaN(gpa)) {
+                        heaps.offer(group, student, gpa);
+                    }
+                }
+                return heaps;
+            }
+            int middle = (from + to) >>> 1;
+            RankTask left = new RankTask(roster, from, middle, k, groups, groupOf, score);
+            RankTask right = new RankTask(roster, middle, to, k, groups, groupOf, score);
+            left.fork();
+            Heaps rightHeaps = right.compute();
+            return left.join().merge(rightHeaps);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package edu.ccrm.service;
+
+import java.lang.reflect.Array;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+// Immutable hash array mapped trie. put and remove return a new map that shares every untouched
+// node with this one and copies only the path to the changed entry (at most 7 nodes of up to 32
+// slots), so holding a reference to a map is a snapshot that later writes can never change, and
+// versions nobody references any more are reclaimed by the garbage collector.
+//
+// Nodes keep their keys and values inline, as pairs at the front of the slot array, and their
+// child nodes at the back (the CHAMP layout): a value is one array load away from its node, and
+// iterating reads each node's values in a row before descending. A removal that leaves a child
+// with a single pair moves the pair back into the parent, so the trie stays as shallow as the
+// same keys inserted afresh. Keys whose 32-bit hashes are all equal share a Collision at the
+// bottom level.
+final class PersistentMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(new Node(0, 0, new Object[0]), 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    int size() { return size; }
+
+    @SuppressWarnings("unchecked")
+    V get(K key) {
+        int hash = hash(key);
+        Node node = root;
+        for (int shift = 0; ; shift += BITS) {
+            int bit = bit(hash, shift);
+            if ((node.dataMap & bit) != 0) {
+                int index = node.dataIndex(bit);
+                return key.equals(node.slots[index]) ? (V) node.slots[index + 1] : null;
+            }
+            if ((node.nodeMap & bit) == 0) return null;
+            Object child = node.slots[node.nodeIndex(bit)];
+            if (child instanceof Collision) {
+                return (V) ((Collision) child).get(key);
+            }
+            node = (Node) child;
+        }
+    }
+
+    PersistentMap<K, V> put(K key, V value) {
+        Objects.requireNonNull(key);
+        boolean[] added = new boolean[1];
+        Node updated = root.put(0, key, hash(key), value, added);
+        return updated == root ? this : new PersistentMap<>(updated, added[0] ? size + 1 : size);
+    }
+
+    PersistentMap<K, V> remove(K key) {
+        Node updated = root.remove(0, key, hash(key));
+        if (updated == root) return this;
+        return size == 1 ? empty() : new PersistentMap<>(updated, size - 1);
+    }
+
+    // Read-only view in trie order
+    Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            // Reports copy the view into an array before ranking it; a recursive walk does that
+            // without the iterator's bookkeeping per element
+            @Override
+            public Object[] toArray() {
+                return toArray(new Object[0]);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T[] toArray(T[] array) {
+                T[] values = array.length >= size ? array
+                    : (T[]) Array.newInstance(array.getClass().getComponentType(), size);
+                root.copyValues(values, 0);
+                if (values.length > size) {
+                    values[size] = null;
+                }
+                return values;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static final class Node {
+        // Positions holding an inline pair, and positions holding a child Node or Collision
+        final int dataMap;
+        final int nodeMap;
+        // Pairs in position order, then children in reverse position order
+        final Object[] slots;
+
+        Node(int dataMap, int nodeMap, Object[] slots) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.slots = slots;
+        }
+
+        int dataIndex(int bit) {
+            return 2 * Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        int nodeIndex(int bit) {
+            return slots.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        int dataEnd() {
+            return 2 * Integer.bitCount(dataMap);
+        }
+
+        // Stores this node's values, then its children's, from offset on; returns the next offset
+        int copyValues(Object[] values, int offset) {
+            int dataEnd = dataEnd();
+            for (int i = 1; i < dataEnd; i += 2) {
+                values[offset++] = slots[i];
+            }
+            for (int i = dataEnd; i < slots.length; i++) {
+                Object child = slots[i];
+                if (child instanceof Node) {
+                    offset = ((Node) child).copyValues(values, offset);
+                } else {
+                    Object[] pairs = ((Collision) child).pairs;
+                    for (int j = 1; j < pairs.length; j += 2) {
+                        values[offset++] = pairs[j];
+                    }
+                }
+            }
+            return offset;
+        }
+
+        Node put(int shift, Object key, int hash, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                Object existing = slots[index];
+                if (existing.equals(key)) {
+                    if (slots[index + 1] == value) return this;
+                    Object[] copy = slots.clone();
+                    copy[index + 1] = value;
+                    return new Node(dataMap, nodeMap, copy);
+                }
+                added[0] = true;
+                Object child = merge(shift + BITS, existing, hash(existing), slots[index + 1], key, hash, value);
+                return pairToChild(bit, index, child);
+            }
+            if ((nodeMap & bit) != 0) {
+                int index = nodeIndex(bit);
+                Object child = slots[index];
+                Object updated = child instanceof Node
+                    ? ((Node) child).put(shift + BITS, key, hash, value, added)
+                    : ((Collision) child).put(key, value, added);
+                if (updated == child) return this;
+                Object[] copy = slots.clone();
+                copy[index] = updated;
+                return new Node(dataMap, nodeMap, copy);
+            }
+            added[0] = true;
+            int index = dataIndex(bit);
+            Object[] copy = new Object[slots.length + 2];
+            System.arraycopy(slots, 0, copy, 0, index);
+            copy[index] = key;
+            copy[index + 1] = value;
+            System.arraycopy(slots, index, copy, index + 2, slots.length - index);
+            return new Node(dataMap | bit, nodeMap, copy);
+        }
+
+        // Returns this when the key is absent
+        Node remove(int shift, Object key, int hash) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                if (!slots[index].equals(key)) return this;
+                Object[] copy = new Object[slots.length - 2];
+                System.arraycopy(slots, 0, copy, 0, index);
+                System.arraycopy(slots, index + 2, copy, index, slots.length - index - 2);
+                return new Node(dataMap ^ bit, nodeMap, copy);
+            }
+            if ((nodeMap & bit) == 0) return this;
+            int index = nodeIndex(bit);
+            Object child = slots[index];
+            Object updated;
+            Object[] remaining;
+            if (child instanceof Node) {
+                Node node = ((Node) child).remove(shift + BITS, key, hash);
+                updated = node;
+                remaining = node.nodeMap == 0 ? node.slots : null;
+            } else {
+                Collision collision = ((Collision) child).remove(key);
+                updated = collision;
+                remaining = collision.pairs;
+            }
+            if (updated == child) return this;
+            if (remaining != null && remaining.length == 2) {
+                return childToPair(bit, index, remaining[0], remaining[1]);
+            }
+            Object[] copy = slots.clone();
+            copy[index] = updated;
+            return new Node(dataMap, nodeMap, copy);
+        }
+
+        // Replaces the pair at dataIndex with a child holding it and a new pair
+        private Node pairToChild(int bit, int dataIndex, Object child) {
+            Object[] copy = new Object[slots.length - 1];
+            int nodeIndex = copy.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+            System.arraycopy(slots, 0, copy, 0, dataIndex);
+            System.arraycopy(slots, dataIndex + 2, copy, dataIndex, nodeIndex - dataIndex);
+            copy[nodeIndex] = child;
+            System.arraycopy(slots, nodeIndex + 2, copy, nodeIndex + 1, slots.length - nodeIndex - 2);
+            return new Node(dataMap ^ bit, nodeMap | bit, copy);
+        }
+
+        // Replaces the child at nodeIndex with the single pair left in it
+        private Node childToPair(int bit, int nodeIndex, Object key, Object value) {
+            Object[] copy = new Object[slots.length + 1];
+            int dataIndex = dataIndex(bit);
+            System.arraycopy(slots, 0, copy, 0, dataIndex);
+            copy[dataIndex] = key;
+            copy[dataIndex + 1] = value;
+            System.arraycopy(slots, dataIndex, copy, dataIndex + 2, nodeIndex - dataIndex);
+            System.arraycopy(slots, nodeIndex + 1, copy, nodeIndex + 2, slots.length - nodeIndex - 1);
+            return new Node(dataMap | bit, nodeMap ^ bit, copy);
+        }
+
+        // Two pairs that share a position at the level above, pushed down until their hashes differ
+        private static Object merge(int shift, Object key1, int hash1, Object value1, Object key2, int hash2, Object value2) {
+            if (shift >= 32) {
+                return new Collision(new Object[] { key1, value1, key2, value2 });
+            }
+            int position1 = (hash1 >>> shift) & MASK;
+            int position2 = (hash2 >>> shift) & MASK;
+            if (position1 == position2) {
+                return new Node(0, 1 << position1, new Object[] { merge(shift + BITS, key1, hash1, value1, key2, hash2, value2) });
+            }
+            Object[] pairs = position1 < position2 ? new Object[] { key1, value1, key2, value2 } : new Object[] { key2, value2, key1, value1 };
+            return new Node(1 << position1 | 1 << position2, 0, pairs);
+        }
+    }
+
+    // Pairs whose keys have equal 32-bit hashes, searched linearly
+    private static final class Collision {
+        final Object[] pairs;
+
+        Collision(Object[] pairs) {
+            this.pairs = pairs;
+        }
+
+        Object get(Object key) {
+            for (int i = 0; i < pairs.length; i += 2) {
+                if (pairs[i].equals(key)) return pairs[i + 1];
+            }
+            return null;
+        }
+
+        Collision put(Object key, Object value, boolean[] added) {
+            for (int i = 0; i < pairs.length; i += 2) {
+                if (pairs[i].equals(key)) {
+                    if (pairs[i + 1] == value) return this;
+                    Object[] copy = pairs.clone();
+                    copy[i + 1] = value;
+                    return new Collision(copy);
+                }
+            }
+            added[0] = true;
+            Object[] copy = new Object[pairs.length + 2];
+            System.arraycopy(pairs, 0, copy, 0, pairs.length);
+            copy[pairs.length] = key;
+            copy[pairs.length + 1] = value;
+            return new Collision(copy);
+        }
+
+        // Returns this when the key is absent
+        Collision remove(Object key) {
+            for (int i = 0; i < pairs.length; i += 2) {
+                if (pairs[i].equals(key)) {
+                    Object[] copy = new Object[pairs.length - 2];
+                    System.arraycopy(pairs, 0, copy, 0, i);
+                    System.arraycopy(pairs, i + 2, copy, i, pairs.length - i - 2);
+                    return new Collision(copy);
+                }
+            }
+            return this;
+        }
+    }
+
+    // Depth-first: a node's values, then its children; a trie of 32-bit hashes is at most 7 nodes
+    // deep, plus a Collision
+    private static final class ValueIterator<V> implements Iterator<V> {
+        private final Object[][] stack = new Object[8][];
+        private final int[] positions = new int[8];
+        private final int[] dataEnds = new int[8];
+        private int depth;
+        private Object next;
+        private boolean hasNext;
+
+        ValueIterator(Node root) {
+            stack[0] = root.slots;
+            dataEnds[0] = root.dataEnd();
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (!hasNext) throw new NoSuchElementException();
+            Object value = next;
+            advance();
+            return (V) value;
+        }
+
+        private void advance() {
+            while (depth >= 0) {
+                Object[] slots = stack[depth];
+                int position = positions[depth];
+                if (position < dataEnds[depth]) {
+                    next = slots[position + 1];
+                    positions[depth] = position + 2;
+                    hasNext = true;
+                    return;
+                }
+                if (position == slots.length) {
+                    depth--;
+                    continue;
+                }
+                Object child = slots[position];
+                positions[depth] = position + 1;
+                depth++;
+                if (child instanceof Node) {
+                    stack[depth] = ((Node) child).slots;
+                    dataEnds[depth] = ((Node) child).dataEnd();
+                } else {
+                    stack[depth] = ((Collision) child).pairs;
+                    dataEnds[depth] = ((Collision) child).pairs.length;
+                }
+                positions[depth] = 0;
+            }
+            next = null;
+            hasNext = false;
+        }
+    }
+}
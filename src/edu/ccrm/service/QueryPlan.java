@@ -0,0 +1,151 @@
+package edu.ccrm.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+// How a Searchable answers one Criteria: where candidates come from (an index lookup, a union of
+// lookups, or a scan), the remaining filters in the order they run, and whether the work is
+// split across threads. Executing the plan records rows examined, how many rows each filter let
+// through and the elapsed time; toString prints the plan with those figures, for tuning slow queries.
+public final class QueryPlan<T> {
+    private final Criteria<T> criteria;
+    private final String access;
+    private final Supplier<Collection<T>> candidates;
+    private final long estimatedRows;
+    // Whether estimatedRows is exactly the number of candidates
+    private final boolean exactEstimate;
+    private final long totalRows;
+    private final List<Filter<T>> filters;
+    private final boolean parallel;
+    private volatile boolean executed;
+    private volatile long examined;
+    private volatile long returned;
+    private volatile long elapsedNanos;
+    private volatile long[] passed;
+
+    static final class Filter<T> {
+        final Criteria<T> criteria;
+        final double selectivity;
+        final int cost;
+
+        Filter(Criteria<T> criteria, double selectivity, int cost) {
+            this.criteria = criteria;
+            this.selectivity = selectivity;
+            this.cost = cost;
+        }
+
+        // Cheap filters that reject many rows go first: cost per row removed, lowest first
+        double rank() {
+            return selectivity >= 1 ? Double.MAX_VALUE : cost / (1 - selectivity);
+        }
+    }
+
+    QueryPlan(Criteria<T> criteria, String access, Supplier<Collection<T>> candidates, long estimatedRows,
+              boolean exactEstimate, long totalRows, List<Filter<T>> filters, boolean parallel) {
+        this.criteria = criteria;
+        this.access = access;
+        this.candidates = candidates;
+        this.estimatedRows = estimatedRows;
+        this.exactEstimate = exactEstimate;
+        this.totalRows = totalRows;
+        this.filters = filters;
+        this.parallel = parallel;
+    }
+
+    public List<T> execute() {
+        long start = System.nanoTime();
+        Collection<T> rows = candidates.get();
+        Stream<T> stream = parallel ? rows.parallelStream() : rows.stream();
+        Partial<T> result = stream.collect(Collector.of(() -> new Partial<>(filters), Partial::accept, Partial::merge));
+        elapsedNanos = System.nanoTime() - start;
+        examined = result.examined;
+        returned = result.matches.size();
+        passed = result.passed;
+        executed = true;
+        return result.matches;
+    }
+
+    // Number of matches. When the access path answers every condition and knows its row count
+    // (a bitmap, or an exact index lookup) no row is read; otherwise the plan is executed.
+    public long count() {
+        if (filters.isEmpty() && exactEstimate) {
+            return estimatedRows;
+        }
+        return execute().size();
+    }
+
+    public Criteria<T> getCriteria() { return criteria; }
+    public String getAccess() { return access; }
+    public long getEstimatedRows() { return estimatedRows; }
+    public boolean isParallel() { return parallel; }
+    public long getRowsExamined() { return examined; }
+    public long getRowsReturned() { return returned; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public List<String> getFilters() {
+        List<String> descriptions = new ArrayList<>();
+        filters.forEach(filter -> descriptions.add(filter.criteria.toString()));
+        return descriptions;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append("Query: ").append(criteria).append('\n');
+        text.append(String.format(Locale.ROOT, "Access: %s (%s%,d of %,d rows)%n", access,
+            exactEstimate ? "" : "~", estimatedRows, totalRows));
+        long[] counts = passed;
+        long input = examined;
+        for (int i = 0; i < filters.size(); i++) {
+            Filter<T> filter = filters.get(i);
+            text.append(String.format(Locale.ROOT, "Filter %d: %s (est. %.1f%%", i + 1, filter.criteria, filter.selectivity * 100));
+            if (executed) {
+                text.append(String.format(Locale.ROOT, ", passed %,d of %,d", counts[i], input));
+                input = counts[i];
+            }
+            text.append(")\n");
+        }
+        text.append("Execution: ").append(parallel ? "parallel" : "sequential");
+        if (executed) {
+            text.append(String.format(Locale.ROOT, ", %,d rows examined, %,d returned in %.3f ms",
+                examined, returned, elapsedNanos / 1e6));
+        }
+        return text.toString();
+    }
+
+    // Per-thread matches and filter counters, merged at the end of a parallel run
+    private static final class Partial<T> {
+        final List<Filter<T>> filters;
+        final List<T> matches = new ArrayList<>();
+        final long[] passed;
+        long examined;
+
+        Partial(List<Filter<T>> filters) {
+            this.filters = filters;
+            this.passed = new long[filters.size()];
+        }
+
+        void accept(T item) {
+            examined++;
+            for (int i = 0; i < passed.length; i++) {
+                if (!filters.get(i).criteria.test(item)) return;
+                passed[i]++;
+            }
+            matches.add(item);
+        }
+
+        Partial<T> merge(Partial<T> other) {
+            matches.addAll(other.matches);
+            examined += other.examined;
+            for (int i = 0; i < passed.length; i++) {
+                passed[i] += other.passed[i];
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package edu.ccrm.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Rule-based planner behind Searchable.plan. It looks for the conjunct with the fewest index
+// candidates (an equality on an indexed field, or an OR whose every branch has one), or for the
+// conjuncts a bitmap index can evaluate together, and otherwise scans. The remaining conditions
+// are ordered by estimated cost per row rejected. Selectivity is exact for indexed equalities and
+// uses fixed textbook guesses otherwise.
+final class QueryPlanner {
+    static final int PARALLEL_THRESHOLD = 50_000;
+    private static final double EQUALITY_SELECTIVITY = 0.05;
+    private static final double RANGE_SELECTIVITY = 1.0 / 3;
+    private static final double BETWEEN_SELECTIVITY = 0.25;
+    private static final double PREFIX_SELECTIVITY = 0.1;
+
+    // Candidate source chosen for a criterion; covered are the conjuncts it answers exactly, and
+    // exact says whether the estimate is the number of rows it returns
+    private static final class Access<T> {
+        final String description;
+        final Supplier<Collection<T>> rows;
+        final long estimate;
+        final List<Criteria<T>> covered;
+        final boolean exact;
+
+        Access(String description, Supplier<Collection<T>> rows, long estimate, List<Criteria<T>> covered, boolean exact) {
+            this.description = description;
+            this.rows = rows;
+            this.estimate = estimate;
+            this.covered = covered;
+            this.exact = exact;
+        }
+    }
+
+    private QueryPlanner() { }
+
+    // bitmaps may be null when the searchable keeps no bitmap index
+    static <T> QueryPlan<T> plan(Criteria<T> criteria, Collection<T> all, Map<String, ? extends FieldIndex<T>> indexes,
+                                 BitmapIndex<T> bitmaps) {
+        long total = all.size();
+        Access<T> access = access(criteria, indexes);
+        Access<T> bitmap = bitmaps == null ? null : bitmapAccess(criteria, bitmaps);
+        if (bitmap != null && (access == null || bitmap.estimate <= access.estimate)) {
+            access = bitmap;
+        }
+        if (access == null) {
+            access = new Access<>("full scan", () -> all, total, Collections.emptyList(), true);
+        }
+
+        List<Criteria<T>> remaining = new ArrayList<>(conjuncts(criteria));
+        List<Criteria<T>> covered = access.covered;
+        remaining.removeIf(part -> covered.stream().anyMatch(done -> done == part));
+
+        List<QueryPlan.Filter<T>> filters = new ArrayList<>();
+        for (Criteria<T> part : remaining) {
+            filters.add(new QueryPlan.Filter<>(part, selectivity(part, indexes, total), cost(part)));
+        }
+        filters.sort(Comparator.comparingDouble(QueryPlan.Filter::rank));
+        return new QueryPlan<>(criteria, access.description, access.rows, access.estimate, access.exact, total,
+            Collections.unmodifiableList(filters), access.estimate >= PARALLEL_THRESHOLD);
+    }
+
+    private static <T> List<Criteria<T>> conjuncts(Criteria<T> criteria) {
+        return criteria instanceof Criteria.And ? ((Criteria.And<T>) criteria).parts : Collections.singletonList(criteria);
+    }
+
+    // Every conjunct the bitmap index can evaluate, ANDed into one bitmap now; the rows are read
+    // from it when the plan runs
+    private static <T> Access<T> bitmapAccess(Criteria<T> criteria, BitmapIndex<T> bitmaps) {
+        List<Criteria<T>> covered = new ArrayList<>();
+        for (Criteria<T> part : conjuncts(criteria)) {
+            if (bitmaps.canEvaluate(part)) covered.add(part);
+        }
+        if (covered.isEmpty()) return null;
+        Criteria<T> evaluated = covered.size() == 1 ? covered.get(0) : Criteria.allOf(covered);
+        CompressedBitmap ids = bitmaps.evaluate(evaluated);
+        return new Access<>("bitmap " + evaluated, () -> bitmaps.decode(ids), ids.cardinality(), covered, true);
+    }
+
+    // The cheapest index access for the criterion, or null when only a scan can answer it
+    private static <T> Access<T> access(Criteria<T> criteria, Map<String, ? extends FieldIndex<T>> indexes) {
+        if (criteria instanceof Criteria.Compare) {
+            Criteria.Compare<T, ?> compare = (Criteria.Compare<T, ?>) criteria;
+            FieldIndex<T> index = indexes.get(compare.field.getName());
+            if (index == null || !compare.isEquality() || compare.low == null) return null;
+            Object value = compare.low;
+            return new Access<>("index " + index.getName() + " = " + value, () -> index.lookup(value),
+                index.count(value), index.isExact() ? Collections.singletonList(criteria) : Collections.emptyList(), true);
+        }
+        if (criteria instanceof Criteria.And) {
+            Access<T> best = null;
+            for (Criteria<T> part : ((Criteria.And<T>) criteria).parts) {
+                Access<T> candidate = access(part, indexes);
+                if (candidate != null && (best == null || candidate.estimate < best.estimate)) {
+                    best = candidate;
+                }
+            }
+            // Only a direct conjunct can be dropped from the filters
+            return best == null || ((Criteria.And<T>) criteria).parts.containsAll(best.covered) ? best
+                : new Access<>(best.description, best.rows, best.estimate, Collections.emptyList(), best.exact);
+        }
+        if (criteria instanceof Criteria.Or) {
+            List<Access<T>> branches = new ArrayList<>();
+            long estimate = 0;
+            for (Criteria<T> part : ((Criteria.Or<T>) criteria).parts) {
+                Access<T> branch = access(part, indexes);
+                if (branch == null) return null;
+                branches.add(branch);
+                estimate += branch.estimate;
+            }
+            List<String> descriptions = new ArrayList<>();
+            branches.forEach(branch -> descriptions.add(branch.description));
+            return new Access<>("union of " + String.join(", ", descriptions), () -> {
+                Set<T> union = Collections.newSetFromMap(new IdentityHashMap<>());
+                branches.forEach(branch -> union.addAll(branch.rows.get()));
+                return union;
+            }, estimate, Collections.emptyList(), false);
+        }
+        return null;
+    }
+
+    private static <T> double selectivity(Criteria<T> criteria, Map<String, ? extends FieldIndex<T>> indexes, long total) {
+        if (criteria instanceof Criteria.Compare) {
+            Criteria.Compare<T, ?> compare = (Criteria.Compare<T, ?>) criteria;
+            if (!compare.isEquality()) {
+                return compare.low != null && compare.high != null ? BETWEEN_SELECTIVITY : RANGE_SELECTIVITY;
+            }
+            FieldIndex<T> index = indexes.get(compare.field.getName());
+            if (index != null && compare.low != null && total > 0) {
+                return Math.min(1.0, (double) index.count(compare.low) / total);
+            }
+            int cardinality = compare.field.cardinality();
+            return cardinality > 0 ? 1.0 / cardinality : EQUALITY_SELECTIVITY;
+        }
+        if (criteria instanceof Criteria.Prefix) {
+            return PREFIX_SELECTIVITY;
+        }
+        if (criteria instanceof Criteria.Not) {
+            return 1 - selectivity(((Criteria.Not<T>) criteria).inner, indexes, total);
+        }
+        if (criteria instanceof Criteria.And) {
+            double product = 1;
+            for (Criteria<T> part : ((Criteria.And<T>) criteria).parts) {
+                product *= selectivity(part, indexes, total);
+            }
+            return product;
+        }
+        double none = 1;
+        for (Criteria<T> part : ((Criteria.Or<T>) criteria).parts) {
+            none *= 1 - selectivity(part, indexes, total);
+        }
+        return 1 - none;
+    }
+
+    private static <T> int cost(Criteria<T> criteria) {
+        if (criteria instanceof Criteria.Compare) return ((Criteria.Compare<T, ?>) criteria).field.getCost();
+        if (criteria instanceof Criteria.Prefix) return ((Criteria.Prefix<T>) criteria).field.getCost();
+        if (criteria instanceof Criteria.Not) return cost(((Criteria.Not<T>) criteria).inner);
+        int sum = 0;
+        for (Criteria<T> part : ((Criteria.Junction<T>) criteria).parts) {
+            sum += cost(part);
+        }
+        return sum;
+    }
+}
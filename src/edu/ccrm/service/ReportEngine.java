@@ -0,0 +1,310 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Department;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Student;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Roster analytics computed in one pass over the students and their enrollments. Every statistic
+// is a primitive counter array, so nothing is boxed or collected per student; large rosters are
+// split across a fork/join pool and the partial counters are added together. Results are
+// streamed row by row to a RowSink (CSV or console) instead of being collected first.
+public class ReportEngine {
+    public static final double GPA_BUCKET_WIDTH = 0.5;
+    public static final int MAX_CREDIT_LOAD = 60;
+    private static final int GPA_BUCKETS = (int) (10 / GPA_BUCKET_WIDTH) + 1;
+    private static final int MIN_LEAF_SIZE = 4096;
+    private static final int PARALLEL_THRESHOLD = 50_000;
+    private static final Grade[] GRADES = Grade.values();
+    // Counter column for enrollments that have no grade yet
+    private static final int IN_PROGRESS = GRADES.length;
+
+    public interface RowSink {
+        void row(String section, String key, String metric, String value) throws IOException;
+    }
+
+    private final ForkJoinPool pool;
+
+    public ReportEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ReportEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public Report run(Collection<Student> students, Collection<Course> courses) {
+        Course[] courseTable = courses.toArray(new Course[0]);
+        Map<Course, Integer> courseIndex = new IdentityHashMap<>();
+        for (int i = 0; i < courseTable.length; i++) {
+            courseIndex.put(courseTable[i], i);
+        }
+        Student[] roster = students.toArray(new Student[0]);
+        boolean parallel = roster.length >= PARALLEL_THRESHOLD;
+        // Few, large leaves: each one owns a full set of counters
+        int leafSize = parallel
+            ? Math.max(MIN_LEAF_SIZE, roster.length / (pool.getParallelism() * 4) + 1)
+            : Math.max(1, roster.length);
+        PassTask task = new PassTask(roster, 0, roster.length, leafSize, courseIndex, courseTable.length);
+        Counters counters = parallel ? pool.invoke(task) : task.compute();
+        return new Report(counters, courseTable);
+    }
+
+    // Single-pass counters; merge() adds another partial result into this one
+    static final class Counters {
+        long students;
+        long activeStudents;
+        long gradedStudents;
+        double gpaSum;
+        final long[] gpaHistogram = new long[GPA_BUCKETS];
+        final long[][] departmentGrades = new long[Department.values().length + 1][GRADES.length + 1];
+        final long[][] courseGrades;
+        final long[] creditLoads = new long[MAX_CREDIT_LOAD + 1];
+        long enrollmentsOutsideCatalog;
+
+        Counters(int courseCount) {
+            this.courseGrades = new long[courseCount][GRADES.length + 1];
+        }
+
+        void add(Student student, Map<Course, Integer> courseIndex) {
+            students++;
+            if (student.isActive()) activeStudents++;
+            if (student.getGradedCredits() > 0) {
+                double gpa = student.calculateGPA();
+                gradedStudents++;
+                gpaSum += gpa;
+                gpaHistogram[Math.min(GPA_BUCKETS - 1, (int) (gpa / GPA_BUCKET_WIDTH))]++;
+            }
+            long[] department = departmentGrades[student.getDepartment() == null
+                ? departmentGrades.length - 1 : student.getDepartment().ordinal()];
+            int load = 0;
+            for (Enrollment enrollment : student.getEnrolledCourses().values()) {
+                Grade grade = enrollment.getGrade();
+                int column = grade == null ? IN_PROGRESS : grade.ordinal();
+                department[column]++;
+                Integer course = courseIndex.get(enrollment.getCourse());
+                if (course == null) {
+                    enrollmentsOutsideCatalog++;
+                } else {
+                    courseGrades[course][column]++;
+                }
+                load += enrollment.getCredits();
+            }
+            creditLoads[Math.min(MAX_CREDIT_LOAD, load)]++;
+        }
+
+        Counters merge(Counters other) {
+            students += other.students;
+            activeStudents += other.activeStudents;
+            gradedStudents += other.gradedStudents;
+            gpaSum += other.gpaSum;
+            enrollmentsOutsideCatalog += other.enrollmentsOutsideCatalog;
+            addInto(gpaHistogram, other.gpaHistogram);
+            addInto(creditLoads, other.creditLoads);
+            for (int i = 0; i < departmentGrades.length; i++) {
+                addInto(departmentGrades[i], other.departmentGrades[i]);
+            }
+            for (int i = 0; i < courseGrades.length; i++) {
+                addInto(courseGrades[i], other.courseGrades[i]);
+            }
+            return this;
+        }
+
+        private static void addInto(long[] target, long[] source) {
+            for (int i = 0; i < target.length; i++) {
+                target[i] += source[i];
+            }
+        }
+    }
+
+    private static final class PassTask extends RecursiveTask<Counters> {
+        private static final long serialVersionUID = 1L;
+
+        private final Student[] roster;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final Map<Course, Integer> courseIndex;
+        private final int courseCount;
+
+        PassTask(Student[] roster, int from, int to, int leafSize, Map<Course, Integer> courseIndex, int courseCount) {
+            this.roster = roster;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.courseIndex = courseIndex;
+            this.courseCount = courseCount;
+        }
+
+        @Override
+        protected Counters compute() {
+            if (to - from <= leafSize) {
+                Counters counters = new Counters(courseCount);
+                for (int i = from; i < to; i++) {
+                    counters.add(roster[i], courseIndex);
+                }
+                return counters;
+            }
+            int middle = (from + to) >>> 1;
+            PassTask left = new PassTask(roster, from, middle, leafSize, courseIndex, courseCount);
+            PassTask right = new PassTask(roster, middle, to, leafSize, courseIndex, courseCount);
+            left.fork();
+            Counters rightCounters = right.compute();
+            return left.join().merge(rightCounters);
+        }
+    }
+
+    public static final class Report {
+        private final Counters counters;
+        private final Course[] courses;
+
+        Report(Counters counters, Course[] courses) {
+            this.counters = counters;
+            this.courses = courses;
+        }
+
+        public long getStudentCount() { return counters.students; }
+        public long getGradedStudentCount() { return counters.gradedStudents; }
+        public double getMeanGpa() { return counters.gradedStudents == 0 ? 0.0 : counters.gpaSum / counters.gradedStudents; }
+
+        // Count of graded students per GPA bucket; bucket i covers [i * width, (i + 1) * width)
+        public long[] getGpaHistogram() { return counters.gpaHistogram.clone(); }
+
+        // Smallest credit load that at least p percent of students stay at or below
+        public int creditLoadPercentile(double p) {
+            long rank = (long) Math.ceil(p / 100.0 * counters.students);
+            long seen = 0;
+            for (int load = 0; load < counters.creditLoads.length; load++) {
+                seen += counters.creditLoads[load];
+                if (seen >= Math.max(1, rank)) return load;
+            }
+            return 0;
+        }
+
+        public void emit(RowSink sink) throws IOException {
+            sink.row("summary", "students", "count", String.valueOf(counters.students));
+            sink.row("summary", "students", "active", String.valueOf(counters.activeStudents));
+            sink.row("summary", "students", "graded", String.valueOf(counters.gradedStudents));
+            sink.row("summary", "gpa", "mean", format(getMeanGpa()));
+            if (counters.enrollmentsOutsideCatalog > 0) {
+                sink.row("summary", "enrollments", "outsideCatalog", String.valueOf(counters.enrollmentsOutsideCatalog));
+            }
+
+            for (int i = 0; i < counters.gpaHistogram.length; i++) {
+                double low = i * GPA_BUCKET_WIDTH;
+                String bucket = i == counters.gpaHistogram.length - 1
+                    ? format(low) : format(low) + "-" + format(low + GPA_BUCKET_WIDTH);
+                sink.row("gpaHistogram", bucket, "students", String.valueOf(counters.gpaHistogram[i]));
+            }
+
+            Department[] departments = Department.values();
+            for (int d = 0; d < counters.departmentGrades.length; d++) {
+                String name = d < departments.length ? departments[d].name() : "NONE";
+                emitGrades(sink, "department", name, counters.departmentGrades[d]);
+            }
+            for (int c = 0; c < courses.length; c++) {
+                emitGrades(sink, "course", courses[c].getCode().toString(), counters.courseGrades[c]);
+            }
+
+            for (int p : new int[] { 50, 90, 95, 99 }) {
+                sink.row("creditLoad", "p" + p, "credits", String.valueOf(creditLoadPercentile(p)));
+            }
+            sink.row("creditLoad", "max", "credits", String.valueOf(creditLoadPercentile(100)));
+
+            for (Map.Entry<String, long[]> workload : instructorWorkloads()) {
+                long[] totals = workload.getValue();
+                sink.row("instructor", workload.getKey(), "courses", String.valueOf(totals[0]));
+                sink.row("instructor", workload.getKey(), "enrollments", String.valueOf(totals[1]));
+                sink.row("instructor", workload.getKey(), "creditHours", String.valueOf(totals[2]));
+            }
+        }
+
+        private static void emitGrades(RowSink sink, String section, String key, long[] grades) throws IOException {
+            long graded = 0;
+            for (int g = 0; g < GRADES.length; g++) {
+                graded += grades[g];
+            }
+            if (graded + grades[IN_PROGRESS] == 0) return;
+            for (int g = 0; g < GRADES.length; g++) {
+                sink.row(section, key, "grade" + GRADES[g], String.valueOf(grades[g]));
+            }
+            sink.row(section, key, "inProgress", String.valueOf(grades[IN_PROGRESS]));
+            long failed = grades[Grade.F.ordinal()];
+            sink.row(section, key, "passRate", graded == 0 ? "" : format(100.0 * (graded - failed) / graded));
+            sink.row(section, key, "failRate", graded == 0 ? "" : format(100.0 * failed / graded));
+        }
+
+        // Per instructor: courses taught, enrolled students and credit hours, heaviest first
+        private List<Map.Entry<String, long[]>> instructorWorkloads() {
+            Map<String, long[]> workloads = new LinkedHashMap<>();
+            for (int c = 0; c < courses.length; c++) {
+                Instructor instructor = courses[c].getInstructor();
+                if (instructor == null) continue;
+                long enrolled = 0;
+                for (long count : counters.courseGrades[c]) {
+                    enrolled += count;
+                }
+                long[] totals = workloads.computeIfAbsent(
+                    instructor.getFullName() + " (" + instructor.getId() + ")", key -> new long[3]);
+                totals[0]++;
+                totals[1] += enrolled;
+                totals[2] += enrolled * courses[c].getCredits();
+            }
+            List<Map.Entry<String, long[]>> ranked = new ArrayList<>(workloads.entrySet());
+            ranked.sort(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[2]).reversed());
+            return ranked;
+        }
+
+        private static String format(double value) {
+            return String.valueOf(Math.round(value * 100) / 100.0);
+        }
+    }
+
+    // CSV sink: one Section,Key,Metric,Value line per row
+    public static RowSink csv(Appendable out) throws IOException {
+        out.append("Section,Key,Metric,Value\n");
+        return (section, key, metric, value) -> {
+            out.append(section).append(',');
+            appendEscaped(out, key);
+            out.append(',').append(metric).append(',').append(value).append('\n');
+        };
+    }
+
+    // Console sink: a heading whenever the section or key changes, then one metric per line
+    public static RowSink console(Appendable out) {
+        String[] current = new String[2];
+        return (section, key, metric, value) -> {
+            if (!section.equals(current[0])) {
+                out.append("\n--- ").append(section).append(" ---\n");
+                current[0] = section;
+                current[1] = null;
+            }
+            if (!key.equals(current[1])) {
+                out.append(key).append('\n');
+                current[1] = key;
+            }
+            out.append(String.format("  %-14s %s\n", metric, value));
+        };
+    }
+
+    private static void appendEscaped(Appendable out, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            out.append(value);
+            return;
+        }
+        out.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -4,7 +4,33 @@ import java.util.List;
 import java.util.function.Predicate;
 
 public interface Searchable<T> {
+    // Opaque predicates can only be answered by testing every item
     List<T> search(Predicate<T> predicate);
     List<T> findAll();
     T findById(String id);
-}
\ No newline at end of file
+
+    // Unique secondary indexes (regNo, email, ...) registered by the implementation
+    UniqueIndex<T> getIndex(String name);
+    void registerIndex(UniqueIndex<T> index);
+
+    default T findByKey(String indexName, String key) {
+        UniqueIndex<T> index = getIndex(indexName);
+        if (index == null) {
+            throw new IllegalArgumentException("No index named " + indexName);
+        }
+        return index.get(key);
+    }
+
+    // Structured search: the implementation plans the criteria against its indexes. Execute the
+    // plan to get the results; its toString shows the access path and filter statistics.
+    QueryPlan<T> plan(Criteria<T> criteria);
+
+    default List<T> search(Criteria<T> criteria) {
+        return plan(criteria).execute();
+    }
+
+    // Counts without building the result when an index answers the whole criteria
+    default long count(Criteria<T> criteria) {
+        return plan(criteria).count();
+    }
+}
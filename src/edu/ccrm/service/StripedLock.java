@@ -0,0 +1,49 @@
+package edu.ccrm.service;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Fixed pool of locks selected by key hash, so operations on different students rarely contend
+// while operations on the same student are serialized without a global lock
+public class StripedLock {
+    private final ReentrantLock[] stripes;
+
+    public StripedLock(int minimumStripes) {
+        int size = Integer.highestOneBit(Math.max(1, minimumStripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock lockFor(String key) {
+        return stripes[indexOf(key)];
+    }
+
+    // Acquires the stripes of all keys in ascending stripe order, which keeps multi-key callers deadlock-free
+    public void lockAll(Collection<String> keys) {
+        for (int index : stripeIndexes(keys)) {
+            stripes[index].lock();
+        }
+    }
+
+    public void unlockAll(Collection<String> keys) {
+        for (int index : stripeIndexes(keys).descendingSet()) {
+            stripes[index].unlock();
+        }
+    }
+
+    private TreeSet<Integer> stripeIndexes(Collection<String> keys) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (String key : keys) {
+            indexes.add(indexOf(key));
+        }
+        return indexes;
+    }
+
+    private int indexOf(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,63 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Department;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Queryable student attributes. regNo and email have unique indexes in StudentService, and
+// department, active, semester and grade have bitmap indexes.
+public final class StudentFields {
+    public static final Field<Student, String> ID = Field.of("id", String.class, Student::getId);
+    public static final Field<Student, String> REG_NO = Field.of(StudentService.REG_NO_INDEX, String.class, Student::getRegNo);
+    public static final Field<Student, String> EMAIL = Field.of(StudentService.EMAIL_INDEX, String.class, Student::getEmail);
+    public static final Field<Student, String> FULL_NAME = Field.of("fullName", String.class, Student::getFullName);
+    public static final Field<Student, Department> DEPARTMENT =
+        Field.of(StudentService.DEPARTMENT_INDEX, Department.class, Student::getDepartment);
+    public static final Field<Student, Boolean> ACTIVE = Field.of("active", Boolean.class, Student::isActive);
+    public static final Field<Student, Long> CREATED_AT = Field.of("createdAt", Long.class, Student::getCreatedAtMillis);
+    // Read under the student's monitor
+    public static final Field<Student, Double> GPA = Field.computed("gpa", Double.class, Student::calculateGPA, 4);
+    public static final Field<Student, Integer> GRADED_CREDITS =
+        Field.computed("gradedCredits", Integer.class, Student::getGradedCredits, 4);
+    public static final Field<Student, Integer> ENROLLMENTS =
+        Field.computed("enrollments", Integer.class, student -> student.getEnrolledCourses().size(), 2);
+    // The semesters the student has an enrollment in, graded or not
+    public static final Field<Student, Semester> SEMESTER =
+        Field.multiValued("semester", Semester.class, StudentFields::semesters, 2);
+    // The grades the student has received
+    public static final Field<Student, Grade> GRADE = Field.multiValued("grade", Grade.class, StudentFields::grades, 2);
+
+    public static final List<Field<Student, ?>> ALL = Collections.unmodifiableList(Arrays.asList(
+        ID, REG_NO, EMAIL, FULL_NAME, DEPARTMENT, ACTIVE, CREATED_AT, GPA, GRADED_CREDITS, ENROLLMENTS,
+        SEMESTER, GRADE));
+
+    private StudentFields() { }
+
+    private static List<Semester> semesters(Student student) {
+        List<Semester> semesters = new ArrayList<>(2);
+        for (Enrollment enrollment : student.getEnrolledCourses().values()) {
+            if (!semesters.contains(enrollment.getSemester())) {
+                semesters.add(enrollment.getSemester());
+            }
+        }
+        return semesters;
+    }
+
+    private static List<Grade> grades(Student student) {
+        List<Grade> grades = new ArrayList<>(2);
+        for (Enrollment enrollment : student.getEnrolledCourses().values()) {
+            Grade grade = enrollment.getGrade();
+            if (grade != null && !grades.contains(grade)) {
+                grades.add(grade);
+            }
+        }
+        return grades;
+    }
+}
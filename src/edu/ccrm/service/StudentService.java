@@ -1,46 +1,476 @@
 package edu.ccrm.service;
 
 import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Department;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.EnrollmentObserver;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Person;
+import edu.ccrm.domain.PersonObserver;
 import edu.ccrm.domain.Semester;
 import edu.ccrm.domain.Student;
+import edu.ccrm.exception.CourseFullException;
 import edu.ccrm.exception.DuplicateEnrollmentException;
 import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.metrics.EnrollmentEvent;
+import edu.ccrm.metrics.Metrics;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class StudentService implements Searchable<Student> {
+    public static final String REG_NO_INDEX = "regNo";
+    public static final String EMAIL_INDEX = "email";
+    public static final String DEPARTMENT_INDEX = "department";
+    private static final int LOCK_STRIPES = 256;
+
     private final Map<String, Student> students;
+    // Read-only copies of every student as of its last committed change, behind one root that
+    // snapshot() reads. Copies are published with the student's stripe held, in commit order.
+    private final AtomicReference<PersistentMap<String, Student>> versions =
+        new AtomicReference<>(PersistentMap.empty());
+    // Replaced wholesale on registration so readers never see a half-built registry
+    private volatile Map<String, UniqueIndex<Student>> indexes;
+    private final UniqueIndex<Student> regNoIndex;
+    // Bitmaps over surrogate ids for the low-cardinality fields, kept current by the observers below
+    private final BitmapIndex<Student> bitmaps = new BitmapIndex<>(Student::getId, Arrays.asList(
+        StudentFields.DEPARTMENT, StudentFields.ACTIVE, StudentFields.SEMESTER, StudentFields.GRADE));
+    // Mutations of one student are serialized on its stripe; journal calls stay inside the
+    // lock so the log records each student's changes in the order they were applied
+    private final StripedLock locks;
+    private volatile ChangeJournal journal = ChangeJournal.NONE;
+    // Name/email search; students report their own renames through the observer
+    private final TextSearchIndex<Student> textIndex =
+        new TextSearchIndex<>(Student::getFullName, Student::getEmail);
+    private final PersonObserver studentObserver = new PersonObserver() {
+        @Override
+        public void contactDetailsChanged(Person person) {
+            textIndex.update((Student) person);
+        }
+
+        // Any email change, including a direct Person.setEmail, moves the unique key; a taken
+        // address is rejected before the student keeps it
+        @Override
+        public void emailChanged(Person person, String oldEmail) {
+            indexes.get(EMAIL_INDEX).update((Student) person, oldEmail);
+        }
+
+        @Override
+        public void activeChanged(Person person) {
+            bitmaps.update((Student) person, StudentFields.ACTIVE);
+        }
+    };
+    private final GpaRanking ranking = new GpaRanking();
+    private final ReportEngine reports = new ReportEngine();
+    // Rosters by course and semester; students push their enrollment changes into it
+    private final EnrollmentRegistry enrollments = new EnrollmentRegistry();
+    // Optional change stream; null until a bus is attached
+    private volatile EventBus events;
+    private final EnrollmentObserver enrollmentObserver = new EnrollmentObserver() {
+        @Override
+        public void enrollmentAdded(Enrollment enrollment) {
+            enrollments.enrollmentAdded(enrollment);
+            // A new enrollment has no grade yet; restored grades are reported through gradeRecorded
+            bitmaps.set(enrollment.getStudent(), StudentFields.SEMESTER, enrollment.getSemester(), true);
+            EventBus bus = events;
+            if (bus != null) bus.publish(ChangeEvent.enrolled(enrollment));
+        }
+
+        @Override
+        public void enrollmentRemoved(Enrollment enrollment) {
+            enrollments.enrollmentRemoved(enrollment);
+            Student student = enrollment.getStudent();
+            Semester semester = enrollment.getSemester();
+            bitmaps.set(student, StudentFields.SEMESTER, semester,
+                hasEnrollment(student, other -> other.getSemester() == semester));
+            Grade grade = enrollment.getGrade();
+            if (grade != null) {
+                bitmaps.set(student, StudentFields.GRADE, grade, hasEnrollment(student, other -> other.getGrade() == grade));
+            }
+            EventBus bus = events;
+            if (bus != null) bus.publish(ChangeEvent.unenrolled(enrollment));
+        }
+
+        @Override
+        public void gradeRecorded(Enrollment enrollment, Grade previousGrade) {
+            Student student = enrollment.getStudent();
+            if (enrollment.getGrade() != null) {
+                bitmaps.set(student, StudentFields.GRADE, enrollment.getGrade(), true);
+            }
+            if (previousGrade != null && previousGrade != enrollment.getGrade()) {
+                bitmaps.set(student, StudentFields.GRADE, previousGrade,
+                    hasEnrollment(student, other -> other.getGrade() == previousGrade));
+            }
+            EventBus bus = events;
+            if (bus != null) bus.publish(ChangeEvent.gradeRecorded(enrollment, previousGrade));
+        }
+
+        // A course's credits changed: the student's totals were updated in place, so its snapshot
+        // copy is replaced the way every other write replaces it, under the student's stripe
+        @Override
+        public void creditsChanged(Enrollment enrollment) {
+            Student student = enrollment.getStudent();
+            Lock lock = locks.lockFor(student.getId());
+            lock.lock();
+            try {
+                if (students.get(student.getId()) == student) {
+                    publishVersion(student);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Handovers only move the student's rosters; the enrollments themselves are not new, and
+        // the bitmaps are set from the whole student when it is added
+        @Override
+        public void attached(Collection<Enrollment> current) {
+            enrollments.attached(current);
+        }
+
+        @Override
+        public void detached(Collection<Enrollment> current) {
+            enrollments.detached(current);
+        }
+    };
+    private final Metrics metrics = Metrics.getInstance();
+    // Per-semester credit cap by department ordinal; the last slot is for students without one
+    private volatile int[] creditLimits = defaultCreditLimits(Student.DEFAULT_MAX_CREDITS);
 
     public StudentService() {
-        this.students = new HashMap<>();
+        this.students = new ConcurrentHashMap<>();
+        this.indexes = new LinkedHashMap<>();
+        this.locks = new StripedLock(LOCK_STRIPES);
+        this.regNoIndex = new UniqueIndex<>(REG_NO_INDEX, Student::getRegNo);
+        registerIndex(regNoIndex);
+        registerIndex(new UniqueIndex<>(EMAIL_INDEX, Student::getEmail, true));
     }
 
     public void addStudent(Student student) {
-        students.put(student.getId(), student);
+        requireLive(student);
+        Lock lock = locks.lockFor(student.getId());
+        lock.lock();
+        try {
+            // Re-adding under the same id keeps the keys that student already owns
+            Student existing = students.get(student.getId());
+            claimKeys(student, existing);
+            if (existing != null && existing != student) {
+                retire(existing, student);
+            }
+            install(student);
+            textIndex.add(student);
+            publishVersion(student);
+            try {
+                journal.studentSaved(student);
+            } catch (RuntimeException e) {
+                restore(student, existing);
+                throw e;
+            }
+            publish(existing == null ? ChangeEvent.studentAdded(student) : ChangeEvent.studentUpdated(student));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Bulk insert used by imports: the whole batch is validated before anything is added,
+    // and a key lost to a concurrent writer rolls the partial batch back
+    public void addStudents(Collection<Student> batch) {
+        batch.forEach(StudentService::requireLive);
+        List<String> ids = batch.stream().map(Student::getId).collect(Collectors.toList());
+        locks.lockAll(ids);
+        try {
+            for (UniqueIndex<Student> index : indexes.values()) {
+                Set<String> seen = new HashSet<>();
+                for (Student student : batch) {
+                    String key = index.keyOf(student);
+                    if (key == null) continue;
+                    Student owner = index.get(key);
+                    boolean taken = owner != null && !owner.getId().equals(student.getId());
+                    if (taken || !seen.add(key)) {
+                        throw new IllegalArgumentException("Duplicate " + index.getName() + ": " + key);
+                    }
+                }
+            }
+            Map<Student, Student> claimed = new LinkedHashMap<>();
+            try {
+                for (Student student : batch) {
+                    Student existing = students.get(student.getId());
+                    claimKeys(student, existing);
+                    claimed.put(student, existing);
+                }
+            } catch (IllegalArgumentException e) {
+                claimed.forEach(this::releaseKeys);
+                throw e;
+            }
+            claimed.forEach((student, existing) -> {
+                if (existing != null && existing != student) {
+                    retire(existing, student);
+                }
+                install(student);
+            });
+            textIndex.addAll(batch);
+            publishVersions(batch);
+            try {
+                ChangeJournal.Group commit = journal.group();
+                for (Student student : batch) {
+                    commit.studentSaved(student);
+                }
+                commit.commit();
+            } catch (RuntimeException e) {
+                // The whole import is taken back, including students whose records were written
+                claimed.forEach(this::restore);
+                throw e;
+            }
+            claimed.forEach((student, existing) ->
+                publish(existing == null ? ChangeEvent.studentAdded(student) : ChangeEvent.studentUpdated(student)));
+        } finally {
+            locks.unlockAll(ids);
+        }
     }
 
     public Student findByRegNo(String regNo) {
-        for (Student student : students.values()) {
-            if (student.getRegNo().equals(regNo)) {
-                return student;
+        long start = metrics.startSampled();
+        Student student = regNoIndex.get(regNo);
+        metrics.recordSampled(Metrics.Operation.FIND_BY_REG_NO, start);
+        return student;
+    }
+
+    public Student findByEmail(String email) {
+        return findByKey(EMAIL_INDEX, email);
+    }
+
+    public void updateStudent(Student student, String fullName, String email) {
+        requireLive(student);
+        Lock lock = locks.lockFor(student.getId());
+        lock.lock();
+        try {
+            String previousName = student.getFullName();
+            String previousEmail = student.getEmail();
+            // Everything that can reject the update is checked before anything is changed
+            if (email != null && !email.trim().isEmpty()) {
+                Student owner = indexes.get(EMAIL_INDEX).get(email);
+                if (owner != null && !owner.equals(student)) {
+                    throw new IllegalArgumentException("Duplicate " + EMAIL_INDEX + ": " + email);
+                }
+                // Re-keyed by the observer, which leaves the old address in place if another
+                // student claimed the new one since the check above
+                student.setEmail(email);
+            }
+            if (fullName != null && !fullName.trim().isEmpty()) {
+                student.setFullName(fullName);
+            }
+            publishVersion(student);
+            record(student, () -> journal.studentSaved(student), () -> {
+                student.setEmail(previousEmail);
+                student.setFullName(previousName);
+            });
+            publish(ChangeEvent.studentUpdated(student));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void deactivateStudent(String studentId) {
+        Lock lock = locks.lockFor(studentId);
+        lock.lock();
+        try {
+            Student student = students.get(studentId);
+            if (student == null) {
+                throw new IllegalArgumentException("Student not found: " + studentId);
             }
+            // Deactivated students keep their regNo and email reserved
+            boolean wasActive = student.isActive();
+            student.setActive(false);
+            publishVersion(student);
+            record(student, () -> journal.studentSaved(student), () -> student.setActive(wasActive));
+            publish(ChangeEvent.studentUpdated(student));
+        } finally {
+            lock.unlock();
         }
-        return null;
     }
 
-    public void enrollStudent(String studentId, Course course, Semester semester) 
+    public void enrollStudent(String studentId, Course course, Semester semester)
+        throws DuplicateEnrollmentException, MaxCreditLimitExceededException, CourseFullException {
+
+        long start = System.nanoTime();
+        EnrollmentEvent event = EnrollmentEvent.start();
+        Metrics.Counter outcome = Metrics.Counter.ENROLL_NO_STUDENT;
+        Lock lock = locks.lockFor(studentId);
+        lock.lock();
+        try {
+            Student student = students.get(studentId);
+            if (student != null) {
+                student.enrollInCourse(course, semester, getCreditLimit(student));
+                publishVersion(student);
+                record(student, () -> journal.enrolled(student, course, semester),
+                    () -> student.unenrollFromCourse(course));
+                outcome = Metrics.Counter.ENROLLED;
+            }
+        } catch (Exception e) {
+            outcome = enrollmentFailure(e);
+            throw e;
+        } finally {
+            lock.unlock();
+            metrics.record(Metrics.Operation.ENROLL, start);
+            metrics.increment(outcome);
+            if (event != null) event.finish(studentId, course.getCode(), semester, outcome);
+        }
+    }
+
+    private static Metrics.Counter enrollmentFailure(Exception e) {
+        if (e instanceof DuplicateEnrollmentException) return Metrics.Counter.ENROLL_DUPLICATE;
+        if (e instanceof CourseFullException) return Metrics.Counter.ENROLL_COURSE_FULL;
+        if (e instanceof MaxCreditLimitExceededException) return Metrics.Counter.ENROLL_CREDIT_LIMIT;
+        return Metrics.Counter.ENROLL_FAILED;
+    }
+
+    // Enrolls the student, or queues them when the course is full or others are already waiting.
+    // Returns 0 when enrolled, otherwise the student's waitlist position.
+    public int enrollOrWaitlist(String studentId, Course course, Semester semester)
         throws DuplicateEnrollmentException, MaxCreditLimitExceededException {
-        
+
         Student student = students.get(studentId);
-        if (student != null) {
-            student.enrollInCourse(course, semester);
+        if (student == null) {
+            throw new IllegalArgumentException("Student not found: " + studentId);
+        }
+        // Checking for a free seat first keeps a full course off the exception path
+        if (course.getWaitlistSize() == 0 && course.getAvailableSeats() > 0) {
+            try {
+                enrollStudent(studentId, course, semester);
+                return 0;
+            } catch (CourseFullException e) {
+                // Fall through to the waitlist
+            }
+        }
+        if (student.getEnrolledCourses().containsKey(course)) {
+            throw new DuplicateEnrollmentException(
+                "Student " + student.getRegNo() + " is already enrolled in course " + course.getCode());
+        }
+        int position = course.addToWaitlist(student, semester);
+        if (position < 0) {
+            throw new DuplicateEnrollmentException(
+                "Student " + student.getRegNo() + " is already waitlisted for course " + course.getCode());
+        }
+        // A seat may have been freed between the failed reservation and joining the queue
+        promoteWaitlisted(course);
+        return student.getEnrolledCourses().containsKey(course) ? 0 : position;
+    }
+
+    // Validates the whole batch before applying it; see EnrollmentBatch for the rules
+    public EnrollmentBatch.Result enrollAll(List<EnrollmentBatch.Request> requests, boolean atomic) {
+        return new EnrollmentBatch(requests, atomic).run(this, locks, journal);
+    }
+
+    public void unenrollStudent(String studentId, Course course) {
+        Lock lock = locks.lockFor(studentId);
+        lock.lock();
+        try {
+            Student student = students.get(studentId);
+            Enrollment enrollment = student == null ? null : student.getEnrolledCourses().get(course);
+            if (enrollment != null) {
+                student.unenrollFromCourse(course);
+                publishVersion(student);
+                record(student, () -> journal.unenrolled(student, course),
+                    () -> student.restoreEnrollment(course, enrollment.getSemester(), enrollment.getGrade()));
+            }
+        } finally {
+            lock.unlock();
+        }
+        // Promotion locks other students, so it runs after this student's stripe is released
+        promoteWaitlisted(course);
+    }
+
+    // Moves waitlisted students into free seats in queue order, dropping entries that are no longer eligible
+    public void promoteWaitlisted(Course course) {
+        while (course.getAvailableSeats() > 0) {
+            Course.WaitlistEntry next = course.pollWaitlist();
+            if (next == null) return;
+            String studentId = next.getStudent().getId();
+            Lock lock = locks.lockFor(studentId);
+            lock.lock();
+            try {
+                // The entry may name an instance that has since been replaced under the same id
+                Student student = students.get(studentId);
+                if (student == null || !student.isActive()) continue;
+                student.enrollInCourse(course, next.getSemester(), getCreditLimit(student));
+                publishVersion(student);
+                record(student, () -> journal.enrolled(student, course, next.getSemester()), () -> {
+                    student.unenrollFromCourse(course);
+                    course.returnToWaitlist(next);
+                });
+            } catch (CourseFullException e) {
+                // A direct enrollment took the seat first; keep this student at the head of the queue
+                course.returnToWaitlist(next);
+                return;
+            } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException e) {
+                // No longer eligible, try the next student
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public void recordGrade(String studentId, Course course, Grade grade) {
+        Lock lock = locks.lockFor(studentId);
+        lock.lock();
+        try {
+            Student student = students.get(studentId);
+            Enrollment enrollment = student == null ? null : student.getEnrolledCourses().get(course);
+            if (enrollment != null) {
+                Grade previous = enrollment.getGrade();
+                student.recordGrade(course, grade);
+                publishVersion(student);
+                record(student, () -> journal.gradeRecorded(student, course, grade),
+                    () -> student.recordGrade(course, previous));
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
+    public List<Enrollment> getEnrollments(Course course) {
+        return enrollments.byCourse(course);
+    }
+
+    public List<Enrollment> getEnrollments(Semester semester) {
+        return enrollments.bySemester(semester);
+    }
+
+    public List<Enrollment> getEnrollments(Course course, Semester semester) {
+        return enrollments.byCourseAndSemester(course, semester);
+    }
+
+    public int getEnrollmentCount(Course course, Semester semester) {
+        return enrollments.countByCourseAndSemester(course, semester);
+    }
+
+    // Class list for one course section, ordered by registration number
+    public List<Enrollment> getClassList(Course course, Semester semester) {
+        List<Enrollment> classList = enrollments.byCourseAndSemester(course, semester);
+        classList.sort(Comparator.comparing(enrollment -> enrollment.getStudent().getRegNo()));
+        return classList;
+    }
+
+    // Every student taught by the instructor in the semester, ordered by course then registration number
+    public List<Enrollment> getInstructorRoster(Instructor instructor, Semester semester) {
+        List<Enrollment> roster = enrollments.byInstructor(instructor, semester);
+        roster.sort(Comparator.comparing((Enrollment enrollment) -> enrollment.getCourse().getCode().getFullCode())
+            .thenComparing(enrollment -> enrollment.getStudent().getRegNo()));
+        return roster;
+    }
+
     // Using Streams for search operations
     @Override
     public List<Student> search(Predicate<Student> predicate) {
@@ -49,20 +479,100 @@ public class StudentService implements Searchable<Student> {
             .collect(Collectors.toList());
     }
 
+    // Equalities on regNo and email are answered from the unique indexes, and equalities on
+    // department, active, semester and grade, in any and/or/negate combination, from the bitmaps
+    @Override
+    public QueryPlan<Student> plan(Criteria<Student> criteria) {
+        return QueryPlanner.plan(criteria, students.values(), indexes, bitmaps);
+    }
+
+    // Approximate heap used by the bitmap indexes
+    public long getBitmapIndexBytes() {
+        return bitmaps.sizeInBytes();
+    }
+
+    // Ranked case-insensitive substring match on name or email, served from the trigram index
+    public List<Student> searchText(String query, int limit) {
+        return textIndex.search(query, TextSearchIndex.Mode.SUBSTRING, limit);
+    }
+
+    // Only matches at the start of the name, the email or one of their words
+    public List<Student> searchPrefix(String query, int limit) {
+        return textIndex.search(query, TextSearchIndex.Mode.PREFIX, limit);
+    }
+
+    // Reports read from snapshot(), so they see each student's last committed state and never
+    // wait for, or get torn by, concurrent enrollment and grading
     public List<Student> getTopStudents(int count) {
-        return students.values().stream()
-            .filter(Student::isActive)
-            .sorted((s1, s2) -> Double.compare(s2.calculateGPA(), s1.calculateGPA()))
-            .limit(count)
+        return getLeaderboard(count).stream()
+            .map(GpaRanking.Entry::getStudent)
             .collect(Collectors.toList());
     }
 
+    // GPA rankings are timed as a whole; Student.calculateGPA is a read of running totals
+    public List<GpaRanking.Entry> getLeaderboard(int count) {
+        long start = System.nanoTime();
+        List<GpaRanking.Entry> entries = ranking.topStudents(snapshot(), count);
+        metrics.record(Metrics.Operation.GPA_RANKING, start);
+        return entries;
+    }
+
+    public Map<Department, List<GpaRanking.Entry>> getDepartmentLeaderboards(int count) {
+        long start = System.nanoTime();
+        Map<Department, List<GpaRanking.Entry>> leaderboards = ranking.topByDepartment(snapshot(), count);
+        metrics.record(Metrics.Operation.GPA_RANKING, start);
+        return leaderboards;
+    }
+
+    public List<GpaRanking.Entry> getSemesterLeaderboard(Semester semester, int count) {
+        long start = System.nanoTime();
+        List<GpaRanking.Entry> entries = ranking.topForSemester(snapshot(), semester, count);
+        metrics.record(Metrics.Operation.GPA_RANKING, start);
+        return entries;
+    }
+
+    // Students per whole GPA point (ungraded students count as 0.0), counted in a primitive array
     public Map<Double, Long> getGPADistribution() {
-        return students.values().stream()
-            .collect(Collectors.groupingBy(
-                student -> Math.floor(student.calculateGPA()),
-                Collectors.counting()
-            ));
+        long start = System.nanoTime();
+        long[] counts = new long[11];
+        for (Student student : snapshot()) {
+            counts[Math.min(10, (int) student.calculateGPA())]++;
+        }
+        metrics.record(Metrics.Operation.GPA_RANKING, start);
+        Map<Double, Long> distribution = new LinkedHashMap<>();
+        for (int point = 0; point < counts.length; point++) {
+            if (counts[point] > 0) {
+                distribution.put((double) point, counts[point]);
+            }
+        }
+        return distribution;
+    }
+
+    // Single-pass analytics over the roster, with per-course rows for the given catalog
+    public ReportEngine.Report buildReport(Collection<Course> courses) {
+        return reports.run(snapshot(), courses);
+    }
+
+    // Point-in-time view of every student, taken in O(1) without blocking writers. The students
+    // in it are read-only copies (see Student.copy) as of the moment of the call; changes made
+    // afterwards, including multi-student batches, are either wholly in a later view or not at
+    // all. Versions no view refers to any more are reclaimed by the garbage collector.
+    public Collection<Student> snapshot() {
+        return versions.get().values();
+    }
+
+    // Re-publishes every student to snapshots, for loaders (such as log replay) that changed
+    // students directly rather than through the service
+    public void refreshSnapshot() {
+        for (Student student : students.values()) {
+            Lock lock = locks.lockFor(student.getId());
+            lock.lock();
+            try {
+                publishVersion(student);
+            } finally {
+                lock.unlock();
+            }
+        }
     }
 
     @Override
@@ -74,4 +584,175 @@ public class StudentService implements Searchable<Student> {
     public Student findById(String id) {
         return students.get(id);
     }
-}
\ No newline at end of file
+
+    @Override
+    public UniqueIndex<Student> getIndex(String name) {
+        return indexes.get(name);
+    }
+
+    @Override
+    public synchronized void registerIndex(UniqueIndex<Student> index) {
+        if (indexes.containsKey(index.getName())) {
+            throw new IllegalArgumentException("Index already registered: " + index.getName());
+        }
+        index.clear();
+        students.values().forEach(index::add);
+        Map<String, UniqueIndex<Student>> updated = new LinkedHashMap<>(indexes);
+        updated.put(index.getName(), index);
+        indexes = updated;
+    }
+
+    // Replaces the credit caps; departments missing from the map use the default
+    public void setCreditLimits(int defaultLimit, Map<Department, Integer> perDepartment) {
+        int[] limits = defaultCreditLimits(defaultLimit);
+        perDepartment.forEach((department, limit) -> limits[department.ordinal()] = limit);
+        creditLimits = limits;
+    }
+
+    public int getCreditLimit(Student student) {
+        int[] limits = creditLimits;
+        return student.getDepartment() == null ? limits[limits.length - 1] : limits[student.getDepartment().ordinal()];
+    }
+
+    private static int[] defaultCreditLimits(int limit) {
+        int[] limits = new int[Department.values().length + 1];
+        Arrays.fill(limits, limit);
+        return limits;
+    }
+
+    // Mutations are reported to the journal only after they have been applied. A mutation the
+    // journal rejects (e.g. a failed fsync) is undone before the exception reaches the caller.
+    public void setJournal(ChangeJournal journal) {
+        this.journal = journal == null ? ChangeJournal.NONE : journal;
+    }
+
+    // Student changes, and enrollment and grade changes made through any path (including batches,
+    // waitlist promotion and rollbacks), are published to the bus after they have been applied
+    public void setEventBus(EventBus events) {
+        this.events = events;
+    }
+
+    // Publishes copies of the changed students to snapshots in one step, so a change spanning
+    // several students appears whole. Callers hold the students' stripes and publish before
+    // journaling: a checkpoint that rotates the log and then takes a snapshot sees every change
+    // recorded in the segments it drops.
+    void publishVersions(Collection<Student> changed) {
+        List<Student> copies = new ArrayList<>(changed.size());
+        for (Student student : changed) {
+            copies.add(student.copy());
+        }
+        versions.updateAndGet(map -> {
+            for (Student copy : copies) {
+                map = map.put(copy.getId(), copy);
+            }
+            return map;
+        });
+    }
+
+    private void publishVersion(Student student) {
+        Student copy = student.copy();
+        versions.updateAndGet(map -> map.put(copy.getId(), copy));
+    }
+
+    // Journals a change that has already been applied and published. If the journal throws, the
+    // change is undone and the student republished, so memory never holds what the log lost.
+    private void record(Student student, Runnable entry, Runnable undo) {
+        try {
+            entry.run();
+        } catch (RuntimeException e) {
+            try {
+                undo.run();
+            } catch (RuntimeException failure) {
+                e.addSuppressed(failure);
+            }
+            publishVersion(student);
+            throw e;
+        }
+    }
+
+    private void publish(ChangeEvent event) {
+        EventBus bus = events;
+        if (bus != null) bus.publish(event);
+    }
+
+    // Claims every unique key of the student, undoing partial claims when one is taken
+    private void claimKeys(Student student, Student existing) {
+        List<UniqueIndex<Student>> claimed = new ArrayList<>();
+        for (UniqueIndex<Student> index : indexes.values()) {
+            if (!index.tryAdd(student)) {
+                claimed.forEach(done -> done.remove(student));
+                restoreKeys(claimed, existing);
+                throw new IllegalArgumentException(
+                    "Duplicate " + index.getName() + ": " + index.keyOf(student));
+            }
+            claimed.add(index);
+        }
+    }
+
+    private void releaseKeys(Student student, Student existing) {
+        List<UniqueIndex<Student>> all = new ArrayList<>(indexes.values());
+        all.forEach(index -> index.remove(student));
+        restoreKeys(all, existing);
+    }
+
+    // Claiming a key may have displaced the previous instance with the same id
+    private void restoreKeys(List<UniqueIndex<Student>> touched, Student existing) {
+        if (existing != null) {
+            touched.forEach(index -> index.tryAdd(existing));
+        }
+    }
+
+    // Called under the student's monitor, so the enrollments cannot change during the check
+    private static boolean hasEnrollment(Student student, Predicate<Enrollment> test) {
+        for (Enrollment enrollment : student.getEnrolledCourses().values()) {
+            if (test.test(enrollment)) return true;
+        }
+        return false;
+    }
+
+    // Snapshot copies are read-only; adding one would fail half-way through taking over its id
+    private static void requireLive(Student student) {
+        if (student.isFrozen()) {
+            throw new IllegalArgumentException("Student " + student.getRegNo() + " is a snapshot copy and cannot be added");
+        }
+    }
+
+    // A replaced instance gives up its index entries and observers, and its enrollments, with
+    // their seats, move to the replacement
+    private void retire(Student existing, Student replacement) {
+        unindex(existing);
+        replacement.takeOver(existing);
+    }
+
+    private void install(Student student) {
+        students.put(student.getId(), student);
+        bitmaps.add(student);
+        student.setObserver(studentObserver);
+        student.setEnrollmentObserver(enrollmentObserver);
+    }
+
+    // Undoes an add whose record could not be journaled: the id goes back to the instance it held
+    // before, which takes its enrollments back, or is removed if it was new
+    private void restore(Student student, Student existing) {
+        if (existing == student) return;
+        unindex(student);
+        if (existing == null) {
+            students.remove(student.getId());
+            versions.updateAndGet(map -> map.remove(student.getId()));
+            return;
+        }
+        existing.takeOver(student);
+        restoreKeys(new ArrayList<>(indexes.values()), existing);
+        install(existing);
+        textIndex.add(existing);
+        publishVersion(existing);
+    }
+
+    private void unindex(Student student) {
+        indexes.values().forEach(index -> index.remove(student));
+        bitmaps.remove(student);
+        student.setObserver(null);
+        student.setEnrollmentObserver(null);
+        textIndex.remove(student);
+    }
+}
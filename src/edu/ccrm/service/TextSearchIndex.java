@@ -0,0 +1,286 @@
+package edu.ccrm.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// Trigram inverted index for case-insensitive substring and prefix search over text fields.
+// Every indexed item gets an ascending document id; each trigram maps to the sorted ids that
+// contain it, so a query intersects the posting lists of its trigrams and only verifies the
+// few surviving candidates. Updates tombstone the old document and append a new one; the
+// index is rebuilt once tombstones outnumber live documents.
+public class TextSearchIndex<T> {
+    public enum Mode { SUBSTRING, PREFIX }
+
+    private static final int MIN_COMPACTION = 1024;
+
+    private final List<Function<T, String>> fields;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<T, Integer> documentIds = new IdentityHashMap<>();
+    private final List<T> documents = new ArrayList<>();
+    private final List<String[]> texts = new ArrayList<>();
+    private int deleted;
+
+    // Fields are listed in ranking order: a match in an earlier field ranks higher
+    @SafeVarargs
+    public TextSearchIndex(Function<T, String>... fields) {
+        if (fields.length == 0) {
+            throw new IllegalArgumentException("At least one field is required");
+        }
+        // Copied element by element so the varargs array never escapes
+        List<Function<T, String>> copy = new ArrayList<>(fields.length);
+        for (Function<T, String> field : fields) {
+            copy.add(field);
+        }
+        this.fields = copy;
+    }
+
+    public void add(T item) {
+        lock.writeLock().lock();
+        try {
+            unindex(item);
+            index(item);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addAll(Collection<T> items) {
+        lock.writeLock().lock();
+        try {
+            for (T item : items) {
+                unindex(item);
+                index(item);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Re-reads the fields of an item whose text changed
+    public void update(T item) {
+        lock.writeLock().lock();
+        try {
+            if (unindex(item)) {
+                index(item);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(T item) {
+        lock.writeLock().lock();
+        try {
+            unindex(item);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentIds.clear();
+            documents.clear();
+            texts.clear();
+            deleted = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best matches first: exact field, then field prefix, then word prefix, then plain substring;
+    // earlier fields win ties, then shorter text, then insertion order
+    public List<T> search(String query, Mode mode, int limit) {
+        String term = normalize(query);
+        if (term.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        Comparator<Match> worstFirst = Comparator.comparingInt((Match match) -> match.score)
+            .thenComparing(Comparator.comparingInt((Match match) -> match.length).reversed())
+            .thenComparing(Comparator.comparingInt((Match match) -> match.document).reversed());
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, worstFirst);
+
+        lock.readLock().lock();
+        try {
+            int[] candidates = candidates(term);
+            int count = candidates == null ? documents.size() : candidates.length;
+            for (int i = 0; i < count; i++) {
+                int document = candidates == null ? i : candidates[i];
+                if (documents.get(document) == null) continue;
+                Match match = score(document, term, mode);
+                if (match == null) continue;
+                best.add(match);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<T> results = new ArrayList<>(best.size());
+            Match[] ranked = best.toArray(new Match[0]);
+            Arrays.sort(ranked, worstFirst.reversed());
+            for (Match match : ranked) {
+                results.add(documents.get(match.document));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class Match {
+        final int document;
+        final int score;
+        final int length;
+
+        Match(int document, int score, int length) {
+            this.document = document;
+            this.score = score;
+            this.length = length;
+        }
+    }
+
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void append(int id) {
+            // Ids arrive in ascending order, so a repeated trigram within a document is the last entry
+            if (size > 0 && ids[size - 1] == id) return;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+
+    // Ids holding every trigram of the term, or null when the term is too short to use the index
+    private int[] candidates(String term) {
+        if (term.length() < 3) return null;
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            Postings list = postings.get(trigram(term, i));
+            if (list == null) return new int[0];
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        Postings smallest = lists.get(0);
+        int[] result = new int[smallest.size];
+        int count = 0;
+        outer:
+        for (int i = 0; i < smallest.size; i++) {
+            int id = smallest.ids[i];
+            for (int l = 1; l < lists.size(); l++) {
+                if (!lists.get(l).contains(id)) continue outer;
+            }
+            result[count++] = id;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // Trigrams only narrow the candidates; the actual match is verified against the stored text
+    private Match score(int document, String term, Mode mode) {
+        String[] values = texts.get(document);
+        int bestScore = -1;
+        int bestLength = 0;
+        for (int f = 0; f < values.length; f++) {
+            String value = values[f];
+            int kind = -1;
+            for (int at = value.indexOf(term); at >= 0; at = value.indexOf(term, at + 1)) {
+                int found;
+                if (at == 0) {
+                    found = value.length() == term.length() ? 3 : 2;
+                } else {
+                    found = isWordStart(value, at) ? 1 : 0;
+                }
+                kind = Math.max(kind, found);
+                if (kind >= 2) break;
+            }
+            if (kind < 0 || (mode == Mode.PREFIX && kind == 0)) continue;
+            int fieldScore = kind * values.length + (values.length - 1 - f);
+            if (fieldScore > bestScore) {
+                bestScore = fieldScore;
+                bestLength = value.length();
+            }
+        }
+        return bestScore < 0 ? null : new Match(document, bestScore, bestLength);
+    }
+
+    private static boolean isWordStart(String value, int at) {
+        return !Character.isLetterOrDigit(value.charAt(at - 1));
+    }
+
+    private void index(T item) {
+        int document = documents.size();
+        String[] values = new String[fields.size()];
+        for (int f = 0; f < values.length; f++) {
+            String value = fields.get(f).apply(item);
+            values[f] = value == null ? "" : normalize(value);
+            for (int i = 0; i + 3 <= values[f].length(); i++) {
+                postings.computeIfAbsent(trigram(values[f], i), key -> new Postings()).append(document);
+            }
+        }
+        documents.add(item);
+        texts.add(values);
+        documentIds.put(item, document);
+    }
+
+    private boolean unindex(T item) {
+        Integer document = documentIds.remove(item);
+        if (document == null) return false;
+        // Posting lists keep the stale id; search skips it and compaction drops it
+        documents.set(document, null);
+        texts.set(document, null);
+        deleted++;
+        return true;
+    }
+
+    private void compactIfNeeded() {
+        if (deleted < MIN_COMPACTION || deleted < documentIds.size()) return;
+        List<T> live = new ArrayList<>(documentIds.size());
+        for (T item : documents) {
+            if (item != null) live.add(item);
+        }
+        postings.clear();
+        documentIds.clear();
+        documents.clear();
+        texts.clear();
+        deleted = 0;
+        live.forEach(this::index);
+    }
+
+    private static long trigram(String text, int at) {
+        return ((long) text.charAt(at) << 32) | ((long) text.charAt(at + 1) << 16) | text.charAt(at + 2);
+    }
+
+    private static String normalize(String text) {
+        return Objects.requireNonNull(text).trim().toLowerCase();
+    }
+}
@@ -0,0 +1,111 @@
+package edu.ccrm.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Secondary index mapping a unique key (regNo, email, ...) to its owning entity.
+// Keys are claimed atomically, so two concurrent inserts can never both own the same key.
+public class UniqueIndex<T> implements FieldIndex<T> {
+    private final String name;
+    private final Function<T, String> keyExtractor;
+    private final boolean ignoreCase;
+    private final Map<String, T> entries;
+
+    public UniqueIndex(String name, Function<T, String> keyExtractor) {
+        this(name, keyExtractor, false);
+    }
+
+    public UniqueIndex(String name, Function<T, String> keyExtractor, boolean ignoreCase) {
+        this.name = Objects.requireNonNull(name, "Index name cannot be null");
+        this.keyExtractor = Objects.requireNonNull(keyExtractor, "Key extractor cannot be null");
+        this.ignoreCase = ignoreCase;
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public String getName() { return name; }
+
+    public T get(String key) {
+        return key == null ? null : entries.get(normalize(key));
+    }
+
+    public boolean canAdd(T item) {
+        String key = keyOf(item);
+        if (key == null) return true;
+        T owner = entries.get(key);
+        return owner == null || owner.equals(item);
+    }
+
+    // Claims the item's key; an equal item (same identity key) that owns it is replaced
+    public boolean tryAdd(T item) {
+        String key = keyOf(item);
+        if (key == null) return true;
+        T owner = entries.putIfAbsent(key, item);
+        if (owner == null || owner == item) return true;
+        return owner.equals(item) && entries.replace(key, owner, item);
+    }
+
+    public void add(T item) {
+        if (!tryAdd(item)) {
+            throw new IllegalArgumentException("Duplicate " + name + ": " + keyOf(item));
+        }
+    }
+
+    // Removes the mapping only while it still points at this exact instance
+    public void remove(T item) {
+        String key = keyOf(item);
+        if (key != null) {
+            entries.computeIfPresent(key, (k, owner) -> owner == item ? null : owner);
+        }
+    }
+
+    // Re-keys an item whose indexed value changed from oldKey
+    public void update(T item, String oldKey) {
+        String key = keyOf(item);
+        String previous = oldKey == null ? null : normalize(oldKey);
+        if (Objects.equals(previous, key)) return;
+        add(item);
+        if (previous != null) {
+            entries.computeIfPresent(previous, (k, owner) -> owner == item ? null : owner);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public Collection<T> lookup(Object value) {
+        T owner = value instanceof String ? get((String) value) : null;
+        return owner == null ? Collections.emptyList() : Collections.singletonList(owner);
+    }
+
+    @Override
+    public int count(Object value) {
+        return value instanceof String && get((String) value) != null ? 1 : 0;
+    }
+
+    // Keys are trimmed (and possibly lower-cased) before lookup, so a match is re-checked
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+
+    String keyOf(T item) {
+        String key = keyExtractor.apply(item);
+        return key == null ? null : normalize(key);
+    }
+
+    private String normalize(String key) {
+        String trimmed = key.trim();
+        return ignoreCase ? trimmed.toLowerCase() : trimmed;
+    }
+}